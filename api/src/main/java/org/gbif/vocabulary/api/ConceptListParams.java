@@ -46,6 +46,7 @@ public class ConceptListParams extends ListParamsBase implements Serializable {
   boolean includeParents;
   List<String> tags;
   String hiddenLabel;
+  Long afterKey;
 
   public Pageable getPage() {
     return new PagingRequest(this.getOffset(), this.getLimit());
@@ -19,6 +19,8 @@ import lombok.Data;
 
 @Data
 public class ParentDto {
+  // concept whose parent this is
+  long conceptKey;
   long key;
   String name;
   int depth;
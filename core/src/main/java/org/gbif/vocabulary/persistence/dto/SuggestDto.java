@@ -15,18 +15,13 @@ package org.gbif.vocabulary.persistence.dto;
 
 import org.gbif.vocabulary.model.LanguageRegion;
 
-import java.util.List;
-
 import lombok.Data;
 
 @Data
 public class SuggestDto {
 
   private long key;
-  private LanguageRegion langParam;
-  private LanguageRegion fallbackLangParam;
   private String name;
   private String label;
   private LanguageRegion labelLang;
-  private List<ParentDto> parentDtos;
 }
@@ -23,7 +23,10 @@ import org.gbif.vocabulary.model.Tag;
 import org.gbif.vocabulary.model.search.ChildrenResult;
 import org.gbif.vocabulary.model.search.ConceptSearchParams;
 import org.gbif.vocabulary.model.search.KeyNameResult;
+import org.gbif.vocabulary.persistence.dto.ConceptValuesDto;
+import org.gbif.vocabulary.persistence.dto.ExportValueDto;
 import org.gbif.vocabulary.persistence.dto.LookupDto;
+import org.gbif.vocabulary.persistence.dto.ParentDto;
 import org.gbif.vocabulary.persistence.dto.SuggestDto;
 
 import java.util.List;
@@ -32,11 +35,17 @@ import jakarta.annotation.Nullable;
 
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.cursor.Cursor;
 
 /** Mapper for {@link Concept}. */
 @Mapper
 public interface ConceptMapper extends BaseMapper<Concept> {
 
+  /**
+   * Lists concepts without their tags, definitions and labels, which can be loaded in bulk with
+   * {@link #listConceptsTags(List)}, {@link #listConceptsDefinitions(List)} and {@link
+   * #listConceptsLabels(List)}.
+   */
   List<Concept> list(
       @Nullable @Param("params") ConceptSearchParams params,
       @Nullable @Param("page") Pageable page);
@@ -98,6 +107,20 @@ public interface ConceptMapper extends BaseMapper<Concept> {
    */
   List<String> findParents(@Param("key") long conceptKey);
 
+  /**
+   * Given a list of concepts, it finds the parents of all of them with their labels in one query.
+   *
+   * @param keys keys of the concepts whose parents we're looking for
+   * @param language language of the labels of the parents
+   * @param fallbackLang language of the labels to use when a parent has no label in the language
+   * @return the parents of all the concepts, ordered by concept and from the direct parent to the
+   *     root
+   */
+  List<ParentDto> findParentsLabels(
+      @Param("keys") List<Long> keys,
+      @Nullable @Param("lang") LanguageRegion language,
+      @Nullable @Param("fallbackLang") LanguageRegion fallbackLang);
+
   /**
    * Given a list of concepts, it finds the number of children that each concept has.
    *
@@ -112,6 +135,16 @@ public interface ConceptMapper extends BaseMapper<Concept> {
 
   List<Tag> listTags(@Param("key") long conceptKey);
 
+  /** Lists the tags of all the concepts received, grouped by concept. */
+  List<ConceptValuesDto<Tag>> listConceptsTags(@Param("keys") List<Long> conceptKeys);
+
+  /** Lists the definitions of all the concepts received, grouped by concept. */
+  List<ConceptValuesDto<Definition>> listConceptsDefinitions(
+      @Param("keys") List<Long> conceptKeys);
+
+  /** Lists the labels of all the concepts received, grouped by concept. */
+  List<ConceptValuesDto<Label>> listConceptsLabels(@Param("keys") List<Long> conceptKeys);
+
   void deleteAllConcepts(@Param("vocabularyKey") long vocabularyKey);
 
   void addAlternativeLabel(@Param("entityKey") long entityKey, @Param("label") Label label);
@@ -141,27 +174,48 @@ public interface ConceptMapper extends BaseMapper<Concept> {
 
   boolean existsReleaseView(@Param("vocabName") String vocabularyName);
 
+  /**
+   * Gets the key of the latest release of a vocabulary. The latest release views are updated in the
+   * same transaction that creates the release, so the key identifies the version of the views.
+   *
+   * @return the key of the latest release or null if the vocabulary has no releases
+   */
+  @Nullable
+  Long getLatestReleaseKey(@Param("vocabName") String vocabularyName);
+
   void createLatestReleaseView(
       @Param("vocabName") String vocabularyName, @Param("vocabKey") long vocabularyKey);
 
-  void updateReleaseViews(@Param("vocabName") String vocabularyName);
+  void updateReleaseViews(
+      @Param("vocabName") String vocabularyName, @Param("vocabKey") long vocabularyKey);
 
+  /** Same as {@link #list(ConceptSearchParams, Pageable)} but for the latest release. */
   List<Concept> listLatestRelease(
       @Nullable @Param("params") ConceptSearchParams params,
       @Nullable @Param("page") Pageable page,
       @Param("vocabName") String vocabularyName);
 
+  List<ConceptValuesDto<Tag>> listConceptsTagsLatestRelease(
+      @Param("keys") List<Long> conceptKeys, @Param("vocabName") String vocabularyName);
+
+  List<ConceptValuesDto<Definition>> listConceptsDefinitionsLatestRelease(
+      @Param("keys") List<Long> conceptKeys, @Param("vocabName") String vocabularyName);
+
+  List<ConceptValuesDto<Label>> listConceptsLabelsLatestRelease(
+      @Param("keys") List<Long> conceptKeys, @Param("vocabName") String vocabularyName);
+
   long countLatestRelease(
       @Nullable @Param("params") ConceptSearchParams params,
       @Param("vocabName") String vocabularyName);
 
-  List<SuggestDto> suggestLatestRelease(
-      @Param("query") String query,
-      @Param("vocabularyKey") long vocabularyKey,
-      @Nullable @Param("lang") LanguageRegion languageFilter,
-      @Nullable @Param("fallbackLang") LanguageRegion fallbackLang,
-      @Param("vocabName") String vocabularyName,
-      @Param("limit") int limit);
+  /**
+   * Lists the key, name, parent and deprecation date of all the concepts of the latest release of
+   * a vocabulary. They are used to build the suggest index of the release.
+   */
+  List<Concept> listSuggestConceptsLatestRelease(@Param("vocabName") String vocabularyName);
+
+  /** Lists the labels of all the concepts of the latest release of a vocabulary. */
+  List<ExportValueDto> listSuggestLabelsLatestRelease(@Param("vocabName") String vocabularyName);
 
   List<String> findParentsLatestRelease(
       @Param("key") long conceptKey, @Param("vocabName") String vocabularyName);
@@ -211,4 +265,36 @@ public interface ConceptMapper extends BaseMapper<Concept> {
       @Param("value") String value,
       @Param("vocabularyKey") long vocabularyKey,
       @Param("vocabName") String vocabularyName);
+
+  /**
+   * Opens a cursor over all the concepts of a vocabulary ordered by key. The concepts don't include
+   * the tags, definitions and labels, they are read with the listExport* cursors, which are ordered
+   * by concept key too.
+   *
+   * <p>The rows are fetched from the DB in batches, so the cursor has to be consumed within a
+   * transaction.
+   *
+   * @param vocabularyKey key of the vocabulary
+   */
+  Cursor<Concept> listExportConcepts(@Param("vocabularyKey") long vocabularyKey);
+
+  /** Opens a cursor over the tags of the concepts of a vocabulary ordered by concept key. */
+  Cursor<ExportValueDto> listExportTags(@Param("vocabularyKey") long vocabularyKey);
+
+  /** Opens a cursor over the definitions of the concepts of a vocabulary ordered by concept key. */
+  Cursor<ExportValueDto> listExportDefinitions(@Param("vocabularyKey") long vocabularyKey);
+
+  /** Opens a cursor over the labels of the concepts of a vocabulary ordered by concept key. */
+  Cursor<ExportValueDto> listExportLabels(@Param("vocabularyKey") long vocabularyKey);
+
+  /**
+   * Opens a cursor over the alternative labels of the concepts of a vocabulary ordered by concept
+   * key.
+   */
+  Cursor<ExportValueDto> listExportAlternativeLabels(@Param("vocabularyKey") long vocabularyKey);
+
+  /**
+   * Opens a cursor over the hidden labels of the concepts of a vocabulary ordered by concept key.
+   */
+  Cursor<ExportValueDto> listExportHiddenLabels(@Param("vocabularyKey") long vocabularyKey);
 }
@@ -18,12 +18,25 @@ import java.util.List;
 import org.apache.ibatis.annotations.Param;
 import org.gbif.api.model.common.paging.Pageable;
 import org.gbif.vocabulary.model.VocabularyRelease;
+import org.gbif.vocabulary.model.export.ExportFileInfo;
+import org.gbif.vocabulary.persistence.parameters.BinaryStreamParam;
 
 /** Mapper for {@link VocabularyRelease}. */
 public interface VocabularyReleaseMapper {
 
   void create(VocabularyRelease vocabularyRelease);
 
+  /**
+   * Creates a release streaming its export file into the DB instead of taking it from {@link
+   * VocabularyRelease#getExportFile()}, so the file doesn't have to be loaded in memory.
+   *
+   * @param vocabularyRelease release to create
+   * @param exportFile stream of the export file
+   */
+  void createWithExportStream(
+      @Param("release") VocabularyRelease vocabularyRelease,
+      @Param("exportFile") BinaryStreamParam exportFile);
+
   VocabularyRelease get(@Param("key") long key);
 
   List<VocabularyRelease> list(
@@ -37,4 +50,26 @@ public interface VocabularyReleaseMapper {
 
   VocabularyRelease getVocabularyReleaseWithExportFile(
       @Param("vocabularyKey") long key, @Param("version") String version);
+
+  /**
+   * Gets the size and compression of the export file of a release without reading the file.
+   *
+   * @return the info of the export file or null if the release doesn't exist or has no file
+   */
+  ExportFileInfo getExportFileInfo(
+      @Param("vocabularyKey") long key, @Param("version") String version);
+
+  /**
+   * Gets a range of bytes of the export file of a release, so the file can be read in chunks. The
+   * bytes are returned in {@link VocabularyRelease#getExportFile()} and the rest of fields are not
+   * set.
+   *
+   * @param offset zero-based position of the first byte to read
+   * @param length max number of bytes to read
+   */
+  VocabularyRelease getExportFileRange(
+      @Param("vocabularyKey") long key,
+      @Param("version") String version,
+      @Param("offset") long offset,
+      @Param("length") int length);
 }
@@ -0,0 +1,38 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.vocabulary.persistence.parameters;
+
+import java.io.InputStream;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Holder for binary content that is streamed into the DB. The length is required so the JDBC
+ * driver can send the stream without buffering it in memory.
+ */
+@Getter
+@ToString
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class BinaryStreamParam {
+
+  private InputStream stream;
+  private long length;
+
+  public static BinaryStreamParam of(InputStream stream, long length) {
+    return new BinaryStreamParam(stream, length);
+  }
+}
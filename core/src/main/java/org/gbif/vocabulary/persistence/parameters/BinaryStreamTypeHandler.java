@@ -0,0 +1,63 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.vocabulary.persistence.parameters;
+
+import java.io.ByteArrayInputStream;
+import java.sql.CallableStatement;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import org.apache.ibatis.type.BaseTypeHandler;
+import org.apache.ibatis.type.JdbcType;
+
+/**
+ * Binds a {@link BinaryStreamParam} as a binary stream.
+ *
+ * <p>It's not in the handlers package, so it's not registered and it's only used by the statements
+ * that set it explicitly, like the insert of the release exports. If it's used to read a column,
+ * the bytes read are wrapped in a {@link BinaryStreamParam}.
+ */
+public class BinaryStreamTypeHandler extends BaseTypeHandler<BinaryStreamParam> {
+
+  @Override
+  public void setNonNullParameter(
+      PreparedStatement ps, int i, BinaryStreamParam parameter, JdbcType jdbcType)
+      throws SQLException {
+    ps.setBinaryStream(i, parameter.getStream(), parameter.getLength());
+  }
+
+  @Override
+  public BinaryStreamParam getNullableResult(ResultSet rs, String columnName)
+      throws SQLException {
+    return toParam(rs.getBytes(columnName));
+  }
+
+  @Override
+  public BinaryStreamParam getNullableResult(ResultSet rs, int columnIndex) throws SQLException {
+    return toParam(rs.getBytes(columnIndex));
+  }
+
+  @Override
+  public BinaryStreamParam getNullableResult(CallableStatement cs, int columnIndex)
+      throws SQLException {
+    return toParam(cs.getBytes(columnIndex));
+  }
+
+  private static BinaryStreamParam toParam(byte[] bytes) {
+    return bytes != null
+        ? BinaryStreamParam.of(new ByteArrayInputStream(bytes), bytes.length)
+        : null;
+  }
+}
@@ -21,12 +21,14 @@ import org.gbif.vocabulary.model.HiddenLabel;
 import org.gbif.vocabulary.model.Label;
 import org.gbif.vocabulary.model.LanguageRegion;
 import org.gbif.vocabulary.model.Tag;
+import org.gbif.vocabulary.model.export.ConceptExportView;
 import org.gbif.vocabulary.model.search.ChildrenResult;
 import org.gbif.vocabulary.model.search.ConceptSearchParams;
 import org.gbif.vocabulary.model.search.LookupResult;
 import org.gbif.vocabulary.model.search.SuggestResult;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 import jakarta.annotation.Nullable;
 import jakarta.validation.Valid;
@@ -50,7 +52,8 @@ public interface ConceptService extends BaseService<Concept> {
    *
    * @param params to do the search
    * @param page paging parameters
-   * @return a list of {@link Concept} ordered by their creation date, newest coming first
+   * @return a list of {@link Concept} ordered by their creation date, newest coming first, or by
+   *     key if {@link ConceptSearchParams#getAfterKey()} is set
    */
   PagingResponse<Concept> list(@Nullable ConceptSearchParams params, @Nullable Pageable page);
 
@@ -167,6 +170,19 @@ public interface ConceptService extends BaseService<Concept> {
   PagingResponse<HiddenLabel> listHiddenLabels(
       long entityKey, @Nullable String query, @Nullable Pageable page);
 
+  /**
+   * Streams all the concepts of a vocabulary with all the data needed to export them. The concepts
+   * are ordered by key and they are read with DB cursors, so only a few rows are kept in memory at
+   * a time.
+   *
+   * <p>It has to be called within a transaction and the stream has to be consumed and closed
+   * before the transaction ends.
+   *
+   * @param vocabularyKey key of the vocabulary to export
+   * @return stream of {@link ConceptExportView} ordered by the concept key
+   */
+  Stream<ConceptExportView> streamExportViews(long vocabularyKey);
+
   /**
    * Checks if the views of the latest release of a vocabulary exist. They should always exist
    * unless the vocabulary hasn't been released yet.
@@ -185,11 +201,13 @@ public interface ConceptService extends BaseService<Concept> {
   void createLatestReleaseView(String vocabularyName, long vocabularyKey);
 
   /**
-   * Updates the views of the latest release of the vocabulary.
+   * Updates the views of the latest release of the vocabulary. Only the rows that changed since the
+   * previous release are written.
    *
    * @param vocabularyName vocabulary whose views will be updated
+   * @param vocabularyKey key of the vocabulary
    */
-  void updateLatestReleaseView(String vocabularyName);
+  void updateLatestReleaseView(String vocabularyName, long vocabularyKey);
 
   /**
    * It works as {@link #list(ConceptSearchParams, Pageable)} but it queries the latest release of *
@@ -201,6 +219,9 @@ public interface ConceptService extends BaseService<Concept> {
   /**
    * It works as {@link #suggest(String, long, LanguageRegion, LanguageRegion, Integer)} but it
    * queries the latest release of the vocabulary instead of the actual data.
+   *
+   * <p>The latest release is indexed in memory the first time it's suggested, so the rest of
+   * suggestions don't query the DB until there is a new release.
    */
   List<SuggestResult> suggestLatestRelease(
       String query,
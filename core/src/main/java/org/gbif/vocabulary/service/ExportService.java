@@ -19,9 +19,14 @@ import org.gbif.api.model.common.paging.Pageable;
 import org.gbif.api.model.common.paging.PagingResponse;
 import org.gbif.vocabulary.model.VocabularyRelease;
 import org.gbif.vocabulary.model.export.Export;
+import org.gbif.vocabulary.model.export.ExportFileInfo;
 import org.gbif.vocabulary.model.export.ExportParams;
+import org.gbif.vocabulary.model.export.ReleaseDiff;
+import org.gbif.vocabulary.model.export.ReleaseResult;
 
+import java.io.InputStream;
 import java.nio.file.Path;
+import java.util.List;
 
 import jakarta.annotation.Nullable;
 import jakarta.validation.constraints.NotBlank;
@@ -56,6 +61,15 @@ public interface ExportService {
    */
   VocabularyRelease releaseVocabulary(ExportParams exportParams);
 
+  /**
+   * Releases several vocabularies concurrently. Each vocabulary is released in its own transaction,
+   * so the failure of one of them doesn't affect the rest.
+   *
+   * @param exportParams params for the release of each vocabulary
+   * @return the {@link ReleaseResult} of each vocabulary, in the same order as the params
+   */
+  List<ReleaseResult> releaseVocabularies(List<ExportParams> exportParams);
+
   /**
    * Lists the vocabulary releases for a vocabulary and optionally a specific version. If the
    * version is "latest" it will return the latest released version.
@@ -69,11 +83,38 @@ public interface ExportService {
       @NotBlank String vocabularyName, @Nullable String version, @Nullable Pageable page);
 
   /**
-   * Retrieves the binary export file of a release.
+   * Retrieves the information of the export file of a release without reading it. The exports are
+   * stored gzip-compressed, except the ones of the releases created before the compression was
+   * introduced.
    *
    * @param vocabularyName name of the vocabulary
    * @param version version to retrieve
-   * @return export file bytes for the resolved release
+   * @return the {@link ExportFileInfo} of the release or null if it doesn't exist
+   */
+  ExportFileInfo getExportFileInfo(@NotBlank String vocabularyName, @NotBlank String version);
+
+  /**
+   * Opens a stream to read a range of the export file of a release, as it's stored. The file is
+   * read from the DB in chunks while the stream is consumed, so it's never fully loaded in memory.
+   *
+   * @param vocabularyName name of the vocabulary
+   * @param version version to retrieve
+   * @param offset zero-based position of the first byte to read
+   * @param length number of bytes to read
+   * @return stream with the requested bytes of the export file
+   */
+  InputStream openExportFile(
+      @NotBlank String vocabularyName, @NotBlank String version, long offset, long length);
+
+  /**
+   * Computes the structural differences between two releases of a vocabulary from their exports.
+   * The exports are streamed and merged, so they are never fully loaded in memory.
+   *
+   * @param vocabularyName name of the vocabulary
+   * @param fromVersion version of the older release
+   * @param toVersion version of the newer release
+   * @return the {@link ReleaseDiff} between both releases
    */
-  byte[] getExportFile(@NotBlank String vocabularyName, @NotBlank String version);
+  ReleaseDiff diffReleases(
+      @NotBlank String vocabularyName, @NotBlank String fromVersion, @NotBlank String toVersion);
 }
@@ -18,6 +18,7 @@ import org.gbif.api.model.common.paging.PagingRequest;
 import org.gbif.api.model.common.paging.PagingResponse;
 import org.gbif.vocabulary.model.*;
 import org.gbif.vocabulary.model.exception.EntityNotFoundException;
+import org.gbif.vocabulary.model.export.ConceptExportView;
 import org.gbif.vocabulary.model.normalizers.StringNormalizer;
 import org.gbif.vocabulary.model.search.ChildrenResult;
 import org.gbif.vocabulary.model.search.ConceptSearchParams;
@@ -27,6 +28,8 @@ import org.gbif.vocabulary.model.search.SuggestResult;
 import org.gbif.vocabulary.model.utils.PathUtils;
 import org.gbif.vocabulary.model.utils.PostPersist;
 import org.gbif.vocabulary.model.utils.PrePersist;
+import org.gbif.vocabulary.persistence.dto.ConceptValuesDto;
+import org.gbif.vocabulary.persistence.dto.ExportValueDto;
 import org.gbif.vocabulary.persistence.dto.LookupDto;
 import org.gbif.vocabulary.persistence.dto.ParentDto;
 import org.gbif.vocabulary.persistence.dto.SuggestDto;
@@ -34,13 +37,24 @@ import org.gbif.vocabulary.persistence.mappers.ConceptMapper;
 import org.gbif.vocabulary.persistence.mappers.VocabularyMapper;
 import org.gbif.vocabulary.service.ConceptService;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import jakarta.annotation.Nullable;
 import jakarta.validation.Valid;
@@ -48,15 +62,21 @@ import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.groups.Default;
 
+import org.apache.ibatis.cursor.Cursor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.access.annotation.Secured;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.validation.annotation.Validated;
 
 import com.google.common.base.Preconditions;
 import com.google.common.base.Strings;
+import com.google.common.base.Throwables;
+import com.google.common.collect.Iterators;
+import com.google.common.collect.PeekingIterator;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static java.util.Objects.requireNonNull;
@@ -73,14 +93,28 @@ public class DefaultConceptService implements ConceptService {
   private final VocabularyMapper vocabularyMapper;
   private final String apiUrl;
 
+  // the latest releases don't change until there is a new release, so they are suggested from
+  // memory. The indexes are keyed by the lowercase vocabulary name and only the most recently used
+  // ones are kept. They are built outside the lock, so building one doesn't block the other
+  // vocabularies
+  private final Map<String, ReleaseSuggestIndex> latestReleaseSuggestIndexes;
+
   @Autowired
   public DefaultConceptService(
       ConceptMapper conceptMapper,
       VocabularyMapper vocabularyMapper,
-      @Value("${ws.apiUrl}") String apiUrl) {
+      @Value("${ws.apiUrl}") String apiUrl,
+      @Value("${suggest.maxReleaseIndexes:50}") int maxReleaseIndexes) {
     this.conceptMapper = conceptMapper;
     this.vocabularyMapper = vocabularyMapper;
     this.apiUrl = apiUrl;
+    this.latestReleaseSuggestIndexes =
+        new LinkedHashMap<>(16, 0.75f, true) {
+          @Override
+          protected boolean removeEldestEntry(Map.Entry<String, ReleaseSuggestIndex> eldest) {
+            return size() > maxReleaseIndexes;
+          }
+        };
   }
 
   @Override
@@ -177,9 +211,46 @@ public class DefaultConceptService implements ConceptService {
       @Nullable ConceptSearchParams params, @Nullable Pageable page) {
     page = page != null ? page : new PagingRequest();
     params = params != null ? params : ConceptSearchParams.empty();
+    page = keysetPage(params, page);
 
     return new PagingResponse<>(
-        page, conceptMapper.count(params), conceptMapper.list(params, page));
+        page,
+        conceptMapper.count(params),
+        addConceptsValues(
+            conceptMapper.list(params, page),
+            conceptMapper::listConceptsTags,
+            conceptMapper::listConceptsDefinitions,
+            conceptMapper::listConceptsLabels));
+  }
+
+  /**
+   * Sets the tags, definitions and labels of a page of concepts. They are loaded with one query
+   * each for all the concepts instead of one query per concept.
+   */
+  private static List<Concept> addConceptsValues(
+      List<Concept> concepts,
+      Function<List<Long>, List<ConceptValuesDto<Tag>>> tagsLoader,
+      Function<List<Long>, List<ConceptValuesDto<Definition>>> definitionsLoader,
+      Function<List<Long>, List<ConceptValuesDto<Label>>> labelsLoader) {
+    if (concepts.isEmpty()) {
+      return concepts;
+    }
+
+    Map<Long, Concept> conceptsByKey = new HashMap<>();
+    concepts.forEach(c -> conceptsByKey.put(c.getKey(), c));
+    List<Long> keys = new ArrayList<>(conceptsByKey.keySet());
+
+    tagsLoader
+        .apply(keys)
+        .forEach(dto -> conceptsByKey.get(dto.getConceptKey()).setTags(dto.getValues()));
+    definitionsLoader
+        .apply(keys)
+        .forEach(dto -> conceptsByKey.get(dto.getConceptKey()).setDefinition(dto.getValues()));
+    labelsLoader
+        .apply(keys)
+        .forEach(dto -> conceptsByKey.get(dto.getConceptKey()).setLabel(dto.getValues()));
+
+    return concepts;
   }
 
   @Override
@@ -193,10 +264,20 @@ public class DefaultConceptService implements ConceptService {
     limit = limit != null ? Math.min(limit, DEFAULT_SUGGEST_LIMIT) : DEFAULT_SUGGEST_LIMIT;
     List<SuggestDto> dtos =
         conceptMapper.suggest(query, vocabularyKey, languageRegion, fallbackLanguageRegion, limit);
-    return convertSuggestResults(dtos);
-  }
+    if (dtos.isEmpty()) {
+      return Collections.emptyList();
+    }
+
+    // the parents of all the results are retrieved at once
+    Map<Long, List<ParentDto>> parentsByConcept =
+        conceptMapper
+            .findParentsLabels(
+                dtos.stream().map(SuggestDto::getKey).collect(Collectors.toList()),
+                languageRegion,
+                fallbackLanguageRegion)
+            .stream()
+            .collect(Collectors.groupingBy(ParentDto::getConceptKey));
 
-  private static List<SuggestResult> convertSuggestResults(List<SuggestDto> dtos) {
     return dtos.stream()
         .map(
             dto -> {
@@ -205,8 +286,7 @@ public class DefaultConceptService implements ConceptService {
               suggestResult.setLabel(dto.getLabel());
               suggestResult.setLabelLanguage(dto.getLabelLang());
               suggestResult.setParents(
-                  dto.getParentDtos().stream()
-                      .sorted(Comparator.comparing(ParentDto::getDepth))
+                  parentsByConcept.getOrDefault(dto.getKey(), Collections.emptyList()).stream()
                       .map(
                           p -> {
                             SuggestResult.Parent parent = new SuggestResult.Parent();
@@ -509,6 +589,90 @@ public class DefaultConceptService implements ConceptService {
             entityKey, normalizedQuery, page, vocabularyName));
   }
 
+  @Override
+  public Stream<ConceptExportView> streamExportViews(long vocabularyKey) {
+    Cursor<Concept> concepts = conceptMapper.listExportConcepts(vocabularyKey);
+
+    // all the cursors are ordered by concept key, so the values are merged with the concepts as
+    // they are read
+    List<ExportValuesMerger> mergers =
+        List.of(
+            new ExportValuesMerger(
+                conceptMapper.listExportTags(vocabularyKey),
+                (view, v) -> view.getTags().add(v.getValue())),
+            new ExportValuesMerger(
+                conceptMapper.listExportDefinitions(vocabularyKey),
+                (view, v) -> view.getDefinition().put(v.getLanguage(), v.getValue())),
+            new ExportValuesMerger(
+                conceptMapper.listExportLabels(vocabularyKey),
+                (view, v) -> view.getLabel().put(v.getLanguage(), v.getValue())),
+            new ExportValuesMerger(
+                conceptMapper.listExportAlternativeLabels(vocabularyKey),
+                (view, v) ->
+                    view.getAlternativeLabels()
+                        .computeIfAbsent(v.getLanguage(), k -> new HashSet<>())
+                        .add(v.getValue())),
+            new ExportValuesMerger(
+                conceptMapper.listExportHiddenLabels(vocabularyKey),
+                (view, v) -> view.getHiddenLabels().add(v.getValue())));
+
+    return StreamSupport.stream(concepts.spliterator(), false)
+        .map(
+            concept -> {
+              ConceptExportView view = new ConceptExportView();
+              view.setConcept(concept);
+              mergers.forEach(m -> m.addValues(view));
+              return view;
+            })
+        .onClose(
+            () -> {
+              closeCursor(concepts);
+              mergers.forEach(m -> closeCursor(m.cursor));
+            });
+  }
+
+  private static void closeCursor(Cursor<?> cursor) {
+    try {
+      cursor.close();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /** Adds the values of a cursor ordered by concept key to the export views of the concepts. */
+  private static class ExportValuesMerger {
+    private final Cursor<ExportValueDto> cursor;
+    private final PeekingIterator<ExportValueDto> values;
+    private final BiConsumer<ConceptExportView, ExportValueDto> adder;
+
+    ExportValuesMerger(
+        Cursor<ExportValueDto> cursor, BiConsumer<ConceptExportView, ExportValueDto> adder) {
+      this.cursor = cursor;
+      this.values = Iterators.peekingIterator(cursor.iterator());
+      this.adder = adder;
+    }
+
+    /** The views have to be received in the same order as the cursor. */
+    void addValues(ConceptExportView view) {
+      long conceptKey = view.getConcept().getKey();
+      while (values.hasNext() && values.peek().getConceptKey() <= conceptKey) {
+        ExportValueDto value = values.next();
+        // values of concepts that are not in the export are skipped
+        if (value.getConceptKey() == conceptKey) {
+          adder.accept(view, value);
+        }
+      }
+    }
+  }
+
+  /**
+   * With keyset pagination the offset is ignored and the count only includes the concepts after the
+   * key, so the page starts at 0 to keep the end of records consistent.
+   */
+  private static Pageable keysetPage(ConceptSearchParams params, Pageable page) {
+    return params.getAfterKey() != null ? new PagingRequest(0, page.getLimit()) : page;
+  }
+
   /** Returns the keys of all the children of the given concept. */
   private List<Long> findChildrenKeys(long parentKey, boolean deprecated) {
     return conceptMapper
@@ -527,11 +691,14 @@ public class DefaultConceptService implements ConceptService {
   @Override
   public void createLatestReleaseView(String vocabularyName, long vocabularyKey) {
     conceptMapper.createLatestReleaseView(vocabularyName, vocabularyKey);
+    invalidateLatestReleaseSuggestIndex(vocabularyName);
   }
 
+  @Transactional
   @Override
-  public void updateLatestReleaseView(String vocabularyName) {
-    conceptMapper.updateReleaseViews(vocabularyName);
+  public void updateLatestReleaseView(String vocabularyName, long vocabularyKey) {
+    conceptMapper.updateReleaseViews(vocabularyName, vocabularyKey);
+    invalidateLatestReleaseSuggestIndex(vocabularyName);
   }
 
   @Override
@@ -542,13 +709,18 @@ public class DefaultConceptService implements ConceptService {
 
     page = page != null ? page : new PagingRequest();
     params = params != null ? params : ConceptSearchParams.empty();
+    page = keysetPage(params, page);
 
-    vocabularyName = vocabularyName.toLowerCase();
+    String vocabName = vocabularyName.toLowerCase();
 
     return new PagingResponse<>(
         page,
-        conceptMapper.countLatestRelease(params, vocabularyName),
-        conceptMapper.listLatestRelease(params, page, vocabularyName));
+        conceptMapper.countLatestRelease(params, vocabName),
+        addConceptsValues(
+            conceptMapper.listLatestRelease(params, page, vocabName),
+            keys -> conceptMapper.listConceptsTagsLatestRelease(keys, vocabName),
+            keys -> conceptMapper.listConceptsDefinitionsLatestRelease(keys, vocabName),
+            keys -> conceptMapper.listConceptsLabelsLatestRelease(keys, vocabName)));
   }
 
   @Override
@@ -560,20 +732,80 @@ public class DefaultConceptService implements ConceptService {
       String vocabularyName,
       Integer limit) {
     checkArgument(!Strings.isNullOrEmpty(vocabularyName));
-    checkReleaseExists(vocabularyName);
-
-    query = query != null ? query : "";
     limit = limit != null ? Math.min(limit, DEFAULT_SUGGEST_LIMIT) : DEFAULT_SUGGEST_LIMIT;
-    List<SuggestDto> dtos =
-        conceptMapper.suggestLatestRelease(
-            query,
-            vocabularyKey,
-            languageRegion,
-            fallbackLanguageRegion,
-            vocabularyName.toLowerCase(),
-            limit);
+    return getLatestReleaseSuggestIndex(vocabularyName)
+        .suggest(query, languageRegion, fallbackLanguageRegion, limit);
+  }
+
+  /**
+   * Gets the suggest index of the latest release. The index is tagged with the key of the release
+   * it was built from, so it's rebuilt when there is a newer release, even if it was released by
+   * another instance. If it's not built yet it's built by the first request and the concurrent ones
+   * wait for it. If the build fails it's discarded so the next request tries again.
+   */
+  private SuggestIndex getLatestReleaseSuggestIndex(String vocabularyName) {
+    String indexKey = vocabularyName.toLowerCase();
+    Long releaseKey = conceptMapper.getLatestReleaseKey(vocabularyName);
+
+    ReleaseSuggestIndex index;
+    boolean build = false;
+    synchronized (latestReleaseSuggestIndexes) {
+      index = latestReleaseSuggestIndexes.get(indexKey);
+      if (index == null || !Objects.equals(index.releaseKey, releaseKey)) {
+        index =
+            new ReleaseSuggestIndex(
+                releaseKey, new FutureTask<>(() -> buildLatestReleaseSuggestIndex(vocabularyName)));
+        latestReleaseSuggestIndexes.put(indexKey, index);
+        build = true;
+      }
+    }
+    if (build) {
+      index.index.run();
+    }
 
-    return convertSuggestResults(dtos);
+    try {
+      return index.index.get();
+    } catch (ExecutionException e) {
+      synchronized (latestReleaseSuggestIndexes) {
+        latestReleaseSuggestIndexes.remove(indexKey, index);
+      }
+      Throwables.throwIfUnchecked(e.getCause());
+      throw new IllegalStateException(e.getCause());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private SuggestIndex buildLatestReleaseSuggestIndex(String vocabularyName) {
+    checkReleaseExists(vocabularyName);
+    return SuggestIndex.build(
+        conceptMapper.listSuggestConceptsLatestRelease(vocabularyName),
+        conceptMapper.listSuggestLabelsLatestRelease(vocabularyName));
+  }
+
+  /**
+   * Discards the suggest index of the latest release. If there is a transaction it's discarded
+   * again after the commit, in case it was rebuilt from the previous release in the meantime.
+   */
+  private void invalidateLatestReleaseSuggestIndex(String vocabularyName) {
+    String indexKey = vocabularyName.toLowerCase();
+    removeLatestReleaseSuggestIndex(indexKey);
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(
+          new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+              removeLatestReleaseSuggestIndex(indexKey);
+            }
+          });
+    }
+  }
+
+  private void removeLatestReleaseSuggestIndex(String indexKey) {
+    synchronized (latestReleaseSuggestIndexes) {
+      latestReleaseSuggestIndexes.remove(indexKey);
+    }
   }
 
   @Override
@@ -711,4 +943,15 @@ public class DefaultConceptService implements ConceptService {
               + ". Please make sure the vocabulary has been released.");
     }
   }
+
+  /** Suggest index of the latest release and the key of the release it's built from. */
+  private static final class ReleaseSuggestIndex {
+    private final Long releaseKey;
+    private final FutureTask<SuggestIndex> index;
+
+    private ReleaseSuggestIndex(Long releaseKey, FutureTask<SuggestIndex> index) {
+      this.releaseKey = releaseKey;
+      this.index = index;
+    }
+  }
 }
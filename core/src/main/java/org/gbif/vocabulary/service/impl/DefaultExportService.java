@@ -16,6 +16,7 @@ package org.gbif.vocabulary.service.impl;
 import static org.gbif.vocabulary.model.utils.PathUtils.VOCABULARY_EXPORT_PATH;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.core.JsonEncoding;
 import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -24,18 +25,31 @@ import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Strings;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import jakarta.annotation.Nullable;
 import jakarta.validation.constraints.NotBlank;
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.ZonedDateTime;
-import java.util.HashSet;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
 
 import jakarta.validation.constraints.NotNull;
 import lombok.SneakyThrows;
@@ -45,7 +59,6 @@ import org.gbif.api.model.common.paging.PagingRequest;
 import org.gbif.api.model.common.paging.PagingResponse;
 import org.gbif.vocabulary.model.Concept;
 import org.gbif.vocabulary.model.Definition;
-import org.gbif.vocabulary.model.HiddenLabel;
 import org.gbif.vocabulary.model.Label;
 import org.gbif.vocabulary.model.Tag;
 import org.gbif.vocabulary.model.UserRoles;
@@ -53,19 +66,26 @@ import org.gbif.vocabulary.model.Vocabulary;
 import org.gbif.vocabulary.model.VocabularyRelease;
 import org.gbif.vocabulary.model.export.ConceptExportView;
 import org.gbif.vocabulary.model.export.Export;
+import org.gbif.vocabulary.model.export.ExportFileInfo;
 import org.gbif.vocabulary.model.export.ExportMetadata;
 import org.gbif.vocabulary.model.export.ExportParams;
+import org.gbif.vocabulary.model.export.ReleaseDiff;
+import org.gbif.vocabulary.model.export.ReleaseResult;
 import org.gbif.vocabulary.model.export.VocabularyExportView;
-import org.gbif.vocabulary.model.search.ConceptSearchParams;
 import org.gbif.vocabulary.model.utils.PathUtils;
 import org.gbif.vocabulary.persistence.mappers.VocabularyReleaseMapper;
+import org.gbif.vocabulary.persistence.parameters.BinaryStreamParam;
 import org.gbif.vocabulary.service.ConceptService;
 import org.gbif.vocabulary.service.ExportService;
 import org.gbif.vocabulary.service.VocabularyService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.access.annotation.Secured;
+import org.springframework.security.concurrent.DelegatingSecurityContextExecutorService;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.validation.annotation.Validated;
 
 /** Default implementation for {@link ExportService}. */
@@ -85,21 +105,37 @@ public class DefaultExportService implements ExportService {
   private static final Pattern VERSION_PATTERN =
       Pattern.compile("([0-9]+\\.[0-9]+\\.[0-9]+)([-].*)*?");
 
+  // size of the chunks used to read the export files from the DB
+  private static final int EXPORT_FILE_CHUNK_SIZE = 512 * 1024;
+
   private final VocabularyService vocabularyService;
   private final ConceptService conceptService;
   private final VocabularyReleaseMapper vocabularyReleaseMapper;
+  private final TransactionTemplate transactionTemplate;
+  private final TransactionTemplate exportTransactionTemplate;
   private final String apiUrl;
+  private final int releaseParallelism;
 
   @Autowired
   public DefaultExportService(
       VocabularyService vocabularyService,
       ConceptService conceptService,
       VocabularyReleaseMapper vocabularyReleaseMapper,
-      @Value("${ws.apiUrl}") String apiUrl) {
+      PlatformTransactionManager transactionManager,
+      @Value("${ws.apiUrl}") String apiUrl,
+      @Value("${export.releaseParallelism:4}") int releaseParallelism) {
+    Preconditions.checkArgument(releaseParallelism > 0, "Release parallelism has to be positive");
     this.vocabularyService = vocabularyService;
     this.conceptService = conceptService;
     this.vocabularyReleaseMapper = vocabularyReleaseMapper;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    // the exports are read from a single snapshot so they are consistent without blocking editors
+    this.exportTransactionTemplate = new TransactionTemplate(transactionManager);
+    this.exportTransactionTemplate.setReadOnly(true);
+    this.exportTransactionTemplate.setIsolationLevel(
+        TransactionDefinition.ISOLATION_REPEATABLE_READ);
     this.apiUrl = apiUrl;
+    this.releaseParallelism = releaseParallelism;
   }
 
   @Override
@@ -109,17 +145,62 @@ public class DefaultExportService implements ExportService {
 
   @Override
   public Path exportVocabulary(@NotBlank String vocabularyName, String version) {
-    VocabularyExportView vocabularyExportView = getVocabularyExportView(vocabularyName);
+    return exportTransactionTemplate.execute(
+        status -> {
+          VocabularyExportView vocabularyExportView = getVocabularyExportView(vocabularyName);
+
+          Path exportPath =
+              createExportFile(vocabularyExportView.getVocabulary().getName(), ".json");
+
+          // write json to the file
+          try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(exportPath))) {
+            writeExport(vocabularyExportView, version, out, true);
+          } catch (IOException e) {
+            throw new IllegalStateException(
+                "Could not create export for vocabulary " + vocabularyName, e);
+          }
+
+          return exportPath;
+        });
+  }
 
-    Path exportPath = createExportFile(vocabularyExportView.getVocabulary().getName());
+  /**
+   * Exports a vocabulary to a gzip-compressed file with compact JSON. It's used for the releases,
+   * since the export is stored in the DB and downloaded by all the consumers.
+   */
+  private Path exportCompressedVocabulary(String vocabularyName, String version) {
+    return exportTransactionTemplate.execute(
+        status -> {
+          VocabularyExportView vocabularyExportView = getVocabularyExportView(vocabularyName);
+
+          Path exportPath =
+              createExportFile(vocabularyExportView.getVocabulary().getName(), ".json.gz");
+
+          try (OutputStream out =
+              new GZIPOutputStream(new BufferedOutputStream(Files.newOutputStream(exportPath)))) {
+            writeExport(vocabularyExportView, version, out, false);
+          } catch (IOException e) {
+            throw new IllegalStateException(
+                "Could not create export for vocabulary " + vocabularyName, e);
+          }
+
+          return exportPath;
+        });
+  }
 
-    // write json to the file
+  private void writeExport(
+      VocabularyExportView vocabularyExportView,
+      String version,
+      OutputStream out,
+      boolean prettyPrint)
+      throws IOException {
     JsonFactory jsonFactory = OBJECT_MAPPER.getFactory();
-    try (JsonGenerator jsonGen =
-        jsonFactory.createGenerator(Files.newBufferedWriter(exportPath, StandardCharsets.UTF_8))) {
+    try (JsonGenerator jsonGen = jsonFactory.createGenerator(out, JsonEncoding.UTF8)) {
 
       // settings
-      jsonGen.useDefaultPrettyPrinter();
+      if (prettyPrint) {
+        jsonGen.useDefaultPrettyPrinter();
+      }
 
       // root node
       jsonGen.writeStartObject();
@@ -142,18 +223,81 @@ public class DefaultExportService implements ExportService {
 
       // end of json
       jsonGen.writeEndObject();
-    } catch (IOException e) {
-      throw new IllegalStateException(
-          "Could not create export for vocabulary " + vocabularyName, e);
     }
+  }
 
-    return exportPath;
+  @Secured({UserRoles.VOCABULARY_ADMIN})
+  @Override
+  public VocabularyRelease releaseVocabulary(ExportParams exportParams) {
+    return release(exportParams);
   }
 
   @Secured({UserRoles.VOCABULARY_ADMIN})
   @Override
+  public List<ReleaseResult> releaseVocabularies(List<ExportParams> exportParamsList) {
+    Preconditions.checkArgument(
+        exportParamsList != null && !exportParamsList.isEmpty(), "Releases are required");
+    Preconditions.checkArgument(
+        exportParamsList.stream().map(ExportParams::getVocabularyName).distinct().count()
+            == exportParamsList.size(),
+        "A vocabulary can't be released more than once at the same time");
+
+    // the workers run with the security context of the caller
+    ExecutorService executor =
+        new DelegatingSecurityContextExecutorService(
+            Executors.newFixedThreadPool(
+                Math.min(releaseParallelism, exportParamsList.size()),
+                new ThreadFactoryBuilder().setNameFormat("vocabulary-release-%d").build()));
+    try {
+      List<Future<ReleaseResult>> futures = new ArrayList<>();
+      for (ExportParams exportParams : exportParamsList) {
+        futures.add(executor.submit(() -> timedRelease(exportParams)));
+      }
+
+      List<ReleaseResult> results = new ArrayList<>();
+      for (Future<ReleaseResult> future : futures) {
+        results.add(future.get());
+      }
+      return results;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while releasing vocabularies", e);
+    } catch (ExecutionException e) {
+      throw new IllegalStateException("Error releasing vocabularies", e.getCause());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private ReleaseResult timedRelease(ExportParams exportParams) {
+    ReleaseResult.ReleaseResultBuilder result =
+        ReleaseResult.builder()
+            .vocabularyName(exportParams.getVocabularyName())
+            .version(exportParams.getVersion());
+
+    long start = System.nanoTime();
+    try {
+      result.release(release(exportParams));
+    } catch (Exception e) {
+      log.error(
+          "Release {} of vocabulary {} failed",
+          exportParams.getVersion(),
+          exportParams.getVocabularyName(),
+          e);
+      result.error(e.getMessage() != null ? e.getMessage() : e.getClass().getName());
+    }
+    long durationMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    log.info(
+        "Release {} of vocabulary {} finished in {} ms",
+        exportParams.getVersion(),
+        exportParams.getVocabularyName(),
+        durationMillis);
+
+    return result.durationMillis(durationMillis).build();
+  }
+
   @SneakyThrows
-  public VocabularyRelease releaseVocabulary(ExportParams exportParams) {
+  private VocabularyRelease release(ExportParams exportParams) {
     checkVersionFormat(exportParams.getVersion());
 
     Vocabulary vocabulary = vocabularyService.getByName(exportParams.getVocabularyName());
@@ -165,29 +309,43 @@ public class DefaultExportService implements ExportService {
     // check that the version is greater than the latest
     checkVersionNumber(exportParams.getVersion(), vocabulary.getKey());
 
-    // export the vocabulary to a file first
+    // export the vocabulary to a compressed file first
     Path vocabularyExport =
-        exportVocabulary(exportParams.getVocabularyName(), exportParams.getVersion());
+        exportCompressedVocabulary(exportParams.getVocabularyName(), exportParams.getVersion());
 
     VocabularyRelease release = new VocabularyRelease();
     release.setVersion(exportParams.getVersion());
     release.setCreatedBy(exportParams.getUser());
     release.setVocabularyKey(vocabulary.getKey());
     release.setComment(exportParams.getComment());
-    release.setExportFile(Files.readAllBytes(vocabularyExport));
     release.setExportUrl(getExportUrl(exportParams.getVocabularyName(), exportParams.getVersion()));
 
-    // we store the release in the DB
-    vocabularyReleaseMapper.create(release);
+    // the release and the views of the latest release are updated in the same transaction
+    try {
+      transactionTemplate.executeWithoutResult(
+          status -> storeRelease(release, vocabulary, vocabularyExport));
+    } finally {
+      Files.deleteIfExists(vocabularyExport);
+    }
+
+    return vocabularyReleaseMapper.get(release.getKey());
+  }
+
+  @SneakyThrows
+  private void storeRelease(VocabularyRelease release, Vocabulary vocabulary, Path exportFile) {
+    // we store the release in the DB. The export is streamed from the file so it's never loaded in
+    // memory
+    try (InputStream exportStream = Files.newInputStream(exportFile)) {
+      vocabularyReleaseMapper.createWithExportStream(
+          release, BinaryStreamParam.of(exportStream, Files.size(exportFile)));
+    }
 
     // create or update the views
     if (conceptService.existsLatestReleaseView(vocabulary.getName())) {
-      conceptService.updateLatestReleaseView(vocabulary.getName());
+      conceptService.updateLatestReleaseView(vocabulary.getName(), vocabulary.getKey());
     } else {
       conceptService.createLatestReleaseView(vocabulary.getName(), vocabulary.getKey());
     }
-
-    return vocabularyReleaseMapper.get(release.getKey());
   }
 
   private String getExportUrl(String vocabularyName, String version) {
@@ -225,21 +383,63 @@ public class DefaultExportService implements ExportService {
   }
 
   @Override
-  public byte[] getExportFile(@NotBlank String vocabularyName, @NotBlank String version) {
+  public ExportFileInfo getExportFileInfo(
+      @NotBlank String vocabularyName, @NotBlank String version) {
+    return vocabularyReleaseMapper.getExportFileInfo(
+        getVocabularyKey(vocabularyName, version), version);
+  }
+
+  @Override
+  public InputStream openExportFile(
+      @NotBlank String vocabularyName, @NotBlank String version, long offset, long length) {
+    Preconditions.checkArgument(offset >= 0 && length >= 0, "Invalid range of the export file");
+    return new ExportFileInputStream(
+        getVocabularyKey(vocabularyName, version), version, offset, offset + length);
+  }
+
+  @Override
+  public ReleaseDiff diffReleases(
+      @NotBlank String vocabularyName, @NotBlank String fromVersion, @NotBlank String toVersion) {
+    ExportFileInfo fromExport = getExportFileInfo(vocabularyName, fromVersion);
+    Preconditions.checkArgument(fromExport != null, "Release not found: " + fromVersion);
+    ExportFileInfo toExport = getExportFileInfo(vocabularyName, toVersion);
+    Preconditions.checkArgument(toExport != null, "Release not found: " + toVersion);
+
+    ReleaseDiff diff;
+    try {
+      diff =
+          ReleaseDiffCalculator.diff(
+              () -> openExportFile(vocabularyName, fromVersion, 0, fromExport.getLength()),
+              () -> openExportFile(vocabularyName, toVersion, 0, toExport.getLength()));
+    } catch (IOException e) {
+      throw new IllegalStateException(
+          "Couldn't compute the diff between the releases "
+              + fromVersion
+              + " and "
+              + toVersion
+              + " of vocabulary "
+              + vocabularyName,
+          e);
+    }
+
+    diff.setVocabularyName(vocabularyName);
+    diff.setFromVersion(fromExport.getVersion());
+    diff.setToVersion(toExport.getVersion());
+    return diff;
+  }
+
+  private long getVocabularyKey(String vocabularyName, String version) {
     Preconditions.checkArgument(!Strings.isNullOrEmpty(vocabularyName));
     Preconditions.checkArgument(!Strings.isNullOrEmpty(version));
 
     Vocabulary vocabulary = vocabularyService.getByName(vocabularyName);
     Preconditions.checkArgument(vocabulary != null, "Vocabulary not found: " + vocabularyName);
-
-    VocabularyRelease release =
-        vocabularyReleaseMapper.getVocabularyReleaseWithExportFile(vocabulary.getKey(), version);
-    return release == null ? null : release.getExportFile();
+    return vocabulary.getKey();
   }
 
-  private Path createExportFile(String vocabularyName) {
+  private Path createExportFile(String vocabularyName, String suffix) {
     try {
-      return Files.createTempFile(vocabularyName, ".json");
+      return Files.createTempFile(vocabularyName, suffix);
     } catch (IOException e) {
       throw new IllegalStateException(
           "Couldn't create export file for vocabulary " + vocabularyName);
@@ -248,24 +448,21 @@ public class DefaultExportService implements ExportService {
 
   private void writeConcepts(VocabularyExportView vocabularyExportView, JsonGenerator jsonGen)
       throws IOException {
-    final int limit = 1000;
-    int offset = 0;
-    ConceptSearchParams conceptSearchParams =
-        ConceptSearchParams.builder()
-            .vocabularyKey(vocabularyExportView.getVocabulary().getKey())
-            .build();
-    PagingResponse<Concept> concepts;
+    final int flushInterval = 1000;
+    long vocabularyKey = vocabularyExportView.getVocabulary().getKey();
     jsonGen.flush();
-    do {
-      concepts = conceptService.list(conceptSearchParams, new PagingRequest(offset, limit));
-
-      for (Concept c : concepts.getResults()) {
-        jsonGen.writeObject(getConceptExportView(c));
+    try (Stream<ConceptExportView> conceptExportViews =
+        conceptService.streamExportViews(vocabularyKey)) {
+      Iterator<ConceptExportView> it = conceptExportViews.iterator();
+      int count = 0;
+      while (it.hasNext()) {
+        jsonGen.writeObject(it.next());
+        if (++count % flushInterval == 0) {
+          jsonGen.flush();
+        }
       }
-
-      jsonGen.flush();
-      offset += limit;
-    } while (!concepts.isEndOfRecords());
+    }
+    jsonGen.flush();
   }
 
   private void checkVersionNumber(@NotBlank String version, long vocabularyKey) {
@@ -322,60 +519,6 @@ public class DefaultExportService implements ExportService {
     return vocabularyExportView;
   }
 
-  private ConceptExportView getConceptExportView(Concept concept) {
-    ConceptExportView conceptExportView = new ConceptExportView();
-    conceptExportView.setConcept(concept);
-
-    // definitions
-    concept
-        .getDefinition()
-        .forEach(d -> conceptExportView.getDefinition().put(d.getLanguage(), d.getValue()));
-
-    // tags
-    concept.getTags().forEach(t -> conceptExportView.getTags().add(t.getName()));
-
-    // labels
-    List<Label> labels = conceptService.listLabels(concept.getKey(), null);
-    labels.forEach(l -> conceptExportView.getLabel().put(l.getLanguage(), l.getValue()));
-
-    // alternative labels
-    int offset = 0;
-    int limit = 1000;
-    PagingResponse<Label> responseAltLabels = null;
-    do {
-      responseAltLabels =
-          conceptService.listAlternativeLabels(
-              concept.getKey(), null, new PagingRequest(offset, limit));
-
-      responseAltLabels
-          .getResults()
-          .forEach(
-              r ->
-                  conceptExportView
-                      .getAlternativeLabels()
-                      .computeIfAbsent(r.getLanguage(), k -> new HashSet<>())
-                      .add(r.getValue()));
-
-      offset += limit;
-    } while (!responseAltLabels.isEndOfRecords());
-
-    // hidden labels
-    offset = 0;
-    PagingResponse<HiddenLabel> responseHidden = null;
-    do {
-      responseHidden =
-          conceptService.listHiddenLabels(concept.getKey(), null, new PagingRequest(offset, limit));
-
-      responseHidden
-          .getResults()
-          .forEach(r -> conceptExportView.getHiddenLabels().add(r.getValue()));
-
-      offset += limit;
-    } while (!responseHidden.isEndOfRecords());
-
-    return conceptExportView;
-  }
-
   private abstract class VocabularyMixin {
     @JsonIgnore private List<Definition> definition;
     @JsonIgnore private List<Label> label;
@@ -386,4 +529,71 @@ public class DefaultExportService implements ExportService {
     @JsonIgnore private List<Label> label;
     @JsonIgnore private List<Tag> tags;
   }
+
+  /**
+   * Reads an export file from the DB in chunks of {@link #EXPORT_FILE_CHUNK_SIZE} bytes, so only
+   * one chunk is kept in memory at a time. The column is stored uncompressed, so each chunk only
+   * reads its own TOAST chunks and the whole file is read once.
+   */
+  private class ExportFileInputStream extends InputStream {
+    private final long vocabularyKey;
+    private final String version;
+    private final long end;
+    private long position;
+    private byte[] chunk = new byte[0];
+    private int chunkPosition;
+
+    ExportFileInputStream(long vocabularyKey, String version, long start, long end) {
+      this.vocabularyKey = vocabularyKey;
+      this.version = version;
+      this.position = start;
+      this.end = end;
+    }
+
+    @Override
+    public int read() throws IOException {
+      return fillChunk() ? chunk[chunkPosition++] & 0xFF : -1;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      Objects.checkFromIndexSize(off, len, b.length);
+      if (len == 0) {
+        return 0;
+      }
+      if (!fillChunk()) {
+        return -1;
+      }
+      int n = Math.min(len, chunk.length - chunkPosition);
+      System.arraycopy(chunk, chunkPosition, b, off, n);
+      chunkPosition += n;
+      return n;
+    }
+
+    @Override
+    public int available() {
+      return chunk.length - chunkPosition;
+    }
+
+    private boolean fillChunk() throws IOException {
+      if (chunkPosition < chunk.length) {
+        return true;
+      }
+      if (position >= end) {
+        return false;
+      }
+
+      int length = (int) Math.min(EXPORT_FILE_CHUNK_SIZE, end - position);
+      VocabularyRelease range =
+          vocabularyReleaseMapper.getExportFileRange(vocabularyKey, version, position, length);
+      if (range == null || range.getExportFile() == null || range.getExportFile().length == 0) {
+        throw new EOFException(
+            "Export file of release " + version + " ended at byte " + position + " of " + end);
+      }
+      chunk = range.getExportFile();
+      chunkPosition = 0;
+      position += chunk.length;
+      return true;
+    }
+  }
 }
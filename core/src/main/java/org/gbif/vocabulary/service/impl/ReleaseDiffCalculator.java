@@ -0,0 +1,378 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.vocabulary.service.impl;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import lombok.AllArgsConstructor;
+import org.gbif.vocabulary.model.LanguageRegion;
+import org.gbif.vocabulary.model.export.Export;
+import org.gbif.vocabulary.model.export.ReleaseDiff;
+import org.gbif.vocabulary.model.export.ReleaseDiff.ConceptRename;
+import org.gbif.vocabulary.model.export.ReleaseDiff.LabelChange;
+import org.gbif.vocabulary.model.export.ReleaseDiff.LabelType;
+import org.gbif.vocabulary.model.export.ReleaseDiff.ParentChange;
+import org.gbif.vocabulary.model.utils.GzipUtils;
+
+/**
+ * Computes the {@link ReleaseDiff} between two exports of a vocabulary.
+ *
+ * <p>The exports are read with a streaming parser that only keeps the fields needed for the diff,
+ * and since the concepts are exported ordered by key both exports are merged in a single pass. The
+ * exports created before the concepts were ordered are sorted in memory instead.
+ */
+final class ReleaseDiffCalculator {
+
+  private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+  private static final String KEY = "key";
+  private static final String NAME = "name";
+  private static final String PARENT_KEY = "parentKey";
+  private static final String DEPRECATED = "deprecated";
+  private static final String LABEL = "label";
+  private static final String ALTERNATIVE_LABELS = "alternativeLabels";
+  private static final String HIDDEN_LABELS = "hiddenLabels";
+
+  /** Source of an export. It can be opened more than once. */
+  @FunctionalInterface
+  interface ExportSource {
+    InputStream open() throws IOException;
+  }
+
+  private final ReleaseDiff diff = new ReleaseDiff();
+  // names of all the concepts to resolve the parents
+  private final Map<Long, String> oldNames = new HashMap<>();
+  private final Map<Long, String> newNames = new HashMap<>();
+  private final List<ParentMove> parentMoves = new ArrayList<>();
+
+  private ReleaseDiffCalculator() {}
+
+  /**
+   * Computes the differences between two exports of a vocabulary.
+   *
+   * @param oldExport export of the older release
+   * @param newExport export of the newer release
+   * @return the {@link ReleaseDiff} without the vocabulary and the versions set
+   */
+  static ReleaseDiff diff(ExportSource oldExport, ExportSource newExport) throws IOException {
+    try (ConceptReader oldReader = new ConceptReader(oldExport.open());
+        ConceptReader newReader = new ConceptReader(newExport.open())) {
+      return new ReleaseDiffCalculator().merge(oldReader, newReader);
+    } catch (UnsortedExportException e) {
+      // old export, the concepts of both exports are sorted before merging them
+      return new ReleaseDiffCalculator().merge(sorted(oldExport), sorted(newExport));
+    }
+  }
+
+  private ReleaseDiff merge(
+      Iterator<ConceptSummary> oldConcepts, Iterator<ConceptSummary> newConcepts) {
+    ConceptSummary oldConcept = next(oldConcepts);
+    ConceptSummary newConcept = next(newConcepts);
+
+    while (oldConcept != null || newConcept != null) {
+      if (newConcept == null || (oldConcept != null && oldConcept.key < newConcept.key)) {
+        oldNames.put(oldConcept.key, oldConcept.name);
+        diff.getRemovedConcepts().add(oldConcept.name);
+        oldConcept = next(oldConcepts);
+      } else if (oldConcept == null || newConcept.key < oldConcept.key) {
+        newNames.put(newConcept.key, newConcept.name);
+        diff.getAddedConcepts().add(newConcept.name);
+        newConcept = next(newConcepts);
+      } else {
+        oldNames.put(oldConcept.key, oldConcept.name);
+        newNames.put(newConcept.key, newConcept.name);
+        compare(oldConcept, newConcept);
+        oldConcept = next(oldConcepts);
+        newConcept = next(newConcepts);
+      }
+    }
+
+    // the parents are resolved at the end since they can come after their children
+    for (ParentMove move : parentMoves) {
+      diff.getParentChanges()
+          .add(
+              new ParentChange(
+                  move.conceptName,
+                  oldNames.get(move.oldParentKey),
+                  newNames.get(move.newParentKey)));
+    }
+
+    return diff;
+  }
+
+  private void compare(ConceptSummary oldConcept, ConceptSummary newConcept) {
+    if (!oldConcept.name.equals(newConcept.name)) {
+      diff.getRenamedConcepts().add(new ConceptRename(oldConcept.name, newConcept.name));
+    }
+
+    if (!oldConcept.deprecated && newConcept.deprecated) {
+      diff.getDeprecatedConcepts().add(newConcept.name);
+    } else if (oldConcept.deprecated && !newConcept.deprecated) {
+      diff.getRestoredConcepts().add(newConcept.name);
+    }
+
+    if (!Objects.equals(oldConcept.parentKey, newConcept.parentKey)) {
+      parentMoves.add(
+          new ParentMove(newConcept.name, oldConcept.parentKey, newConcept.parentKey));
+    }
+
+    Set<LanguageRegion> languages = EnumSet.noneOf(LanguageRegion.class);
+    languages.addAll(oldConcept.label.keySet());
+    languages.addAll(newConcept.label.keySet());
+    for (LanguageRegion language : languages) {
+      compareValues(
+          newConcept.name,
+          LabelType.LABEL,
+          language,
+          valueAsSet(oldConcept.label.get(language)),
+          valueAsSet(newConcept.label.get(language)));
+    }
+
+    languages.clear();
+    languages.addAll(oldConcept.alternativeLabels.keySet());
+    languages.addAll(newConcept.alternativeLabels.keySet());
+    for (LanguageRegion language : languages) {
+      compareValues(
+          newConcept.name,
+          LabelType.ALTERNATIVE_LABEL,
+          language,
+          oldConcept.alternativeLabels.getOrDefault(language, Collections.emptySet()),
+          newConcept.alternativeLabels.getOrDefault(language, Collections.emptySet()));
+    }
+
+    compareValues(
+        newConcept.name,
+        LabelType.HIDDEN_LABEL,
+        null,
+        oldConcept.hiddenLabels,
+        newConcept.hiddenLabels);
+  }
+
+  private void compareValues(
+      String conceptName,
+      LabelType type,
+      LanguageRegion language,
+      Set<String> oldValues,
+      Set<String> newValues) {
+    if (oldValues.equals(newValues)) {
+      return;
+    }
+
+    Set<String> added = new TreeSet<>(newValues);
+    added.removeAll(oldValues);
+    Set<String> removed = new TreeSet<>(oldValues);
+    removed.removeAll(newValues);
+    diff.getLabelChanges().add(new LabelChange(conceptName, type, language, added, removed));
+  }
+
+  private static Set<String> valueAsSet(String value) {
+    return value != null ? Collections.singleton(value) : Collections.emptySet();
+  }
+
+  private static ConceptSummary next(Iterator<ConceptSummary> concepts) {
+    return concepts.hasNext() ? concepts.next() : null;
+  }
+
+  private static Iterator<ConceptSummary> sorted(ExportSource export) throws IOException {
+    Map<Long, ConceptSummary> concepts = new TreeMap<>();
+    try (ConceptReader reader = new ConceptReader(export.open(), false)) {
+      reader.forEachRemaining(c -> concepts.put(c.key, c));
+    }
+    return concepts.values().iterator();
+  }
+
+  /** The fields of a concept used in the diff. */
+  private static class ConceptSummary {
+    private long key;
+    private String name;
+    private Long parentKey;
+    private boolean deprecated;
+    private final Map<LanguageRegion, String> label = new EnumMap<>(LanguageRegion.class);
+    private final Map<LanguageRegion, Set<String>> alternativeLabels =
+        new EnumMap<>(LanguageRegion.class);
+    private final Set<String> hiddenLabels = new HashSet<>();
+  }
+
+  @AllArgsConstructor
+  private static class ParentMove {
+    private final String conceptName;
+    private final Long oldParentKey;
+    private final Long newParentKey;
+  }
+
+  /** Thrown when the concepts of an export are not ordered by key. */
+  private static class UnsortedExportException extends RuntimeException {
+    UnsortedExportException(long key) {
+      super("Concepts of the export are not ordered by key, found " + key);
+    }
+  }
+
+  /** Reads the concepts of an export one by one. */
+  private static class ConceptReader implements Iterator<ConceptSummary>, AutoCloseable {
+    private final JsonParser parser;
+    private final boolean checkOrder;
+    private final Map<String, LanguageRegion> languages = new HashMap<>();
+    private ConceptSummary next;
+    private Long lastKey;
+
+    ConceptReader(InputStream in) throws IOException {
+      this(in, true);
+    }
+
+    ConceptReader(InputStream in, boolean checkOrder) throws IOException {
+      this.parser = JSON_FACTORY.createParser(GzipUtils.decompressIfGzipped(in));
+      this.checkOrder = checkOrder;
+      try {
+        moveToConcepts();
+        next = readConcept();
+      } catch (IOException | RuntimeException e) {
+        parser.close();
+        throw e;
+      }
+    }
+
+    @Override
+    public boolean hasNext() {
+      return next != null;
+    }
+
+    @Override
+    public ConceptSummary next() {
+      ConceptSummary current = next;
+      try {
+        next = readConcept();
+      } catch (IOException e) {
+        throw new IllegalStateException("Couldn't read the vocabulary export", e);
+      }
+      return current;
+    }
+
+    @Override
+    public void close() throws IOException {
+      parser.close();
+    }
+
+    private void moveToConcepts() throws IOException {
+      expect(parser.nextToken(), JsonToken.START_OBJECT);
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        String field = parser.getCurrentName();
+        JsonToken token = parser.nextToken();
+        if (Export.CONCEPTS_PROP.equals(field) && token == JsonToken.START_ARRAY) {
+          return;
+        }
+        parser.skipChildren();
+      }
+      // export without concepts
+      parser.close();
+    }
+
+    private ConceptSummary readConcept() throws IOException {
+      if (parser.isClosed() || parser.nextToken() != JsonToken.START_OBJECT) {
+        return null;
+      }
+
+      ConceptSummary concept = new ConceptSummary();
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        String field = parser.getCurrentName();
+        JsonToken token = parser.nextToken();
+        if (token == JsonToken.VALUE_NULL) {
+          continue;
+        }
+
+        switch (field) {
+          case KEY:
+            concept.key = parser.getLongValue();
+            break;
+          case NAME:
+            concept.name = parser.getText();
+            break;
+          case PARENT_KEY:
+            concept.parentKey = parser.getLongValue();
+            break;
+          case DEPRECATED:
+            concept.deprecated = true;
+            break;
+          case LABEL:
+            expect(token, JsonToken.START_OBJECT);
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+              LanguageRegion language = language(parser.getCurrentName());
+              concept.label.put(language, parser.nextTextValue());
+            }
+            break;
+          case ALTERNATIVE_LABELS:
+            expect(token, JsonToken.START_OBJECT);
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+              LanguageRegion language = language(parser.getCurrentName());
+              parser.nextToken();
+              readValues(
+                  concept.alternativeLabels.computeIfAbsent(language, l -> new HashSet<>()));
+            }
+            break;
+          case HIDDEN_LABELS:
+            readValues(concept.hiddenLabels);
+            break;
+          default:
+            parser.skipChildren();
+        }
+      }
+
+      if (checkOrder && lastKey != null && concept.key <= lastKey) {
+        throw new UnsortedExportException(concept.key);
+      }
+      lastKey = concept.key;
+      return concept;
+    }
+
+    private void readValues(Set<String> values) throws IOException {
+      expect(parser.currentToken(), JsonToken.START_ARRAY);
+      String value;
+      while ((value = parser.nextTextValue()) != null) {
+        values.add(value);
+      }
+      expect(parser.currentToken(), JsonToken.END_ARRAY);
+    }
+
+    private LanguageRegion language(String locale) {
+      return languages.computeIfAbsent(locale, LanguageRegion::fromLocale);
+    }
+
+    private void expect(JsonToken actual, JsonToken expected) throws IOException {
+      if (actual != expected) {
+        throw new IOException(
+            "Unexpected token "
+                + actual
+                + " in the vocabulary export, expected "
+                + expected
+                + " at "
+                + parser.getCurrentLocation());
+      }
+    }
+  }
+}
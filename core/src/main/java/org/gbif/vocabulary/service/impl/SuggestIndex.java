@@ -0,0 +1,448 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.vocabulary.service.impl;
+
+import org.gbif.vocabulary.model.Concept;
+import org.gbif.vocabulary.model.LanguageRegion;
+import org.gbif.vocabulary.model.normalizers.StringNormalizer;
+import org.gbif.vocabulary.model.search.SuggestResult;
+import org.gbif.vocabulary.persistence.dto.ExportValueDto;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.IntPredicate;
+
+import jakarta.annotation.Nullable;
+
+/**
+ * In-memory index to suggest the concepts of a release of a vocabulary.
+ *
+ * <p>The names and the labels of each language are normalized as the DB does for the suggest
+ * queries and kept sorted, along with all their suffixes in a suffix array, so the exact, prefix
+ * and infix matches of a query are found with a binary search. The results are ranked like the
+ * suggest queries: exact matches first, then prefix matches and then infix matches, ordered by
+ * name.
+ *
+ * <p>The names are ordered with {@link String#compareTo}, i.e. by their UTF-16 code units, while
+ * the suggest queries of the DB order them with the collation of the DB. Concept names only contain
+ * ASCII letters, digits and underscores, so the results with the same score can only be in a
+ * different order when their names differ in case or underscores.
+ *
+ * <p>It's immutable, so it can be shared by all the requests until there is a new release.
+ */
+final class SuggestIndex {
+
+  private static final int EXACT = 0;
+  private static final int PREFIX = 1;
+  private static final int INFIX = 2;
+
+  // concepts sorted by name, so the position of a concept is its order within the same score
+  private final String[] names;
+  private final List<Map<LanguageRegion, String>> labels;
+  // ancestors of each concept, from the parent to the root
+  private final int[][] parents;
+
+  // only the concepts that are not deprecated are indexed
+  private final Terms nameTerms;
+  private final Map<LanguageRegion, Terms> labelTerms = new EnumMap<>(LanguageRegion.class);
+
+  private SuggestIndex(List<Concept> concepts, List<ExportValueDto> conceptLabels) {
+    List<Concept> sortedConcepts = new ArrayList<>(concepts);
+    sortedConcepts.sort(Comparator.comparing(Concept::getName));
+
+    int size = sortedConcepts.size();
+    names = new String[size];
+    labels = new ArrayList<>(size);
+    Map<Long, Integer> positions = new HashMap<>();
+    for (int i = 0; i < size; i++) {
+      names[i] = sortedConcepts.get(i).getName();
+      labels.add(new EnumMap<>(LanguageRegion.class));
+      positions.put(sortedConcepts.get(i).getKey(), i);
+    }
+
+    for (ExportValueDto label : conceptLabels) {
+      Integer position = positions.get(label.getConceptKey());
+      if (position != null) {
+        labels.get(position).put(label.getLanguage(), label.getValue());
+      }
+    }
+
+    parents = new int[size][];
+    List<String> indexedNames = new ArrayList<>();
+    List<Integer> indexedConcepts = new ArrayList<>();
+    Map<LanguageRegion, List<String>> indexedLabels = new EnumMap<>(LanguageRegion.class);
+    Map<LanguageRegion, List<Integer>> indexedLabelConcepts = new EnumMap<>(LanguageRegion.class);
+    for (int i = 0; i < size; i++) {
+      parents[i] = findParents(sortedConcepts, positions, i);
+
+      if (sortedConcepts.get(i).getDeprecated() != null) {
+        continue;
+      }
+
+      indexedNames.add(names[i]);
+      indexedConcepts.add(i);
+      for (Map.Entry<LanguageRegion, String> label : labels.get(i).entrySet()) {
+        indexedLabels.computeIfAbsent(label.getKey(), k -> new ArrayList<>()).add(label.getValue());
+        indexedLabelConcepts.computeIfAbsent(label.getKey(), k -> new ArrayList<>()).add(i);
+      }
+    }
+
+    nameTerms = new Terms(indexedNames, indexedConcepts);
+    indexedLabels.forEach(
+        (language, values) ->
+            labelTerms.put(language, new Terms(values, indexedLabelConcepts.get(language))));
+  }
+
+  /**
+   * Builds the index of a release.
+   *
+   * @param concepts all the concepts of the release, including the deprecated ones since they can
+   *     be parents of other concepts
+   * @param labels labels of the concepts of the release
+   */
+  static SuggestIndex build(List<Concept> concepts, List<ExportValueDto> labels) {
+    return new SuggestIndex(concepts, labels);
+  }
+
+  /**
+   * Suggests concepts that match the query. The query is matched against the labels of the
+   * language received and, for the concepts without a label in that language, against the labels
+   * of the fallback language and the names of the concepts.
+   *
+   * @param query query to match. A null query matches all the concepts
+   * @param language language of the labels to match. If null, the labels of all the languages and
+   *     the names are matched
+   * @param fallbackLanguage language of the labels to match when a concept has no label in the
+   *     language
+   * @param limit max number of results to return
+   * @return the concepts found ordered by relevance
+   */
+  List<SuggestResult> suggest(
+      @Nullable String query,
+      @Nullable LanguageRegion language,
+      @Nullable LanguageRegion fallbackLanguage,
+      int limit) {
+    Matches matches = new Matches(normalize(query != null ? query : ""), limit);
+
+    // infix matches can't rank higher than the exact and prefix ones, so they are only looked up
+    // when there are not enough results
+    collect(matches, language, fallbackLanguage, false);
+    if (!matches.isFull()) {
+      collect(matches, language, fallbackLanguage, true);
+    }
+
+    List<SuggestResult> results = new ArrayList<>();
+    for (Match match : matches.ranked) {
+      results.add(toResult(match.concept, match.language, language, fallbackLanguage));
+    }
+    return results;
+  }
+
+  private void collect(
+      Matches matches,
+      @Nullable LanguageRegion language,
+      @Nullable LanguageRegion fallbackLanguage,
+      boolean infix) {
+    // the labels are matched first, so with the same score they are preferred over the names
+    if (language == null) {
+      labelTerms.forEach((lang, terms) -> matches.collect(terms, lang, c -> true, infix));
+      matches.collect(nameTerms, null, c -> true, infix);
+      return;
+    }
+
+    matches.collect(labelTerms.get(language), language, c -> true, infix);
+    if (fallbackLanguage != null) {
+      matches.collect(
+          labelTerms.get(fallbackLanguage),
+          fallbackLanguage,
+          c -> !labels.get(c).containsKey(language),
+          infix);
+    }
+    matches.collect(
+        nameTerms,
+        null,
+        c ->
+            !labels.get(c).containsKey(language)
+                && (fallbackLanguage == null || !labels.get(c).containsKey(fallbackLanguage)),
+        infix);
+  }
+
+  /** Same normalization as the normalize_suggest function of the DB. */
+  static String normalize(String value) {
+    return StringNormalizer.replaceNonAsciiCharactersWithEquivalents(value.trim())
+        .toLowerCase(Locale.ROOT);
+  }
+
+  private SuggestResult toResult(
+      int concept,
+      @Nullable LanguageRegion matchLanguage,
+      @Nullable LanguageRegion language,
+      @Nullable LanguageRegion fallbackLanguage) {
+    SuggestResult result = new SuggestResult();
+    result.setName(names[concept]);
+    if (matchLanguage != null) {
+      result.setLabel(labels.get(concept).get(matchLanguage));
+      result.setLabelLanguage(matchLanguage);
+    }
+
+    for (int parent : parents[concept]) {
+      SuggestResult.Parent p = new SuggestResult.Parent();
+      p.setName(names[parent]);
+      Map<LanguageRegion, String> parentLabels = labels.get(parent);
+      if (language != null && parentLabels.containsKey(language)) {
+        p.setLabel(parentLabels.get(language));
+        p.setLabelLanguage(language);
+      } else if (fallbackLanguage != null && parentLabels.containsKey(fallbackLanguage)) {
+        p.setLabel(parentLabels.get(fallbackLanguage));
+        p.setLabelLanguage(fallbackLanguage);
+      }
+      result.getParents().add(p);
+    }
+
+    return result;
+  }
+
+  private static int[] findParents(
+      List<Concept> concepts, Map<Long, Integer> positions, int concept) {
+    if (concepts.get(concept).getDeprecated() != null) {
+      return new int[0];
+    }
+
+    List<Integer> parents = new ArrayList<>();
+    Set<Integer> visited = new HashSet<>();
+    visited.add(concept);
+    Long parentKey = concepts.get(concept).getParentKey();
+    while (parentKey != null) {
+      Integer parent = positions.get(parentKey);
+      if (parent == null || !visited.add(parent)) {
+        break;
+      }
+      parents.add(parent);
+      parentKey = concepts.get(parent).getParentKey();
+    }
+    return parents.stream().mapToInt(Integer::intValue).toArray();
+  }
+
+  private static int compareSuffixes(String a, int offsetA, String b, int offsetB) {
+    int lengthA = a.length() - offsetA;
+    int lengthB = b.length() - offsetB;
+    int length = Math.min(lengthA, lengthB);
+    for (int i = 0; i < length; i++) {
+      char ca = a.charAt(offsetA + i);
+      char cb = b.charAt(offsetB + i);
+      if (ca != cb) {
+        return ca - cb;
+      }
+    }
+    return lengthA - lengthB;
+  }
+
+  /**
+   * Normalized names or labels of a language. They are kept sorted alphabetically for the prefix
+   * matches and all their suffixes too for the infix matches.
+   */
+  private static final class Terms {
+    private final String[] values;
+    private final int[] concepts;
+    private final int[] sortedTerms;
+    private final int[] suffixTerms;
+    private final int[] suffixOffsets;
+
+    Terms(List<String> values, List<Integer> concepts) {
+      this.values = values.stream().map(SuggestIndex::normalize).toArray(String[]::new);
+      this.concepts = concepts.stream().mapToInt(Integer::intValue).toArray();
+
+      int count = 0;
+      for (String value : this.values) {
+        count += Math.max(value.length(), 1);
+      }
+
+      int[] terms = new int[count];
+      int[] offsets = new int[count];
+      Integer[] order = new Integer[count];
+      int s = 0;
+      for (int t = 0; t < this.values.length; t++) {
+        int offset = 0;
+        do {
+          terms[s] = t;
+          offsets[s] = offset;
+          order[s] = s;
+          s++;
+          offset++;
+        } while (offset < this.values[t].length());
+      }
+      Arrays.sort(
+          order,
+          (a, b) ->
+              compareSuffixes(
+                  this.values[terms[a]], offsets[a], this.values[terms[b]], offsets[b]));
+
+      suffixTerms = new int[count];
+      suffixOffsets = new int[count];
+      sortedTerms = new int[this.values.length];
+      int sorted = 0;
+      for (int i = 0; i < count; i++) {
+        suffixTerms[i] = terms[order[i]];
+        suffixOffsets[i] = offsets[order[i]];
+        if (suffixOffsets[i] == 0) {
+          sortedTerms[sorted++] = suffixTerms[i];
+        }
+      }
+    }
+
+    /** Position of the first term that is not lower than the query. */
+    int termsLowerBound(String query) {
+      int low = 0;
+      int high = sortedTerms.length;
+      while (low < high) {
+        int mid = (low + high) >>> 1;
+        if (values[sortedTerms[mid]].compareTo(query) < 0) {
+          low = mid + 1;
+        } else {
+          high = mid;
+        }
+      }
+      return low;
+    }
+
+    /** Position of the first suffix that is not lower than the query. */
+    int suffixesLowerBound(String query) {
+      int low = 0;
+      int high = suffixTerms.length;
+      while (low < high) {
+        int mid = (low + high) >>> 1;
+        if (compareSuffixes(values[suffixTerms[mid]], suffixOffsets[mid], query, 0) < 0) {
+          low = mid + 1;
+        } else {
+          high = mid;
+        }
+      }
+      return low;
+    }
+  }
+
+  /**
+   * Best matches of a query. Only the matches that rank within the limit are kept, so it doesn't
+   * depend on the size of the vocabulary.
+   */
+  private static final class Matches {
+    private static final Comparator<Match> RANKING =
+        Comparator.<Match>comparingInt(m -> m.score).thenComparingInt(m -> m.concept);
+
+    private final String query;
+    private final int limit;
+    // best match of each concept ranked, keyed by concept
+    private final Map<Integer, Match> best = new HashMap<>();
+    private final TreeSet<Match> ranked = new TreeSet<>(RANKING);
+
+    Matches(String query, int limit) {
+      this.query = query;
+      this.limit = limit;
+    }
+
+    boolean isFull() {
+      return ranked.size() >= limit;
+    }
+
+    /**
+     * Collects the matches of the terms received.
+     *
+     * @param terms terms to match, it can be null if there are no labels in the language
+     * @param language language of the terms, null for the names
+     * @param filter concepts that can be matched
+     * @param infix true to collect the infix matches, false for the exact and prefix ones
+     */
+    void collect(
+        @Nullable Terms terms,
+        @Nullable LanguageRegion language,
+        IntPredicate filter,
+        boolean infix) {
+      if (terms == null) {
+        return;
+      }
+
+      if (!infix) {
+        for (int i = terms.termsLowerBound(query);
+            i < terms.sortedTerms.length && terms.values[terms.sortedTerms[i]].startsWith(query);
+            i++) {
+          int term = terms.sortedTerms[i];
+          int score = terms.values[term].equals(query) ? EXACT : PREFIX;
+          add(terms.concepts[term], score, language, filter);
+        }
+        return;
+      }
+
+      for (int i = terms.suffixesLowerBound(query);
+          i < terms.suffixTerms.length
+              && terms.values[terms.suffixTerms[i]].startsWith(query, terms.suffixOffsets[i]);
+          i++) {
+        if (terms.suffixOffsets[i] > 0) {
+          add(terms.concepts[terms.suffixTerms[i]], INFIX, language, filter);
+        }
+      }
+    }
+
+    private void add(
+        int concept, int score, @Nullable LanguageRegion language, IntPredicate filter) {
+      Match current = best.get(concept);
+      if (current != null ? score >= current.score : !ranksWithinLimit(concept, score)) {
+        return;
+      }
+      if (!filter.test(concept)) {
+        return;
+      }
+
+      if (current != null) {
+        ranked.remove(current);
+      } else if (isFull()) {
+        // the worst match can't get back within the limit, since the matches only get better
+        best.remove(ranked.pollLast().concept);
+      }
+      Match match = new Match(concept, score, language);
+      best.put(concept, match);
+      ranked.add(match);
+    }
+
+    private boolean ranksWithinLimit(int concept, int score) {
+      if (!isFull()) {
+        return true;
+      }
+      Match worst = ranked.isEmpty() ? null : ranked.last();
+      return worst != null
+          && (score < worst.score || (score == worst.score && concept < worst.concept));
+    }
+  }
+
+  /** Match of a concept, the concepts are ranked by score and then by position. */
+  private static final class Match {
+    private final int concept;
+    private final int score;
+    private final LanguageRegion language;
+
+    Match(int concept, int score, @Nullable LanguageRegion language) {
+      this.concept = concept;
+      this.score = score;
+      this.language = language;
+    }
+  }
+}
@@ -25,6 +25,9 @@ import org.gbif.vocabulary.model.Vocabulary;
 import org.gbif.vocabulary.model.search.ChildrenResult;
 import org.gbif.vocabulary.model.search.ConceptSearchParams;
 import org.gbif.vocabulary.model.search.KeyNameResult;
+import org.gbif.vocabulary.persistence.dto.ConceptValuesDto;
+import org.gbif.vocabulary.persistence.dto.ExportValueDto;
+import org.gbif.vocabulary.persistence.dto.ParentDto;
 import org.gbif.vocabulary.persistence.dto.SuggestDto;
 
 import java.net.URI;
@@ -35,6 +38,7 @@ import java.util.List;
 import java.util.function.Consumer;
 
 import org.junit.jupiter.api.BeforeAll;
+import org.apache.ibatis.cursor.Cursor;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.util.TestPropertyValues;
@@ -180,7 +184,8 @@ public class ConceptMapperTest extends BaseMapperTest<Concept> {
         1, conceptMapper.countLatestRelease(searchParams, DEFAULT_VOCABULARY.toLowerCase()));
 
     // test that the release view gets updated
-    conceptMapper.updateReleaseViews(DEFAULT_VOCABULARY.toLowerCase());
+    conceptMapper.updateReleaseViews(
+        DEFAULT_VOCABULARY.toLowerCase(), vocabularies[0].getKey());
     assertEquals(
         0,
         conceptMapper
@@ -242,10 +247,6 @@ public class ConceptMapperTest extends BaseMapperTest<Concept> {
     result = conceptMapper.suggest("su", c1.getVocabularyKey(), null, null, 1);
     assertEquals(1, result.size());
 
-    // create release view to test it at the same time
-    conceptMapper.createLatestReleaseView(
-        DEFAULT_VOCABULARY.toLowerCase(), vocabularies[0].getKey());
-
     // assert expected number of results
     assertSuggest(2, "su", c1.getVocabularyKey(), null, null);
     assertSuggest(2, "gge", c1.getVocabularyKey(), null, null);
@@ -319,10 +320,6 @@ public class ConceptMapperTest extends BaseMapperTest<Concept> {
     List<SuggestDto> result =
         conceptMapper.suggest(query, vocabKey, lang, fallbackLang, DEFAULT_SUGGEST_LIMIT);
     assertEquals(expectedSize, result.size());
-    List<SuggestDto> resultRelease =
-        conceptMapper.suggestLatestRelease(
-            query, vocabKey, lang, fallbackLang, DEFAULT_VOCABULARY, DEFAULT_SUGGEST_LIMIT);
-    assertEquals(expectedSize, resultRelease.size());
 
     if (lang != null) {
       assertTrue(
@@ -631,7 +628,8 @@ public class ConceptMapperTest extends BaseMapperTest<Concept> {
     Concept concept2 = createNewEntity();
     concept2.setParentKey(concept1.getKey());
     conceptMapper.create(concept2);
-    conceptMapper.updateReleaseViews(DEFAULT_VOCABULARY.toLowerCase());
+    conceptMapper.updateReleaseViews(
+        DEFAULT_VOCABULARY.toLowerCase(), vocabularies[0].getKey());
 
     List<String> parents = conceptMapper.findParents(concept2.getKey());
     assertEquals(1, parents.size());
@@ -645,7 +643,8 @@ public class ConceptMapperTest extends BaseMapperTest<Concept> {
     Concept concept3 = createNewEntity();
     concept3.setParentKey(concept2.getKey());
     conceptMapper.create(concept3);
-    conceptMapper.updateReleaseViews(DEFAULT_VOCABULARY.toLowerCase());
+    conceptMapper.updateReleaseViews(
+        DEFAULT_VOCABULARY.toLowerCase(), vocabularies[0].getKey());
 
     parents = conceptMapper.findParents(concept3.getKey());
     assertEquals(2, parents.size());
@@ -658,6 +657,55 @@ public class ConceptMapperTest extends BaseMapperTest<Concept> {
     assertTrue(parentsRelease.contains(concept2.getName()));
   }
 
+  @Test
+  public void findParentsLabelsTest() {
+    Concept concept1 = createNewEntity();
+    conceptMapper.create(concept1);
+    conceptMapper.addLabel(
+        concept1.getKey(),
+        Label.builder().language(LanguageRegion.SPANISH).value("es").createdBy("test").build());
+
+    Concept concept2 = createNewEntity();
+    concept2.setParentKey(concept1.getKey());
+    conceptMapper.create(concept2);
+    conceptMapper.addLabel(
+        concept2.getKey(),
+        Label.builder().language(LanguageRegion.ENGLISH).value("en").createdBy("test").build());
+
+    Concept concept3 = createNewEntity();
+    concept3.setParentKey(concept2.getKey());
+    conceptMapper.create(concept3);
+
+    Concept concept4 = createNewEntity();
+    conceptMapper.create(concept4);
+
+    List<ParentDto> parents =
+        conceptMapper.findParentsLabels(
+            Arrays.asList(concept2.getKey(), concept3.getKey(), concept4.getKey()),
+            LanguageRegion.ENGLISH,
+            LanguageRegion.SPANISH);
+    assertEquals(3, parents.size());
+
+    assertEquals(concept2.getKey().longValue(), parents.get(0).getConceptKey());
+    assertEquals(concept1.getName(), parents.get(0).getName());
+    assertNull(parents.get(0).getLabel());
+    assertEquals("es", parents.get(0).getFallbackLabel());
+    assertEquals(LanguageRegion.SPANISH, parents.get(0).getFallbackLabelLanguage());
+
+    // ordered from the direct parent to the root
+    assertEquals(concept3.getKey().longValue(), parents.get(1).getConceptKey());
+    assertEquals(concept2.getName(), parents.get(1).getName());
+    assertEquals("en", parents.get(1).getLabel());
+    assertEquals(LanguageRegion.ENGLISH, parents.get(1).getLabelLanguage());
+    assertEquals(concept3.getKey().longValue(), parents.get(2).getConceptKey());
+    assertEquals(concept1.getName(), parents.get(2).getName());
+
+    assertTrue(
+        conceptMapper
+            .findParentsLabels(Collections.singletonList(concept1.getKey()), null, null)
+            .isEmpty());
+  }
+
   @Test
   public void countChildrenTest() {
     Concept concept1 = createNewEntity();
@@ -684,7 +732,8 @@ public class ConceptMapperTest extends BaseMapperTest<Concept> {
     concept4.setParentKey(concept3.getKey());
     conceptMapper.create(concept4);
 
-    conceptMapper.updateReleaseViews(DEFAULT_VOCABULARY.toLowerCase());
+    conceptMapper.updateReleaseViews(
+        DEFAULT_VOCABULARY.toLowerCase(), vocabularies[0].getKey());
 
     Consumer<List<ChildrenResult>> assertCounts =
         counts -> {
@@ -737,6 +786,14 @@ public class ConceptMapperTest extends BaseMapperTest<Concept> {
     Concept conceptWithTags = conceptMapper.get(concept1.getKey());
     assertEquals(2, conceptWithTags.getTags().size());
 
+    List<ConceptValuesDto<Tag>> conceptsTags =
+        conceptMapper.listConceptsTags(Arrays.asList(concept1.getKey(), concept2.getKey()));
+    assertEquals(2, conceptsTags.size());
+    conceptsTags.forEach(
+        dto ->
+            assertEquals(
+                dto.getConceptKey() == concept1.getKey() ? 2 : 1, dto.getValues().size()));
+
     List<Concept> concepts =
         conceptMapper.list(
             ConceptSearchParams.builder().tags(Collections.singletonList(tag.getName())).build(),
@@ -832,7 +889,8 @@ public class ConceptMapperTest extends BaseMapperTest<Concept> {
     assertEquals("test2", definition.getValue());
 
     conceptMapper.deleteDefinition(concept.getKey(), definition.getKey());
-    conceptMapper.updateReleaseViews(DEFAULT_VOCABULARY.toLowerCase());
+    conceptMapper.updateReleaseViews(
+        DEFAULT_VOCABULARY.toLowerCase(), vocabularies[0].getKey());
     assertListDefinitions(0, concept.getKey(), null);
   }
 
@@ -877,7 +935,8 @@ public class ConceptMapperTest extends BaseMapperTest<Concept> {
     assertListLabels(0, concept.getKey(), LanguageRegion.SPANISH);
 
     conceptMapper.deleteLabel(concept.getKey(), label.getKey());
-    conceptMapper.updateReleaseViews(DEFAULT_VOCABULARY.toLowerCase());
+    conceptMapper.updateReleaseViews(
+        DEFAULT_VOCABULARY.toLowerCase(), vocabularies[0].getKey());
     assertListLabels(0, concept.getKey(), null);
   }
 
@@ -924,7 +983,8 @@ public class ConceptMapperTest extends BaseMapperTest<Concept> {
     assertListAlternativeLabels(1, concept.getKey(), null, DEFAULT_PAGE);
 
     conceptMapper.deleteAlternativeLabel(concept.getKey(), label.getKey());
-    conceptMapper.updateReleaseViews(DEFAULT_VOCABULARY.toLowerCase());
+    conceptMapper.updateReleaseViews(
+        DEFAULT_VOCABULARY.toLowerCase(), vocabularies[0].getKey());
 
     assertListAlternativeLabels(0, concept.getKey(), null, DEFAULT_PAGE);
   }
@@ -981,7 +1041,8 @@ public class ConceptMapperTest extends BaseMapperTest<Concept> {
     assertListHiddenLabels(1, concept.getKey(), DEFAULT_PAGE);
 
     conceptMapper.deleteHiddenLabel(concept.getKey(), label.getKey());
-    conceptMapper.updateReleaseViews(DEFAULT_VOCABULARY.toLowerCase());
+    conceptMapper.updateReleaseViews(
+        DEFAULT_VOCABULARY.toLowerCase(), vocabularies[0].getKey());
 
     assertListHiddenLabels(0, concept.getKey(), DEFAULT_PAGE);
   }
@@ -1008,7 +1069,7 @@ public class ConceptMapperTest extends BaseMapperTest<Concept> {
     String vocabName = "life_stage_test";
     assertFalse(conceptMapper.existsReleaseView(vocabName));
     conceptMapper.createLatestReleaseView(vocabName, 1);
-    assertDoesNotThrow(() -> conceptMapper.updateReleaseViews(vocabName));
+    assertDoesNotThrow(() -> conceptMapper.updateReleaseViews(vocabName, 1));
     assertTrue(conceptMapper.existsReleaseView(vocabName));
   }
 
@@ -1055,20 +1116,20 @@ public class ConceptMapperTest extends BaseMapperTest<Concept> {
             ConceptSearchParams.builder().name(concept1.getName()).build(),
             DEFAULT_PAGE,
             vocabName);
-    assertEquals(1, conceptsList.get(0).getDefinition().size());
-    assertEquals(0, conceptsList.get(0).getLabel().size());
+    assertEquals(1, conceptsList.size());
+    List<Long> conceptKeys = Collections.singletonList(concept1.getKey());
+    assertEquals(
+        1,
+        conceptMapper
+            .listConceptsDefinitionsLatestRelease(conceptKeys, vocabName)
+            .get(0)
+            .getValues()
+            .size());
+    assertTrue(conceptMapper.listConceptsLabelsLatestRelease(conceptKeys, vocabName).isEmpty());
 
-    List<SuggestDto> suggestResult =
-        conceptMapper.suggestLatestRelease(
-            concept1.getName(),
-            concept1.getVocabularyKey(),
-            null,
-            null,
-            vocabName,
-            DEFAULT_SUGGEST_LIMIT);
-    assertNull(suggestResult.get(0).getLabel());
+    assertTrue(conceptMapper.listSuggestLabelsLatestRelease(vocabName).isEmpty());
 
-    conceptMapper.updateReleaseViews(vocabName);
+    conceptMapper.updateReleaseViews(vocabName, 1);
 
     c1Get = conceptMapper.getByNameLatestRelease(concept1.getName(), vocabName);
     assertEquals(2, c1Get.getDefinition().size());
@@ -1079,18 +1140,87 @@ public class ConceptMapperTest extends BaseMapperTest<Concept> {
             ConceptSearchParams.builder().name(concept1.getName()).build(),
             DEFAULT_PAGE,
             vocabName);
-    assertEquals(2, conceptsList.get(0).getDefinition().size());
-    assertEquals(1, conceptsList.get(0).getLabel().size());
+    assertEquals(1, conceptsList.size());
+    assertEquals(
+        2,
+        conceptMapper
+            .listConceptsDefinitionsLatestRelease(conceptKeys, vocabName)
+            .get(0)
+            .getValues()
+            .size());
+    assertEquals(
+        1,
+        conceptMapper
+            .listConceptsLabelsLatestRelease(conceptKeys, vocabName)
+            .get(0)
+            .getValues()
+            .size());
 
-    suggestResult =
-        conceptMapper.suggestLatestRelease(
-            concept1.getName(),
-            concept1.getVocabularyKey(),
-            null,
-            null,
-            vocabName,
-            DEFAULT_SUGGEST_LIMIT);
-    assertNull(suggestResult.get(0).getLabel());
+    assertEquals(1, conceptMapper.listSuggestLabelsLatestRelease(vocabName).size());
+  }
+
+  @Test
+  public void releaseViewIncrementalUpdateTest() {
+    String vocabName = DEFAULT_VOCABULARY.toLowerCase();
+    long vocabKey = vocabularies[0].getKey();
+
+    Concept concept1 = createNewEntity();
+    conceptMapper.create(concept1);
+    Concept concept2 = createNewEntity();
+    conceptMapper.create(concept2);
+    Label label =
+        Label.builder().value("l1").language(LanguageRegion.ENGLISH).createdBy("test").build();
+    conceptMapper.addLabel(concept2.getKey(), label);
+
+    Tag tag = new Tag();
+    tag.setName("releaseTag");
+    tag.setColor("#FFFFFF");
+    tag.setCreatedBy("test");
+    tag.setModifiedBy("test");
+    tagMapper.create(tag);
+    conceptMapper.addTag(concept1.getKey(), tag.getKey());
+    Tag tag2 = new Tag();
+    tag2.setName("releaseTag2");
+    tag2.setColor("#FFFFFF");
+    tag2.setCreatedBy("test");
+    tag2.setModifiedBy("test");
+    tagMapper.create(tag2);
+    conceptMapper.addTag(concept2.getKey(), tag2.getKey());
+
+    conceptMapper.createLatestReleaseView(vocabName, vocabKey);
+
+    // changes after the release
+    concept1.setEditorialNotes(new ArrayList<>(Collections.singletonList("updated note")));
+    conceptMapper.update(concept1);
+    conceptMapper.removeTag(concept1.getKey(), tag.getKey());
+    conceptMapper.deleteLabel(concept2.getKey(), label.getKey());
+    Concept concept3 = createNewEntity();
+    conceptMapper.create(concept3);
+    tag2.setName("releaseTag2Updated");
+    tagMapper.update(tag2);
+
+    // the release is not affected until the views are updated
+    Concept c1Release = conceptMapper.getByNameLatestRelease(concept1.getName(), vocabName);
+    assertEquals(Collections.singletonList("Note test"), c1Release.getEditorialNotes());
+    assertEquals(1, c1Release.getTags().size());
+    assertNull(conceptMapper.getByNameLatestRelease(concept3.getName(), vocabName));
+
+    conceptMapper.updateReleaseViews(vocabName, vocabKey);
+
+    c1Release = conceptMapper.getByNameLatestRelease(concept1.getName(), vocabName);
+    assertEquals(Collections.singletonList("updated note"), c1Release.getEditorialNotes());
+    assertEquals(0, c1Release.getTags().size());
+    Concept c2Release = conceptMapper.getByNameLatestRelease(concept2.getName(), vocabName);
+    assertEquals(0, c2Release.getLabel().size());
+    assertEquals("releaseTag2Updated", c2Release.getTags().get(0).getName());
+    assertEquals(
+        concept3.getKey(),
+        conceptMapper.getByNameLatestRelease(concept3.getName(), vocabName).getKey());
+    assertEquals(3, conceptMapper.countLatestRelease(ConceptSearchParams.empty(), vocabName));
+
+    // updating without changes keeps the same data
+    conceptMapper.updateReleaseViews(vocabName, vocabKey);
+    assertEquals(3, conceptMapper.countLatestRelease(ConceptSearchParams.empty(), vocabName));
   }
 
   @Test
@@ -1105,6 +1235,118 @@ public class ConceptMapperTest extends BaseMapperTest<Concept> {
     assertEquals(concept1.getKey(), conceptDB.getKey());
   }
 
+  @Test
+  public void listAfterKeyTest() {
+    Concept concept1 = createNewEntity();
+    conceptMapper.create(concept1);
+    Concept concept2 = createNewEntity();
+    conceptMapper.create(concept2);
+    Concept concept3 = createNewEntity();
+    conceptMapper.create(concept3);
+
+    ConceptSearchParams params =
+        ConceptSearchParams.builder()
+            .vocabularyKey(vocabularies[0].getKey())
+            .afterKey(concept1.getKey())
+            .build();
+
+    // the offset is ignored and the concepts are ordered by key
+    List<Concept> concepts = conceptMapper.list(params, PAGE_FN.apply(10, 5L));
+    assertEquals(2, concepts.size());
+    assertEquals(concept2.getKey(), concepts.get(0).getKey());
+    assertEquals(concept3.getKey(), concepts.get(1).getKey());
+    assertEquals(2, conceptMapper.count(params));
+
+    concepts = conceptMapper.list(params, PAGE_FN.apply(1, 0L));
+    assertEquals(1, concepts.size());
+    assertEquals(concept2.getKey(), concepts.get(0).getKey());
+
+    params =
+        ConceptSearchParams.builder()
+            .vocabularyKey(vocabularies[0].getKey())
+            .afterKey(concept3.getKey())
+            .build();
+    assertEquals(0, conceptMapper.list(params, DEFAULT_PAGE).size());
+  }
+
+  @Test
+  public void exportTest() {
+    Concept concept1 = createNewEntity();
+    conceptMapper.create(concept1);
+    Concept concept2 = createNewEntity();
+    conceptMapper.create(concept2);
+    Concept concept3 = createNewEntity();
+    conceptMapper.create(concept3);
+
+    Tag tag = new Tag();
+    tag.setName("exportTag");
+    tag.setColor("#FFFFFF");
+    tag.setCreatedBy("test");
+    tag.setModifiedBy("test");
+    tagMapper.create(tag);
+    conceptMapper.addTag(concept1.getKey(), tag.getKey());
+    conceptMapper.addTag(concept3.getKey(), tag.getKey());
+
+    conceptMapper.addDefinition(
+        concept1.getKey(),
+        Definition.builder()
+            .language(LanguageRegion.ENGLISH)
+            .value("def")
+            .createdBy("test")
+            .modifiedBy("test")
+            .build());
+    conceptMapper.addLabel(
+        concept2.getKey(),
+        Label.builder().language(LanguageRegion.ENGLISH).value("label").createdBy("test").build());
+    conceptMapper.addAlternativeLabel(
+        concept2.getKey(),
+        Label.builder().language(LanguageRegion.SPANISH).value("alt").createdBy("test").build());
+    conceptMapper.addHiddenLabel(
+        concept3.getKey(), HiddenLabel.builder().value("hidden").createdBy("test").build());
+
+    // cursors ordered by key
+    long vocabularyKey = vocabularies[0].getKey();
+    List<Concept> concepts = toList(conceptMapper.listExportConcepts(vocabularyKey));
+    assertEquals(3, concepts.size());
+    assertEquals(concept1.getKey(), concepts.get(0).getKey());
+    assertEquals(concept2.getKey(), concepts.get(1).getKey());
+    assertEquals(concept3.getKey(), concepts.get(2).getKey());
+    assertEquals(1, concepts.get(0).getExternalDefinitions().size());
+    assertEquals(0, toList(conceptMapper.listExportConcepts(vocabularies[1].getKey())).size());
+
+    List<ExportValueDto> tags = toList(conceptMapper.listExportTags(vocabularyKey));
+    assertEquals(2, tags.size());
+    assertEquals("exportTag", tags.get(0).getValue());
+    assertEquals(concept1.getKey().longValue(), tags.get(0).getConceptKey());
+    assertEquals(concept3.getKey().longValue(), tags.get(1).getConceptKey());
+
+    List<ExportValueDto> definitions = toList(conceptMapper.listExportDefinitions(vocabularyKey));
+    assertEquals(1, definitions.size());
+    assertEquals(concept1.getKey().longValue(), definitions.get(0).getConceptKey());
+    assertEquals(LanguageRegion.ENGLISH, definitions.get(0).getLanguage());
+    assertEquals("def", definitions.get(0).getValue());
+
+    assertEquals(1, toList(conceptMapper.listExportLabels(vocabularyKey)).size());
+    List<ExportValueDto> altLabels =
+        toList(conceptMapper.listExportAlternativeLabels(vocabularyKey));
+    assertEquals(1, altLabels.size());
+    assertEquals(LanguageRegion.SPANISH, altLabels.get(0).getLanguage());
+
+    List<ExportValueDto> hiddenLabels = toList(conceptMapper.listExportHiddenLabels(vocabularyKey));
+    assertEquals(1, hiddenLabels.size());
+    assertEquals(concept3.getKey().longValue(), hiddenLabels.get(0).getConceptKey());
+    assertNull(hiddenLabels.get(0).getLanguage());
+
+    // only the concepts of the vocabulary
+    assertEquals(0, toList(conceptMapper.listExportTags(vocabularies[1].getKey())).size());
+  }
+
+  private static <T> List<T> toList(Cursor<T> cursor) {
+    List<T> list = new ArrayList<>();
+    cursor.forEach(list::add);
+    return list;
+  }
+
   private void assertList(ConceptSearchParams searchParams, int expectedResult) {
     assertEquals(expectedResult, conceptMapper.list(searchParams, DEFAULT_PAGE).size());
     assertEquals(expectedResult, conceptMapper.count(searchParams));
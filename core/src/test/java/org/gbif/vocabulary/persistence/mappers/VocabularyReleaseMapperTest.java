@@ -13,15 +13,22 @@
  */
 package org.gbif.vocabulary.persistence.mappers;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.io.InputStream;
+import java.util.Arrays;
 import lombok.SneakyThrows;
 import org.gbif.vocabulary.PostgresDBExtension;
 import org.gbif.vocabulary.TestUtils;
 import org.gbif.vocabulary.model.Vocabulary;
 import org.gbif.vocabulary.model.VocabularyRelease;
+import org.gbif.vocabulary.model.export.ExportFileInfo;
+import org.gbif.vocabulary.persistence.parameters.BinaryStreamParam;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -108,6 +115,65 @@ public class VocabularyReleaseMapperTest {
     assertTrue(vocabularyRelease.lenientEquals(stored));
   }
 
+  @SneakyThrows
+  @Test
+  public void createWithExportStreamTest() {
+    VocabularyRelease vocabularyRelease = new VocabularyRelease();
+    vocabularyRelease.setVocabularyKey(vocabularyKey);
+    vocabularyRelease.setVersion("1.0");
+    vocabularyRelease.setCreatedBy("test");
+    vocabularyRelease.setExportUrl("dummy url");
+    vocabularyRelease.setComment("test comment");
+
+    Resource exportFile = new ClassPathResource("LifeStage_export.json");
+    byte[] exportBytes = StreamUtils.copyToByteArray(exportFile.getInputStream());
+
+    // create release streaming the export
+    try (InputStream exportStream = exportFile.getInputStream()) {
+      vocabularyReleaseMapper.createWithExportStream(
+          vocabularyRelease, BinaryStreamParam.of(exportStream, exportBytes.length));
+    }
+    assertNotNull(vocabularyRelease.getKey());
+
+    VocabularyRelease storedFile =
+        vocabularyReleaseMapper.getVocabularyReleaseWithExportFile(
+            vocabularyKey, vocabularyRelease.getVersion());
+    assertArrayEquals(exportBytes, storedFile.getExportFile());
+    assertTrue(vocabularyRelease.lenientEquals(storedFile));
+  }
+
+  @SneakyThrows
+  @Test
+  public void exportFileRangeTest() {
+    VocabularyRelease vocabularyRelease = new VocabularyRelease();
+    vocabularyRelease.setVocabularyKey(vocabularyKey);
+    vocabularyRelease.setVersion("1.0");
+    vocabularyRelease.setCreatedBy("test");
+    vocabularyRelease.setExportUrl("dummy url");
+    vocabularyRelease.setComment("test comment");
+
+    Resource exportFile = new ClassPathResource("LifeStage_export.json");
+    byte[] exportBytes = StreamUtils.copyToByteArray(exportFile.getInputStream());
+    vocabularyRelease.setExportFile(exportBytes);
+    vocabularyReleaseMapper.create(vocabularyRelease);
+
+    ExportFileInfo info = vocabularyReleaseMapper.getExportFileInfo(vocabularyKey, "1.0");
+    assertEquals("1.0", info.getVersion());
+    assertEquals(exportBytes.length, info.getLength());
+    assertFalse(info.isGzipped());
+    assertNull(vocabularyReleaseMapper.getExportFileInfo(vocabularyKey, "2.0"));
+
+    assertArrayEquals(
+        Arrays.copyOfRange(exportBytes, 10, 30),
+        vocabularyReleaseMapper.getExportFileRange(vocabularyKey, "1.0", 10, 20).getExportFile());
+    // ranges past the end of the file are truncated
+    assertArrayEquals(
+        Arrays.copyOfRange(exportBytes, exportBytes.length - 5, exportBytes.length),
+        vocabularyReleaseMapper
+            .getExportFileRange(vocabularyKey, "1.0", exportBytes.length - 5, 20)
+            .getExportFile());
+  }
+
   @Test
   public void listTest() {
     VocabularyRelease vr1 = new VocabularyRelease();
@@ -571,6 +571,8 @@ public class ConceptServiceIT {
             ConceptSearchParams.builder().tags(Collections.singletonList(tag.getName())).build(),
             new PagingRequest(0, 5));
     assertEquals(1, concepts.getResults().size());
+    // the tags are loaded in bulk for the whole page
+    assertEquals(2, concepts.getResults().get(0).getTags().size());
     concepts =
         conceptService.list(
             ConceptSearchParams.builder().tags(Collections.singletonList(tag2.getName())).build(),
@@ -848,7 +850,7 @@ public class ConceptServiceIT {
             .getCount()
             .longValue());
 
-    conceptService.updateLatestReleaseView(vocabularies[0].getName());
+    conceptService.updateLatestReleaseView(vocabularies[0].getName(), vocabularies[0].getKey());
 
     assertEquals(
         1,
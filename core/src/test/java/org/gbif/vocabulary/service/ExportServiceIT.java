@@ -13,19 +13,35 @@
  */
 package org.gbif.vocabulary.service;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import org.gbif.api.model.common.paging.PagingRequest;
 import org.gbif.vocabulary.PostgresDBExtension;
 import org.gbif.vocabulary.TestUtils;
+import org.gbif.vocabulary.model.Concept;
+import org.gbif.vocabulary.model.Label;
+import org.gbif.vocabulary.model.LanguageRegion;
 import org.gbif.vocabulary.model.UserRoles;
 import org.gbif.vocabulary.model.Vocabulary;
 import org.gbif.vocabulary.model.VocabularyRelease;
+import org.gbif.vocabulary.model.export.ExportFileInfo;
 import org.gbif.vocabulary.model.export.ExportParams;
+import org.gbif.vocabulary.model.export.ReleaseDiff;
+import org.gbif.vocabulary.model.export.ReleaseResult;
+import org.gbif.vocabulary.model.utils.GzipUtils;
+import org.gbif.vocabulary.persistence.mappers.ConceptMapper;
 import org.gbif.vocabulary.persistence.mappers.VocabularyMapper;
 import org.gbif.vocabulary.persistence.mappers.VocabularyReleaseMapper;
 import org.junit.jupiter.api.Test;
@@ -53,15 +69,18 @@ public class ExportServiceIT {
   private final VocabularyReleaseMapper vocabularyReleaseMapper;
   private final ExportService exportService;
   private final VocabularyMapper vocabularyMapper;
+  private final ConceptMapper conceptMapper;
 
   @Autowired
   ExportServiceIT(
       VocabularyReleaseMapper vocabularyReleaseMapper,
       ExportService exportService,
-      VocabularyMapper vocabularyMapper) {
+      VocabularyMapper vocabularyMapper,
+      ConceptMapper conceptMapper) {
     this.vocabularyReleaseMapper = vocabularyReleaseMapper;
     this.exportService = exportService;
     this.vocabularyMapper = vocabularyMapper;
+    this.conceptMapper = conceptMapper;
   }
 
   @Test
@@ -160,6 +179,149 @@ public class ExportServiceIT {
     assertEquals(exportParams.getVersion(), release.getVersion());
     assertEquals(exportParams.getUser(), release.getCreatedBy());
     assertEquals(vocabulary.getKey(), release.getVocabularyKey());
+
+    // the export is stored compressed
+    ExportFileInfo exportFileInfo =
+        exportService.getExportFileInfo(vocabulary.getName(), exportParams.getVersion());
+    assertTrue(exportFileInfo.isGzipped());
+    assertEquals(exportParams.getVersion(), exportFileInfo.getVersion());
+
+    // the export file is read in chunks, fully or by ranges
+    byte[] exportFile =
+        vocabularyReleaseMapper
+            .getVocabularyReleaseWithExportFile(vocabulary.getKey(), exportParams.getVersion())
+            .getExportFile();
+    assertEquals(exportFile.length, exportFileInfo.getLength());
+    assertTrue(GzipUtils.isGzipped(exportFile));
+    try (InputStream in =
+        exportService.openExportFile(
+            vocabulary.getName(), exportParams.getVersion(), 0, exportFile.length)) {
+      assertArrayEquals(exportFile, in.readAllBytes());
+    }
+    try (InputStream in =
+        exportService.openExportFile(vocabulary.getName(), exportParams.getVersion(), 5, 10)) {
+      assertArrayEquals(Arrays.copyOfRange(exportFile, 5, 15), in.readAllBytes());
+    }
+
+    assertNull(exportService.getExportFileInfo(vocabulary.getName(), "9.9.9"));
+  }
+
+  @WithMockUser(authorities = UserRoles.VOCABULARY_ADMIN)
+  @Test
+  public void releaseVocabulariesTest() {
+    List<ExportParams> exportParams = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      Vocabulary vocabulary = new Vocabulary();
+      vocabulary.setName(TestUtils.getRandomName());
+      vocabulary.setCreatedBy("test");
+      vocabulary.setModifiedBy("test");
+      vocabularyMapper.create(vocabulary);
+      exportParams.add(
+          ExportParams.builder()
+              .vocabularyName(vocabulary.getName())
+              .version("1.0.0")
+              .user("user")
+              .comment("comment")
+              .build());
+    }
+    // this one fails but it doesn't affect the rest
+    exportParams.add(
+        ExportParams.builder()
+            .vocabularyName("unknown")
+            .version("1.0.0")
+            .user("user")
+            .comment("comment")
+            .build());
+
+    List<ReleaseResult> results = exportService.releaseVocabularies(exportParams);
+    assertEquals(4, results.size());
+    for (int i = 0; i < 3; i++) {
+      ReleaseResult result = results.get(i);
+      assertTrue(result.isSuccessful());
+      assertEquals(exportParams.get(i).getVocabularyName(), result.getVocabularyName());
+      assertEquals("1.0.0", result.getRelease().getVersion());
+      assertNull(result.getError());
+      assertNotNull(
+          exportService.getExportFileInfo(result.getVocabularyName(), result.getVersion()));
+    }
+    assertFalse(results.get(3).isSuccessful());
+    assertEquals("unknown", results.get(3).getVocabularyName());
+    assertNotNull(results.get(3).getError());
+
+    // vocabularies can't be repeated
+    assertThrows(
+        IllegalArgumentException.class,
+        () ->
+            exportService.releaseVocabularies(
+                Arrays.asList(exportParams.get(0), exportParams.get(0))));
+  }
+
+  @WithMockUser(authorities = UserRoles.VOCABULARY_ADMIN)
+  @Test
+  public void diffReleasesTest() {
+    Vocabulary vocabulary = new Vocabulary();
+    vocabulary.setName(TestUtils.getRandomName());
+    vocabulary.setCreatedBy("test");
+    vocabulary.setModifiedBy("test");
+    vocabularyMapper.create(vocabulary);
+
+    Concept concept1 = createConcept(vocabulary.getKey());
+    conceptMapper.addLabel(
+        concept1.getKey(),
+        Label.builder().language(LanguageRegion.ENGLISH).value("l1").createdBy("test").build());
+    Concept concept2 = createConcept(vocabulary.getKey());
+
+    exportService.releaseVocabulary(
+        ExportParams.builder()
+            .vocabularyName(vocabulary.getName())
+            .version("1.0.0")
+            .user("user")
+            .comment("comment")
+            .build());
+
+    // changes for the next release
+    conceptMapper.addLabel(
+        concept1.getKey(),
+        Label.builder().language(LanguageRegion.SPANISH).value("l2").createdBy("test").build());
+    concept2.setParentKey(concept1.getKey());
+    conceptMapper.update(concept2);
+    Concept concept3 = createConcept(vocabulary.getKey());
+
+    exportService.releaseVocabulary(
+        ExportParams.builder()
+            .vocabularyName(vocabulary.getName())
+            .version("1.1.0")
+            .user("user")
+            .comment("comment")
+            .build());
+
+    ReleaseDiff diff = exportService.diffReleases(vocabulary.getName(), "1.0.0", "1.1.0");
+    assertEquals(vocabulary.getName(), diff.getVocabularyName());
+    assertEquals("1.0.0", diff.getFromVersion());
+    assertEquals("1.1.0", diff.getToVersion());
+    assertEquals(Collections.singletonList(concept3.getName()), diff.getAddedConcepts());
+    assertTrue(diff.getRemovedConcepts().isEmpty());
+    assertEquals(1, diff.getLabelChanges().size());
+    assertEquals(concept1.getName(), diff.getLabelChanges().get(0).getConceptName());
+    assertEquals(LanguageRegion.SPANISH, diff.getLabelChanges().get(0).getLanguage());
+    assertEquals(
+        Collections.singletonList(
+            new ReleaseDiff.ParentChange(concept2.getName(), null, concept1.getName())),
+        diff.getParentChanges());
+
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> exportService.diffReleases(vocabulary.getName(), "0.0.1", "1.1.0"));
+  }
+
+  private Concept createConcept(long vocabularyKey) {
+    Concept concept = new Concept();
+    concept.setVocabularyKey(vocabularyKey);
+    concept.setName(TestUtils.getRandomName());
+    concept.setCreatedBy("test");
+    concept.setModifiedBy("test");
+    conceptMapper.create(concept);
+    return concept;
   }
 
   static class ContexInitializer
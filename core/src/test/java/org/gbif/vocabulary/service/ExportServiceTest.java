@@ -13,16 +13,12 @@
  */
 package org.gbif.vocabulary.service;
 
-import org.gbif.api.model.common.paging.PagingRequest;
-import org.gbif.api.model.common.paging.PagingResponse;
 import org.gbif.vocabulary.model.Concept;
 import org.gbif.vocabulary.model.Definition;
-import org.gbif.vocabulary.model.HiddenLabel;
-import org.gbif.vocabulary.model.Label;
 import org.gbif.vocabulary.model.LanguageRegion;
-import org.gbif.vocabulary.model.Tag;
 import org.gbif.vocabulary.model.UserRoles;
 import org.gbif.vocabulary.model.Vocabulary;
+import org.gbif.vocabulary.model.export.ConceptExportView;
 import org.gbif.vocabulary.model.export.Export;
 import org.gbif.vocabulary.model.export.VocabularyExportView;
 import org.gbif.vocabulary.persistence.mappers.VocabularyReleaseMapper;
@@ -30,10 +26,10 @@ import org.gbif.vocabulary.persistence.mappers.VocabularyReleaseMapper;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.time.ZonedDateTime;
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
-import java.util.List;
+import java.util.HashSet;
+import java.util.stream.Stream;
 
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -48,7 +44,6 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
-import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.when;
 
 /** Tests the {@link ExportService}. */
@@ -110,80 +105,49 @@ public class ExportServiceTest extends MockServiceBaseTest {
     c1.setName("c1");
     c1.setVocabularyKey(vocabulary.getKey());
     c1.setCreated(ZonedDateTime.now());
+    ConceptExportView c1View = new ConceptExportView();
+    c1View.setConcept(c1);
 
     // tags
-    Tag tag1 = new Tag();
-    tag1.setName("tag1");
-    c1.getTags().add(tag1);
-    Tag tag2 = new Tag();
-    tag2.setName("tag2");
-    c1.getTags().add(tag2);
+    c1View.getTags().add("tag1");
+    c1View.getTags().add("tag2");
 
     // labels
-    List<Label> c1Labels = new ArrayList<>();
-    c1Labels.add(Label.builder().language(LanguageRegion.ENGLISH).value("Label").build());
-    c1Labels.add(Label.builder().language(LanguageRegion.SPANISH).value("Etiqueta").build());
+    c1View.getLabel().put(LanguageRegion.ENGLISH, "Label");
+    c1View.getLabel().put(LanguageRegion.SPANISH, "Etiqueta");
 
     // alternative labels
-    List<Label> c1AlternativeLabels = new ArrayList<>();
-    c1AlternativeLabels.add(
-        Label.builder().language(LanguageRegion.ENGLISH).value("label2").build());
-    c1AlternativeLabels.add(
-        Label.builder().language(LanguageRegion.ENGLISH).value("label3").build());
-    c1AlternativeLabels.add(
-        Label.builder().language(LanguageRegion.ENGLISH).value("label4").build());
-    c1AlternativeLabels.add(
-        Label.builder().language(LanguageRegion.SPANISH).value("label5").build());
-    c1AlternativeLabels.add(
-        Label.builder().language(LanguageRegion.SPANISH).value("label6").build());
+    c1View
+        .getAlternativeLabels()
+        .put(LanguageRegion.ENGLISH, new HashSet<>(Arrays.asList("label2", "label3", "label4")));
+    c1View
+        .getAlternativeLabels()
+        .put(LanguageRegion.SPANISH, new HashSet<>(Arrays.asList("label5", "label6")));
 
     // hidden labels
-    List<HiddenLabel> c1HiddenLabels = new ArrayList<>();
-    c1HiddenLabels.add(HiddenLabel.builder().value("labl2").build());
-    c1HiddenLabels.add(HiddenLabel.builder().value("labl3").build());
-    c1HiddenLabels.add(HiddenLabel.builder().value("labl4").build());
-    c1HiddenLabels.add(HiddenLabel.builder().value("labl5").build());
-    c1HiddenLabels.add(HiddenLabel.builder().value("labl6").build());
+    c1View
+        .getHiddenLabels()
+        .addAll(Arrays.asList("labl2", "labl3", "labl4", "labl5", "labl6"));
 
     Concept c2 = new Concept();
     c2.setKey(2L);
     c2.setName("c2");
     c2.setVocabularyKey(vocabulary.getKey());
-    List<Label> c2Labels = new ArrayList<>();
-    c2Labels.add(Label.builder().language(LanguageRegion.ENGLISH).value("Label").build());
+    ConceptExportView c2View = new ConceptExportView();
+    c2View.setConcept(c2);
+    c2View.getLabel().put(LanguageRegion.ENGLISH, "Label");
 
     Concept c3 = new Concept();
     c3.setKey(3L);
     c3.setName("c3");
     c3.setVocabularyKey(vocabulary.getKey());
-    List<Label> c3Labels = new ArrayList<>();
-    c3Labels.add(Label.builder().language(LanguageRegion.ENGLISH).value("Label").build());
+    ConceptExportView c3View = new ConceptExportView();
+    c3View.setConcept(c3);
+    c3View.getLabel().put(LanguageRegion.ENGLISH, "Label");
 
     when(vocabularyService.getByName(vocabularyName)).thenReturn(vocabulary);
-    when(conceptService.list(any(), any()))
-        .thenReturn(new PagingResponse<>(0, 100, 3L, Arrays.asList(c1, c2, c3)));
-    when(conceptService.listLabels(c1.getKey(), null)).thenReturn(c1Labels);
-    when(conceptService.listAlternativeLabels(c1.getKey(), null, new PagingRequest(0, 1000)))
-        .thenReturn(
-            new PagingResponse<>(
-                0L,
-                c1AlternativeLabels.size(),
-                (long) c1AlternativeLabels.size(),
-                c1AlternativeLabels));
-    when(conceptService.listHiddenLabels(c1.getKey(), null, new PagingRequest(0, 1000)))
-        .thenReturn(
-            new PagingResponse<>(
-                0L, c1HiddenLabels.size(), (long) c1HiddenLabels.size(), c1HiddenLabels));
-    when(conceptService.listLabels(c2.getKey(), null)).thenReturn(c2Labels);
-    when(conceptService.listAlternativeLabels(c2.getKey(), null, new PagingRequest(0, 1000)))
-        .thenReturn(new PagingResponse<>(0L, 0, 0L, new ArrayList<>()));
-    when(conceptService.listHiddenLabels(c2.getKey(), null, new PagingRequest(0, 1000)))
-        .thenReturn(new PagingResponse<>(0L, 0, 0L, new ArrayList<>()));
-    when(conceptService.listLabels(c3.getKey(), null)).thenReturn(c3Labels);
-    when(conceptService.listAlternativeLabels(c3.getKey(), null, new PagingRequest(0, 1000)))
-        .thenReturn(new PagingResponse<>(0L, 0, 0L, new ArrayList<>()));
-    when(conceptService.listHiddenLabels(c3.getKey(), null, new PagingRequest(0, 1000)))
-        .thenReturn(new PagingResponse<>(0L, 0, 0L, new ArrayList<>()));
+    when(conceptService.streamExportViews(vocabulary.getKey()))
+        .thenAnswer(invocation -> Stream.of(c1View, c2View, c3View));
   }
 
   @WithMockUser
@@ -196,5 +160,6 @@ public class ExportServiceTest extends MockServiceBaseTest {
   @Test
   public void forbiddenReleaseTest() {
     assertThrows(AccessDeniedException.class, () -> exportService.releaseVocabulary(null));
+    assertThrows(AccessDeniedException.class, () -> exportService.releaseVocabularies(null));
   }
 }
@@ -0,0 +1,166 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.vocabulary.service.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+import org.gbif.vocabulary.model.LanguageRegion;
+import org.gbif.vocabulary.model.export.Export;
+import org.gbif.vocabulary.model.export.ReleaseDiff;
+import org.gbif.vocabulary.model.export.ReleaseDiff.LabelChange;
+import org.gbif.vocabulary.model.export.ReleaseDiff.LabelType;
+import org.junit.jupiter.api.Test;
+
+/** Tests the {@link ReleaseDiffCalculator}. */
+public class ReleaseDiffCalculatorTest {
+
+  private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+  @Test
+  public void diffTest() throws IOException {
+    ObjectNode a1 = concept(1, "A", null);
+    a1.putObject("label").put("en", "a");
+    a1.putObject("alternativeLabels").putArray("en").add("x").add("y");
+    a1.putArray("hiddenLabels").add("h");
+    ObjectNode b1 = concept(2, "B", 1L);
+    ObjectNode c1 = concept(3, "C", 1L);
+    ObjectNode d1 = concept(5, "E", null);
+    d1.put("deprecated", "2020-01-01T00:00:00Z");
+
+    ObjectNode a2 = concept(1, "A", null);
+    a2.put("deprecated", "2021-01-01T00:00:00Z");
+    a2.putObject("label").put("en", "a2").put("es-ES", "e");
+    a2.putObject("alternativeLabels").putArray("en").add("y").add("z");
+    ObjectNode b2 = concept(2, "B2", 4L);
+    ObjectNode d2 = concept(4, "D", null);
+    ObjectNode e2 = concept(5, "E", null);
+
+    byte[] oldExport = gzip(export(a1, b1, c1, d1));
+    byte[] newExport = export(a2, b2, d2, e2);
+    ReleaseDiff diff =
+        ReleaseDiffCalculator.diff(
+            () -> new ByteArrayInputStream(oldExport), () -> new ByteArrayInputStream(newExport));
+
+    assertEquals(Collections.singletonList("D"), diff.getAddedConcepts());
+    assertEquals(Collections.singletonList("C"), diff.getRemovedConcepts());
+    assertEquals(Collections.singletonList("A"), diff.getDeprecatedConcepts());
+    assertEquals(Collections.singletonList("E"), diff.getRestoredConcepts());
+    assertEquals(
+        Collections.singletonList(new ReleaseDiff.ConceptRename("B", "B2")),
+        diff.getRenamedConcepts());
+    assertEquals(
+        Collections.singletonList(new ReleaseDiff.ParentChange("B2", "A", "D")),
+        diff.getParentChanges());
+
+    List<LabelChange> labelChanges = diff.getLabelChanges();
+    assertEquals(4, labelChanges.size());
+    assertLabelChange(labelChanges.get(0), LabelType.LABEL, LanguageRegion.ENGLISH, "a2", "a");
+    assertLabelChange(labelChanges.get(1), LabelType.LABEL, LanguageRegion.SPANISH, "e", null);
+    assertLabelChange(
+        labelChanges.get(2), LabelType.ALTERNATIVE_LABEL, LanguageRegion.ENGLISH, "z", "x");
+    assertLabelChange(labelChanges.get(3), LabelType.HIDDEN_LABEL, null, null, "h");
+
+    // exports whose concepts are not ordered by key give the same result
+    byte[] unsortedExport = export(e2, b2, a2, d2);
+    ReleaseDiff unsortedDiff =
+        ReleaseDiffCalculator.diff(
+            () -> new ByteArrayInputStream(oldExport),
+            () -> new ByteArrayInputStream(unsortedExport));
+    assertEquals(diff, unsortedDiff);
+  }
+
+  @Test
+  public void sameExportTest() throws IOException {
+    ObjectNode a = concept(1, "A", null);
+    a.putObject("label").put("en", "a");
+    byte[] export = export(a, concept(2, "B", 1L));
+
+    ReleaseDiff diff =
+        ReleaseDiffCalculator.diff(
+            () -> new ByteArrayInputStream(export), () -> new ByteArrayInputStream(export));
+    assertEquals(new ReleaseDiff(), diff);
+  }
+
+  @Test
+  public void emptyExportTest() throws IOException {
+    byte[] empty = export();
+    byte[] export = export(concept(1, "A", null));
+
+    ReleaseDiff diff =
+        ReleaseDiffCalculator.diff(
+            () -> new ByteArrayInputStream(empty), () -> new ByteArrayInputStream(export));
+    assertEquals(Collections.singletonList("A"), diff.getAddedConcepts());
+    assertTrue(diff.getRemovedConcepts().isEmpty());
+  }
+
+  private static void assertLabelChange(
+      LabelChange change,
+      LabelType type,
+      LanguageRegion language,
+      String added,
+      String removed) {
+    assertEquals("A", change.getConceptName());
+    assertEquals(type, change.getType());
+    if (language == null) {
+      assertNull(change.getLanguage());
+    } else {
+      assertEquals(language, change.getLanguage());
+    }
+    assertEquals(
+        added != null ? Collections.singleton(added) : Collections.emptySet(), change.getAdded());
+    assertEquals(
+        removed != null ? Collections.singleton(removed) : Collections.emptySet(),
+        change.getRemoved());
+  }
+
+  private static ObjectNode concept(long key, String name, Long parentKey) {
+    ObjectNode concept = OBJECT_MAPPER.createObjectNode();
+    concept.put("key", key);
+    concept.put("vocabularyKey", 1);
+    concept.put("parentKey", parentKey);
+    concept.put("name", name);
+    concept.putArray("editorialNotes").add("note");
+    concept.putArray("tags").add("tag");
+    return concept;
+  }
+
+  private static byte[] export(ObjectNode... concepts) throws IOException {
+    ObjectNode export = OBJECT_MAPPER.createObjectNode();
+    export.putObject(Export.METADATA_PROP).put("version", "1.0.0");
+    export.putObject(Export.VOCABULARY_PROP).put("name", "vocab");
+    ArrayNode conceptsNode = export.putArray(Export.CONCEPTS_PROP);
+    Arrays.stream(concepts).forEach(conceptsNode::add);
+    return OBJECT_MAPPER.writeValueAsBytes(export);
+  }
+
+  private static byte[] gzip(byte[] bytes) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+      gzip.write(bytes);
+    }
+    return out.toByteArray();
+  }
+}
@@ -0,0 +1,169 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.vocabulary.service.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.gbif.vocabulary.model.Concept;
+import org.gbif.vocabulary.model.LanguageRegion;
+import org.gbif.vocabulary.model.search.SuggestResult;
+import org.gbif.vocabulary.persistence.dto.ExportValueDto;
+import org.junit.jupiter.api.Test;
+
+/** Tests the {@link SuggestIndex}. */
+public class SuggestIndexTest {
+
+  private final SuggestIndex index =
+      SuggestIndex.build(
+          Arrays.asList(
+              concept(1, "Suggest111", null, false),
+              concept(2, "Suggest222", 3L, false),
+              concept(3, "Root", null, false),
+              concept(4, "Old", null, true)),
+          Arrays.asList(
+              label(1, LanguageRegion.ENGLISH, "labelenglish"),
+              label(1, LanguageRegion.SPANISH, "labelspanish"),
+              label(2, LanguageRegion.ENGLISH, "Label"),
+              label(2, LanguageRegion.PORTUGUESE, "tílDE"),
+              label(3, LanguageRegion.SPANISH, "raíz"),
+              label(4, LanguageRegion.ENGLISH, "label old")));
+
+  @Test
+  public void suggestNamesTest() {
+    assertEquals(
+        Arrays.asList("Suggest111", "Suggest222"), names(index.suggest("su", null, null, 20)));
+    assertEquals(
+        Arrays.asList("Suggest111", "Suggest222"), names(index.suggest("gge", null, null, 20)));
+    assertEquals(List.of("Suggest222"), names(index.suggest("22", null, null, 20)));
+    assertTrue(index.suggest("zz", null, null, 20).isEmpty());
+    assertEquals(3, index.suggest(null, null, null, 20).size());
+    assertEquals(List.of("Suggest111"), names(index.suggest("su", null, null, 1)));
+  }
+
+  @Test
+  public void suggestLabelsTest() {
+    assertEquals(2, index.suggest("label", null, null, 20).size());
+    assertEquals(1, index.suggest("labeleng", null, null, 20).size());
+    assertTrue(index.suggest("labeleng", LanguageRegion.SPANISH, null, 20).isEmpty());
+
+    List<SuggestResult> results = index.suggest("labeleng", LanguageRegion.ENGLISH, null, 20);
+    assertEquals(1, results.size());
+    assertEquals("labelenglish", results.get(0).getLabel());
+    assertEquals(LanguageRegion.ENGLISH, results.get(0).getLabelLanguage());
+
+    // accents and case are ignored
+    results = index.suggest("TILDE", LanguageRegion.PORTUGUESE, null, 20);
+    assertEquals(1, results.size());
+    assertEquals("tílDE", results.get(0).getLabel());
+    assertEquals(1, index.suggest("raiz", null, null, 20).size());
+  }
+
+  @Test
+  public void suggestFallbackLanguageTest() {
+    // concepts with a label in the language are not matched by name
+    assertTrue(index.suggest("su", LanguageRegion.ENGLISH, null, 20).isEmpty());
+    assertTrue(
+        index.suggest("su", LanguageRegion.ARPITAN, LanguageRegion.ENGLISH, 20).isEmpty());
+    assertEquals(
+        List.of("Suggest222"),
+        names(index.suggest("su", LanguageRegion.ARPITAN, LanguageRegion.SPANISH, 20)));
+    assertEquals(
+        2, index.suggest("su", LanguageRegion.ARPITAN, LanguageRegion.AFRIKAANS, 20).size());
+
+    List<SuggestResult> results =
+        index.suggest("labelsp", LanguageRegion.ARPITAN, LanguageRegion.SPANISH, 20);
+    assertEquals(1, results.size());
+    assertEquals(LanguageRegion.SPANISH, results.get(0).getLabelLanguage());
+  }
+
+  @Test
+  public void rankingTest() {
+    // the exact match goes first and then the prefix matches, and the infix ones at the end
+    assertEquals(
+        Arrays.asList("Suggest222", "Suggest111"), names(index.suggest("label", null, null, 20)));
+    assertEquals(
+        Arrays.asList("Suggest111", "Suggest222"),
+        names(index.suggest("l", LanguageRegion.ENGLISH, null, 20)));
+    assertEquals(List.of("Root"), names(index.suggest("raíz", null, null, 20)));
+    assertEquals(List.of("Suggest111"), names(index.suggest("english", null, null, 20)));
+  }
+
+  @Test
+  public void parentsTest() {
+    List<SuggestResult> results =
+        index.suggest("suggest222", LanguageRegion.ENGLISH, LanguageRegion.SPANISH, 20);
+    assertTrue(results.isEmpty());
+
+    results = index.suggest("suggest222", null, null, 20);
+    assertEquals(1, results.size());
+    assertEquals(1, results.get(0).getParents().size());
+    SuggestResult.Parent parent = results.get(0).getParents().get(0);
+    assertEquals("Root", parent.getName());
+    assertNull(parent.getLabel());
+
+    results = index.suggest("label", LanguageRegion.ENGLISH, LanguageRegion.SPANISH, 1);
+    parent = results.get(0).getParents().get(0);
+    assertEquals("raíz", parent.getLabel());
+    assertEquals(LanguageRegion.SPANISH, parent.getLabelLanguage());
+  }
+
+  @Test
+  public void limitTest() {
+    SuggestIndex limitIndex =
+        SuggestIndex.build(
+            Arrays.asList(
+                concept(1, "Zed", null, false),
+                concept(2, "Ab", null, false),
+                concept(3, "Abc", null, false),
+                concept(4, "Cab", null, false)),
+            Arrays.asList(
+                label(1, LanguageRegion.ENGLISH, "abc"), label(3, LanguageRegion.ENGLISH, "ab")));
+
+    // the prefix match of the label of Zed is dropped when the exact match of Ab is found
+    assertEquals(List.of("Ab", "Abc"), names(limitIndex.suggest("ab", null, null, 2)));
+    assertEquals(List.of("Ab", "Abc", "Zed"), names(limitIndex.suggest("ab", null, null, 3)));
+    assertEquals(
+        List.of("Ab", "Abc", "Zed", "Cab"), names(limitIndex.suggest("ab", null, null, 10)));
+    assertTrue(limitIndex.suggest("ab", null, null, 0).isEmpty());
+  }
+
+  private static Concept concept(long key, String name, Long parentKey, boolean deprecated) {
+    Concept concept = new Concept();
+    concept.setKey(key);
+    concept.setName(name);
+    concept.setParentKey(parentKey);
+    if (deprecated) {
+      concept.setDeprecated(ZonedDateTime.now());
+    }
+    return concept;
+  }
+
+  private static ExportValueDto label(long conceptKey, LanguageRegion language, String value) {
+    ExportValueDto label = new ExportValueDto();
+    label.setConceptKey(conceptKey);
+    label.setLanguage(language);
+    label.setValue(value);
+    return label;
+  }
+
+  private static List<String> names(List<SuggestResult> results) {
+    return results.stream().map(SuggestResult::getName).collect(Collectors.toList());
+  }
+}
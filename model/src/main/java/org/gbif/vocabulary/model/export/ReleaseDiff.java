@@ -0,0 +1,93 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.vocabulary.model.export;
+
+import org.gbif.vocabulary.model.LanguageRegion;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Structural differences between two releases of a vocabulary. The concepts are identified by their
+ * names in the newer release, except the removed ones.
+ */
+@Data
+public class ReleaseDiff implements Serializable {
+
+  private String vocabularyName;
+  private String fromVersion;
+  private String toVersion;
+
+  /** Concepts that are only in the newer release. */
+  private List<String> addedConcepts = new ArrayList<>();
+
+  /** Concepts that are only in the older release. */
+  private List<String> removedConcepts = new ArrayList<>();
+
+  /** Concepts deprecated in the newer release. */
+  private List<String> deprecatedConcepts = new ArrayList<>();
+
+  /** Concepts deprecated in the older release that are not deprecated in the newer one. */
+  private List<String> restoredConcepts = new ArrayList<>();
+
+  private List<ConceptRename> renamedConcepts = new ArrayList<>();
+  private List<LabelChange> labelChanges = new ArrayList<>();
+  private List<ParentChange> parentChanges = new ArrayList<>();
+
+  public enum LabelType {
+    LABEL,
+    ALTERNATIVE_LABEL,
+    HIDDEN_LABEL
+  }
+
+  @Data
+  @NoArgsConstructor
+  @AllArgsConstructor
+  public static class ConceptRename implements Serializable {
+    private String oldName;
+    private String newName;
+  }
+
+  /**
+   * Values added and removed of a type of label of a concept in a language. The language is null
+   * for the hidden labels.
+   */
+  @Data
+  @NoArgsConstructor
+  @AllArgsConstructor
+  public static class LabelChange implements Serializable {
+    private String conceptName;
+    private LabelType type;
+    private LanguageRegion language;
+    private Set<String> added = new TreeSet<>();
+    private Set<String> removed = new TreeSet<>();
+  }
+
+  /** Move of a concept in the hierarchy. The parents are null for the top concepts. */
+  @Data
+  @NoArgsConstructor
+  @AllArgsConstructor
+  public static class ParentChange implements Serializable {
+    private String conceptName;
+    private String oldParent;
+    private String newParent;
+  }
+}
@@ -0,0 +1,41 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.vocabulary.model.export;
+
+import org.gbif.vocabulary.model.VocabularyRelease;
+
+import lombok.Builder;
+import lombok.Getter;
+
+/** Result of the release of a vocabulary when several vocabularies are released together. */
+@Getter
+@Builder
+public class ReleaseResult {
+
+  private final String vocabularyName;
+  private final String version;
+
+  /** Release created. It's null if the release failed. */
+  private final VocabularyRelease release;
+
+  /** Error message if the release failed. */
+  private final String error;
+
+  /** Time spent in the release of the vocabulary. */
+  private final long durationMillis;
+
+  public boolean isSuccessful() {
+    return release != null;
+  }
+}
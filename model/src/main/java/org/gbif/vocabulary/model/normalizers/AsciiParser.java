@@ -71,9 +71,9 @@ final class AsciiParser {
     if (input == null || input.isEmpty()) {
       return input;
     } else {
-      StringBuilder sb = new StringBuilder();
-      for (char c : input.toCharArray()) {
-        foldToASCII(c, sb);
+      StringBuilder sb = new StringBuilder(input.length());
+      for (int i = 0; i < input.length(); i++) {
+        foldToASCII(input.charAt(i), sb);
       }
       return sb.toString();
     }
@@ -86,7 +86,7 @@ final class AsciiParser {
    * @param c The character to fold
    * @param sb String builder to append to
    */
-  private static void foldToASCII(final char c, StringBuilder sb) {
+  static void foldToASCII(final char c, StringBuilder sb) {
     // Quick test: if it's not in range then just keep current character
     if (c < '\u0080') {
       sb.append(c);
@@ -0,0 +1,168 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.vocabulary.model.normalizers;
+
+import java.util.Locale;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+/**
+ * Normalizes names and labels and replaces their non-ASCII characters with their equivalents in
+ * one single pass.
+ *
+ * <p>The result is the same as calling {@link StringNormalizer#normalizeLabel(String)} or {@link
+ * StringNormalizer#normalizeName(String)} and then {@link
+ * StringNormalizer#replaceNonAsciiCharactersWithEquivalents(String)}, but without creating
+ * intermediate strings. If the value is already normalized the same instance is returned.
+ *
+ * <p>The characters whose lower case depends on the context or on the default locale (e.g.: the
+ * Greek capital sigma or the Turkish dotted I) are rare, so in those cases we fall back to the
+ * {@link StringNormalizer} methods to keep the results identical.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class AsciiStringNormalizer {
+
+  /**
+   * Version of the normalization. It has to be increased whenever the normalized values change,
+   * since they can be persisted (e.g.: in the snapshots of the vocabulary lookups).
+   */
+  public static final int VERSION = 1;
+
+  private static final char ASCII_LIMIT = '\u0080';
+  private static final char CAPITAL_I_WITH_DOT = '\u0130'; // İ
+  private static final char CAPITAL_SIGMA = '\u03A3'; // Σ
+
+  /**
+   * Same as {@link StringNormalizer#normalizeLabel(String)} followed by {@link
+   * StringNormalizer#replaceNonAsciiCharactersWithEquivalents(String)}.
+   *
+   * @param label label to normalize
+   * @return the label normalized. Null if the label was null
+   */
+  public static String normalizeLabel(String label) {
+    return normalize(label, false, null);
+  }
+
+  /**
+   * Same as {@link #normalizeLabel(String)} but it uses the buffer received instead of creating a
+   * new one. The buffer is cleared before using it.
+   *
+   * @param label label to normalize
+   * @param buffer buffer to use. It shouldn't be shared between threads
+   * @return the label normalized. Null if the label was null
+   */
+  public static String normalizeLabel(String label, StringBuilder buffer) {
+    return normalize(label, false, buffer);
+  }
+
+  /**
+   * Same as {@link StringNormalizer#normalizeName(String)} followed by {@link
+   * StringNormalizer#replaceNonAsciiCharactersWithEquivalents(String)}.
+   *
+   * @param name name to normalize
+   * @return the name normalized. Null if the name was null
+   */
+  public static String normalizeName(String name) {
+    return normalize(name, true, null);
+  }
+
+  /**
+   * Same as {@link #normalizeName(String)} but it uses the buffer received instead of creating a
+   * new one. The buffer is cleared before using it.
+   *
+   * @param name name to normalize
+   * @param buffer buffer to use. It shouldn't be shared between threads
+   * @return the name normalized. Null if the name was null
+   */
+  public static String normalizeName(String name, StringBuilder buffer) {
+    return normalize(name, true, buffer);
+  }
+
+  private static String normalize(String value, boolean isName, StringBuilder buffer) {
+    if (value == null) {
+      return null;
+    }
+
+    // fast path: lower case ASCII values without whitespaces don't change
+    int length = value.length();
+    int i = 0;
+    while (i < length) {
+      char c = value.charAt(i);
+      if (c >= ASCII_LIMIT || isUpperCaseAscii(c) || isRemovable(c, isName)) {
+        break;
+      }
+      i++;
+    }
+
+    if (i == length) {
+      return value;
+    }
+
+    if (hasLocaleSensitiveLowerCase(Locale.getDefault())) {
+      return slowNormalize(value, isName);
+    }
+
+    StringBuilder sb = buffer != null ? buffer : new StringBuilder(length);
+    sb.setLength(0);
+    sb.append(value, 0, i);
+    for (; i < length; i++) {
+      char c = value.charAt(i);
+      if (c < ASCII_LIMIT) {
+        if (!isRemovable(c, isName)) {
+          sb.append(isUpperCaseAscii(c) ? (char) (c + ('a' - 'A')) : c);
+        }
+      } else if (c == CAPITAL_I_WITH_DOT || c == CAPITAL_SIGMA || Character.isSurrogate(c)) {
+        // the lower case of these characters depends on the context
+        return slowNormalize(value, isName);
+      } else {
+        AsciiParser.foldToASCII(Character.toLowerCase(c), sb);
+      }
+    }
+
+    return sb.toString();
+  }
+
+  private static String slowNormalize(String value, boolean isName) {
+    return AsciiParser.parse(
+        isName ? StringNormalizer.normalizeName(value) : StringNormalizer.normalizeLabel(value));
+  }
+
+  private static boolean isUpperCaseAscii(char c) {
+    return c >= 'A' && c <= 'Z';
+  }
+
+  /** Same characters removed by the patterns used in {@link StringNormalizer}. */
+  private static boolean isRemovable(char c, boolean isName) {
+    switch (c) {
+      case ' ':
+      case '\t':
+      case '\n':
+      case '\u000B':
+      case '\f':
+      case '\r':
+        return true;
+      case '-':
+      case '_':
+        return isName;
+      default:
+        return false;
+    }
+  }
+
+  private static boolean hasLocaleSensitiveLowerCase(Locale locale) {
+    String language = locale.getLanguage();
+    return "tr".equals(language) || "az".equals(language) || "lt".equals(language);
+  }
+}
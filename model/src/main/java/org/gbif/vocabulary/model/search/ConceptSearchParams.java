@@ -37,6 +37,12 @@ public class ConceptSearchParams implements Serializable {
   private final List<String> tags;
   private final String hiddenLabel;
 
+  /**
+   * Key of the last concept of the previous page. When it's set, the concepts are ordered by key,
+   * only the ones with a greater key are returned and the offset of the page is ignored.
+   */
+  private final Long afterKey;
+
   public static ConceptSearchParams empty() {
     return builder().build();
   }
@@ -0,0 +1,91 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.vocabulary.model.utils;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+/**
+ * Utilities to work with gzip-compressed exports. The exports are JSON, so they can be told apart
+ * from the compressed ones by the gzip magic number.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class GzipUtils {
+
+  public static final String GZIP_ENCODING = "gzip";
+
+  private static final int MAGIC_1 = 0x1f;
+  private static final int MAGIC_2 = 0x8b;
+
+  /** Checks if the bytes are gzip-compressed. */
+  public static boolean isGzipped(byte[] bytes) {
+    return bytes != null
+        && bytes.length >= 2
+        && (bytes[0] & 0xff) == MAGIC_1
+        && (bytes[1] & 0xff) == MAGIC_2;
+  }
+
+  /**
+   * Returns a stream that decompresses the stream received if it's gzip-compressed, or the same
+   * content otherwise.
+   */
+  public static InputStream decompressIfGzipped(InputStream in) throws IOException {
+    InputStream buffered = in.markSupported() ? in : new BufferedInputStream(in);
+    buffered.mark(2);
+    int first = buffered.read();
+    int second = buffered.read();
+    buffered.reset();
+    return first == MAGIC_1 && second == MAGIC_2 ? new GZIPInputStream(buffered) : buffered;
+  }
+
+  /**
+   * Checks if the value of an Accept-Encoding header accepts gzip, e.g.: "gzip, deflate" or
+   * "*;q=0.5". Encodings with q=0 are not accepted.
+   */
+  public static boolean acceptsGzip(String acceptEncoding) {
+    if (acceptEncoding == null) {
+      return false;
+    }
+    // an explicit gzip takes precedence over the wildcard
+    boolean wildcardAccepted = false;
+    for (String encoding : acceptEncoding.split(",")) {
+      String[] parts = encoding.trim().split(";");
+      String name = parts[0].trim();
+      boolean accepted = parts.length < 2 || !isZeroQuality(parts[1]);
+      if (name.equalsIgnoreCase(GZIP_ENCODING)) {
+        return accepted;
+      } else if (name.equals("*")) {
+        wildcardAccepted = accepted;
+      }
+    }
+    return wildcardAccepted;
+  }
+
+  private static boolean isZeroQuality(String param) {
+    String[] keyValue = param.trim().split("=");
+    if (keyValue.length != 2 || !keyValue[0].trim().equalsIgnoreCase("q")) {
+      return false;
+    }
+    try {
+      return Double.parseDouble(keyValue[1].trim()) == 0;
+    } catch (NumberFormatException e) {
+      return false;
+    }
+  }
+}
@@ -25,4 +25,5 @@ public class PathUtils {
   public static final String TAGS_PATH = "vocabularyTags";
   public static final String LATEST_RELEASE_PATH = "latestRelease";
   public static final String VOCABULARY_EXPORT_PATH = "export";
+  public static final String VOCABULARY_RELEASE_DIFF_PATH = "diff";
 }
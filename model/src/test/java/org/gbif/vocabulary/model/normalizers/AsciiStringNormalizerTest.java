@@ -0,0 +1,84 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.vocabulary.model.normalizers;
+
+import java.util.Locale;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/** Tests the {@link AsciiStringNormalizer}. */
+public class AsciiStringNormalizerTest {
+
+  @Test
+  public void normalizeNameTest() {
+    assertEquals("samplename", AsciiStringNormalizer.normalizeName("_sample  -name  "));
+    assertEquals("aeiouanc", AsciiStringNormalizer.normalizeName("Á-É_Î oÜå Ñç"));
+    assertNull(AsciiStringNormalizer.normalizeName(null));
+  }
+
+  @Test
+  public void normalizeLabelTest() {
+    assertEquals("sampletext", AsciiStringNormalizer.normalizeLabel(" SamPLE  TEXT  "));
+    assertEquals("sample-te_xt", AsciiStringNormalizer.normalizeLabel(" SamPLE - TE_XT  "));
+    assertEquals("aeiouanc", AsciiStringNormalizer.normalizeLabel("Á É Î oÜå Ñç"));
+    assertNull(AsciiStringNormalizer.normalizeLabel(null));
+  }
+
+  @Test
+  public void alreadyNormalizedTest() {
+    String value = "already-normalized_value";
+    assertSame(value, AsciiStringNormalizer.normalizeLabel(value));
+    assertSame(value, AsciiStringNormalizer.normalizeLabel(value, new StringBuilder()));
+  }
+
+  @Test
+  public void reusableBufferTest() {
+    StringBuilder buffer = new StringBuilder("previous content");
+    assertEquals("february", AsciiStringNormalizer.normalizeLabel("Fe bruary", buffer));
+    assertEquals("fevrier", AsciiStringNormalizer.normalizeLabel("Février", buffer));
+  }
+
+  @Test
+  public void sameResultsAsStringNormalizerTest() {
+    Locale defaultLocale = Locale.getDefault();
+    try {
+      for (Locale locale : new Locale[] {Locale.ENGLISH, new Locale("tr"), new Locale("el")}) {
+        Locale.setDefault(locale);
+        for (char c = 0; c < Character.MAX_VALUE; c++) {
+          assertSameNormalization("A" + c + " b" + c + "-_");
+        }
+        assertSameNormalization("ΟΔΟΣ ΟΣΟΣ");
+        assertSameNormalization("İstanbul IĞDIR");
+        assertSameNormalization("Ab😀C");
+      }
+    } finally {
+      Locale.setDefault(defaultLocale);
+    }
+  }
+
+  private static void assertSameNormalization(String value) {
+    assertEquals(
+        StringNormalizer.replaceNonAsciiCharactersWithEquivalents(
+            StringNormalizer.normalizeLabel(value)),
+        AsciiStringNormalizer.normalizeLabel(value));
+    assertEquals(
+        StringNormalizer.replaceNonAsciiCharactersWithEquivalents(
+            StringNormalizer.normalizeName(value)),
+        AsciiStringNormalizer.normalizeName(value));
+  }
+}
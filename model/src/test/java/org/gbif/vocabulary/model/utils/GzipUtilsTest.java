@@ -0,0 +1,85 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.vocabulary.model.utils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** Tests the {@link GzipUtils}. */
+public class GzipUtilsTest {
+
+  private static final byte[] JSON = "{\"concepts\":[]}".getBytes(StandardCharsets.UTF_8);
+
+  @Test
+  public void isGzippedTest() throws IOException {
+    assertTrue(GzipUtils.isGzipped(gzip(JSON)));
+    assertFalse(GzipUtils.isGzipped(JSON));
+    assertFalse(GzipUtils.isGzipped(new byte[0]));
+    assertFalse(GzipUtils.isGzipped(null));
+  }
+
+  @Test
+  public void decompressIfGzippedTest() throws IOException {
+    try (InputStream in = GzipUtils.decompressIfGzipped(new ByteArrayInputStream(gzip(JSON)))) {
+      assertArrayEquals(JSON, readAll(in));
+    }
+    try (InputStream in = GzipUtils.decompressIfGzipped(new ByteArrayInputStream(JSON))) {
+      assertArrayEquals(JSON, readAll(in));
+    }
+    try (InputStream in = GzipUtils.decompressIfGzipped(new ByteArrayInputStream(new byte[0]))) {
+      assertArrayEquals(new byte[0], readAll(in));
+    }
+  }
+
+  @Test
+  public void acceptsGzipTest() {
+    assertTrue(GzipUtils.acceptsGzip("gzip"));
+    assertTrue(GzipUtils.acceptsGzip("deflate, GZIP;q=0.5"));
+    assertTrue(GzipUtils.acceptsGzip("br, *"));
+    assertTrue(GzipUtils.acceptsGzip("*;q=0, gzip"));
+    assertFalse(GzipUtils.acceptsGzip("gzip;q=0"));
+    assertFalse(GzipUtils.acceptsGzip("gzip;q=0.0, *"));
+    assertFalse(GzipUtils.acceptsGzip("deflate, br"));
+    assertFalse(GzipUtils.acceptsGzip(""));
+    assertFalse(GzipUtils.acceptsGzip(null));
+  }
+
+  private static byte[] gzip(byte[] bytes) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+      gzip.write(bytes);
+    }
+    return out.toByteArray();
+  }
+
+  private static byte[] readAll(InputStream in) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    byte[] buffer = new byte[256];
+    int read;
+    while ((read = in.read(buffer)) != -1) {
+      out.write(buffer, 0, read);
+    }
+    return out.toByteArray();
+  }
+}
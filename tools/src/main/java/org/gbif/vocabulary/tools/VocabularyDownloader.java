@@ -82,6 +82,25 @@ public class VocabularyDownloader {
    * @return {@link InputStream} with the vocabulary downloaded
    */
   public static InputStream downloadLatestVocabularyVersion(String apiUrl, String vocabularyName) {
+    VocabularyRelease release = getLatestRelease(apiUrl, vocabularyName);
+
+    Path vocabularyJsonFile = downloadVocabularyFile(release.getExportUrl());
+
+    try {
+      return vocabularyJsonFile != null ? Files.newInputStream(vocabularyJsonFile) : null;
+    } catch (IOException e) {
+      throw new IllegalArgumentException(String.format(ERROR_MSG, vocabularyName, apiUrl), e);
+    }
+  }
+
+  /**
+   * Gets the latest release of the requested vocabulary.
+   *
+   * @param apiUrl URL of the API where the release has to be retrieved from
+   * @param vocabularyName name of the vocabulary
+   * @return the latest {@link VocabularyRelease}
+   */
+  public static VocabularyRelease getLatestRelease(String apiUrl, String vocabularyName) {
     if (apiUrl == null || apiUrl.isEmpty()) {
       throw new IllegalArgumentException("API URL is required");
     }
@@ -117,9 +136,7 @@ public class VocabularyDownloader {
             "Couldn't find any release for the vocabulary: " + vocabularyName);
       }
 
-      Path vocabularyJsonFile = downloadVocabularyFile(release.getExportUrl());
-
-      return vocabularyJsonFile != null ? Files.newInputStream(vocabularyJsonFile) : null;
+      return release;
     } catch (IOException e) {
       throw new IllegalArgumentException(String.format(ERROR_MSG, vocabularyName, apiUrl), e);
     }
@@ -141,7 +158,8 @@ public class VocabularyDownloader {
     Request request = new Request.Builder().url(url).build();
     try (Response response = HTTP_CLIENT.newCall(request).execute()) {
 
-      // the response returns a json file
+      // the response returns a json file. The compressed exports are decompressed transparently
+      // since the http client requests gzip and decompresses the response
       Path downloadedFile =
           Files.createTempFile("download-" + Instant.now().toEpochMilli(), ".json");
       Files.copy(response.body().byteStream(), downloadedFile, StandardCopyOption.REPLACE_EXISTING);
@@ -0,0 +1,134 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.vocabulary.benchmarks;
+
+import org.gbif.vocabulary.lookup.InMemoryVocabularyLookup;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the time to load a vocabulary export in a {@link InMemoryVocabularyLookup} and the
+ * heap retained by the lookup once it's loaded, compared to opening a snapshot of the same
+ * vocabulary.
+ *
+ * <p>The allocations during the load can be measured by running it with the GC profiler: {@code
+ * -prof gc}.
+ */
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgs = {"-Xms2g", "-Xmx2g"})
+public class ExportLoadBenchmark {
+
+  private static final MemoryMXBean MEMORY = ManagementFactory.getMemoryMXBean();
+
+  @Param({"LIFE_STAGE", "GEO_TIME", "SYNTHETIC"})
+  private VocabularyFixture vocabulary;
+
+  private Path snapshot;
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException {
+    // creates the export and the snapshot before the measurements
+    vocabulary.export();
+    snapshot = Files.createTempFile(vocabulary.name(), ".snapshot");
+    vocabulary.newLookup(null).writeSnapshot(snapshot);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    Files.deleteIfExists(snapshot);
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @Warmup(iterations = 3, time = 5)
+  @Measurement(iterations = 5, time = 5)
+  public InMemoryVocabularyLookup load() {
+    return vocabulary.newLookup(null);
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @Warmup(iterations = 3, time = 5)
+  @Measurement(iterations = 5, time = 5)
+  public InMemoryVocabularyLookup openSnapshot() {
+    return InMemoryVocabularyLookup.newBuilder().fromSnapshot(snapshot).build();
+  }
+
+  /**
+   * Loads the vocabulary once per iteration and reports the heap retained by the lookup in the
+   * {@code retainedBytes} counter.
+   */
+  @Benchmark
+  @BenchmarkMode(Mode.SingleShotTime)
+  @Warmup(iterations = 2)
+  @Measurement(iterations = 5)
+  public InMemoryVocabularyLookup retainedHeap(HeapCounters counters) {
+    long before = usedHeapAfterGc();
+    InMemoryVocabularyLookup lookup = vocabulary.newLookup(null);
+    counters.retainedBytes = usedHeapAfterGc() - before;
+    return lookup;
+  }
+
+  /** Same as {@link #retainedHeap(HeapCounters)} but opening the snapshot of the vocabulary. */
+  @Benchmark
+  @BenchmarkMode(Mode.SingleShotTime)
+  @Warmup(iterations = 2)
+  @Measurement(iterations = 5)
+  public InMemoryVocabularyLookup snapshotRetainedHeap(HeapCounters counters) {
+    long before = usedHeapAfterGc();
+    InMemoryVocabularyLookup lookup = openSnapshot();
+    counters.retainedBytes = usedHeapAfterGc() - before;
+    return lookup;
+  }
+
+  private static long usedHeapAfterGc() {
+    for (int i = 0; i < 3; i++) {
+      System.gc();
+    }
+    return MEMORY.getHeapMemoryUsage().getUsed();
+  }
+
+  /** Counters reported along with the results of the benchmark. */
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  public static class HeapCounters {
+    public long retainedBytes;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+      retainedBytes = 0;
+    }
+  }
+}
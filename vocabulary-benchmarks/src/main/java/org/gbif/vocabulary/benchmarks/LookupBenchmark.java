@@ -0,0 +1,138 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.vocabulary.benchmarks;
+
+import org.gbif.vocabulary.lookup.InMemoryVocabularyLookup;
+import org.gbif.vocabulary.lookup.LookupConcept;
+import org.gbif.vocabulary.lookup.PreFilters;
+import org.gbif.vocabulary.model.LanguageRegion;
+
+import java.io.ByteArrayInputStream;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks {@link InMemoryVocabularyLookup#lookup(String, LanguageRegion)} with different kinds
+ * of values: hits, misses, label ties that need the language and values that need prefilters.
+ *
+ * <p>Each invocation looks up the next value of the workload, so the results are per lookup.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LookupBenchmark {
+
+  private static final int BATCH_SIZE = 1024;
+
+  @Param({"LIFE_STAGE", "GEO_TIME", "SYNTHETIC"})
+  private VocabularyFixture vocabulary;
+
+  private InMemoryVocabularyLookup lookup;
+  private InMemoryVocabularyLookup prefilteredLookup;
+  private InMemoryVocabularyLookup missCacheLookup;
+
+  private String[] hits;
+  private String[] misses;
+  private String[] ties;
+  private String[] prefilteredHits;
+  private String[] batch;
+  private LookupConcept[] batchResults;
+  private int index;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    lookup = vocabulary.newLookup(null);
+    prefilteredLookup =
+        vocabulary.newLookup(
+            PreFilters.REMOVE_NUMERIC_PREFIX.andThen(PreFilters.REMOVE_PARENTHESIS_CONTENT_SUFFIX));
+    missCacheLookup =
+        InMemoryVocabularyLookup.newBuilder()
+            .from(new ByteArrayInputStream(vocabulary.export()))
+            .withMissCache(10_000)
+            .build();
+
+    hits = vocabulary.hits();
+    misses = vocabulary.misses();
+    ties = vocabulary.ties();
+    prefilteredHits = vocabulary.prefilteredHits();
+
+    // a batch with hits, misses and duplicates as found in the occurrence records
+    batch = new String[BATCH_SIZE];
+    for (int i = 0; i < BATCH_SIZE; i++) {
+      batch[i] = i % 4 == 0 ? misses[i % 64] : hits[i % 256];
+    }
+    batchResults = new LookupConcept[BATCH_SIZE];
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    lookup.close();
+    prefilteredLookup.close();
+    missCacheLookup.close();
+  }
+
+  private String next(String[] values) {
+    index = (index + 1) & (values.length - 1);
+    return values[index];
+  }
+
+  @Benchmark
+  public Optional<LookupConcept> hit() {
+    return lookup.lookup(next(hits));
+  }
+
+  @Benchmark
+  public Optional<LookupConcept> miss() {
+    return lookup.lookup(next(misses));
+  }
+
+  @Benchmark
+  public Optional<LookupConcept> missWithMissCache() {
+    return missCacheLookup.lookup(next(misses));
+  }
+
+  @Benchmark
+  public Optional<LookupConcept> languageTie() {
+    return lookup.lookup(next(ties), LanguageRegion.GERMAN);
+  }
+
+  @Benchmark
+  public Optional<LookupConcept> prefilterChain() {
+    return prefilteredLookup.lookup(next(prefilteredHits));
+  }
+
+  @Benchmark
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  public LookupConcept[] batch() {
+    lookup.lookupBatch(batch, null, batchResults);
+    return batchResults;
+  }
+}
@@ -0,0 +1,76 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.vocabulary.benchmarks;
+
+import org.gbif.vocabulary.model.normalizers.AsciiStringNormalizer;
+import org.gbif.vocabulary.model.normalizers.StringNormalizer;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the normalization applied to every value looked up and to every label indexed.
+ *
+ * <p>It compares the {@link StringNormalizer} regex based normalization, the ASCII folding and the
+ * single pass {@link AsciiStringNormalizer}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NormalizerBenchmark {
+
+  @Param({"adult", "Adult Female", "  Juvénile   Mâle  ", "Ĳsselmeer Ōkami Œuvre Straße"})
+  private String value;
+
+  private final StringBuilder buffer = new StringBuilder();
+
+  @Benchmark
+  public String normalizeLabel() {
+    return StringNormalizer.normalizeLabel(value);
+  }
+
+  @Benchmark
+  public String replaceNonAsciiCharacters() {
+    return StringNormalizer.replaceNonAsciiCharactersWithEquivalents(value);
+  }
+
+  @Benchmark
+  public String normalizeLabelAndReplaceNonAsciiCharacters() {
+    return StringNormalizer.replaceNonAsciiCharactersWithEquivalents(
+        StringNormalizer.normalizeLabel(value));
+  }
+
+  @Benchmark
+  public String asciiStringNormalizer() {
+    return AsciiStringNormalizer.normalizeLabel(value);
+  }
+
+  @Benchmark
+  public String asciiStringNormalizerWithBuffer() {
+    return AsciiStringNormalizer.normalizeLabel(value, buffer);
+  }
+}
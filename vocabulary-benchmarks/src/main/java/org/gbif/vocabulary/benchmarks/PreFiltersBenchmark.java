@@ -0,0 +1,73 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.vocabulary.benchmarks;
+
+import org.gbif.vocabulary.lookup.PreFilters;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Benchmarks the predefined {@link PreFilters} and a chain of them. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PreFiltersBenchmark {
+
+  private static final Function<String, String> CHAIN =
+      PreFilters.REMOVE_SIGNED_DECIMAL_NUMBERS_PREFIX
+          .andThen(PreFilters.REMOVE_PARENTHESIS_CONTENT_SUFFIX)
+          .andThen(PreFilters.REMOVE_NON_ALPHANUMERIC);
+
+  @Param({"adult", "-12.5 adult (female)", "3 juveniles, 2 adults (counted on 2020-01-01)"})
+  private String value;
+
+  @Benchmark
+  public String removeNonAlphanumeric() {
+    return PreFilters.REMOVE_NON_ALPHANUMERIC.apply(value);
+  }
+
+  @Benchmark
+  public String removeNumericPrefix() {
+    return PreFilters.REMOVE_NUMERIC_PREFIX.apply(value);
+  }
+
+  @Benchmark
+  public String removeSignedDecimalNumbersPrefix() {
+    return PreFilters.REMOVE_SIGNED_DECIMAL_NUMBERS_PREFIX.apply(value);
+  }
+
+  @Benchmark
+  public String removeParenthesisContentSuffix() {
+    return PreFilters.REMOVE_PARENTHESIS_CONTENT_SUFFIX.apply(value);
+  }
+
+  @Benchmark
+  public String chain() {
+    return CHAIN.apply(value);
+  }
+}
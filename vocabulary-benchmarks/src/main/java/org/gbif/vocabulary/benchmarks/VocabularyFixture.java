@@ -0,0 +1,317 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.vocabulary.benchmarks;
+
+import org.gbif.vocabulary.lookup.InMemoryVocabularyLookup;
+import org.gbif.vocabulary.model.LanguageRegion;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Vocabulary exports used in the benchmarks and the raw values to look up in them.
+ *
+ * <ul>
+ *   <li>{@link #LIFE_STAGE}: the real LifeStage export, a small and flat vocabulary.
+ *   <li>{@link #GEO_TIME}: a generated vocabulary with the shape of GeologicTime, 5 levels of
+ *       eons, eras, periods, epochs and ages.
+ *   <li>{@link #SYNTHETIC}: a generated vocabulary with 50k concepts in 4 languages.
+ * </ul>
+ *
+ * <p>The raw values are created from the labels of the export with the kind of variations found in
+ * the occurrence data (case, whitespaces, accents), so they go through the whole normalization.
+ */
+public enum VocabularyFixture {
+  LIFE_STAGE {
+    @Override
+    byte[] createExport() {
+      try (InputStream in =
+          VocabularyFixture.class.getClassLoader().getResourceAsStream("fixtures/LifeStage.json")) {
+        return in.readAllBytes();
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+  },
+  GEO_TIME {
+    @Override
+    byte[] createExport() {
+      return generateExport("GeoTime", new int[] {4, 3, 4, 3, 4});
+    }
+  },
+  SYNTHETIC {
+    @Override
+    byte[] createExport() {
+      return generateExport("Synthetic", new int[] {50, 20, 50});
+    }
+  };
+
+  private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+  private static final int VALUES_SIZE = 4096;
+  private static final long SEED = 42L;
+
+  private static final LanguageRegion[] LANGUAGES = {
+    LanguageRegion.ENGLISH, LanguageRegion.SPANISH, LanguageRegion.FRENCH, LanguageRegion.GERMAN
+  };
+
+  private byte[] export;
+
+  abstract byte[] createExport();
+
+  /** The export of the vocabulary in JSON, the same format returned by the API. */
+  public synchronized byte[] export() {
+    if (export == null) {
+      export = createExport();
+    }
+    return export;
+  }
+
+  /** Creates a new lookup for this vocabulary. */
+  public InMemoryVocabularyLookup newLookup(Function<String, String> prefilter) {
+    return InMemoryVocabularyLookup.newBuilder()
+        .from(new ByteArrayInputStream(export()))
+        .withPrefilter(prefilter)
+        .build();
+  }
+
+  /** Raw values that match a concept by name, label or hidden label. */
+  public String[] hits() {
+    List<String> values = new ArrayList<>();
+    Random random = new Random(SEED);
+    forEachConcept(
+        c -> {
+          values.add(c.get("name").asText());
+          forEachLabel(c, values::add);
+          c.path("hiddenLabels").forEach(l -> values.add(l.asText()));
+        });
+    return sample(values, random, v -> vary(v, random));
+  }
+
+  /** Raw values that don't match any concept: typos and free text. */
+  public String[] misses() {
+    Random random = new Random(SEED);
+    String[] hits = hits();
+    String[] misses = new String[VALUES_SIZE];
+    for (int i = 0; i < misses.length; i++) {
+      String hit = hits[i % hits.length];
+      misses[i] =
+          random.nextBoolean() ? hit + " ?" + i : "unknown value " + Integer.toHexString(i);
+    }
+    return misses;
+  }
+
+  /**
+   * Raw values whose label is shared by several concepts in different languages, so the language
+   * is needed to resolve them. If the vocabulary doesn't have such labels it returns the hits.
+   */
+  public String[] ties() {
+    Map<String, Set<Long>> conceptsByLabel = new HashMap<>();
+    forEachConcept(
+        c ->
+            forEachLabel(
+                c,
+                l ->
+                    conceptsByLabel
+                        .computeIfAbsent(simpleNormalization(l), k -> new HashSet<>())
+                        .add(c.get("key").asLong())));
+
+    List<String> values = new ArrayList<>();
+    forEachConcept(
+        c ->
+            forEachLabel(
+                c,
+                l -> {
+                  if (conceptsByLabel.get(simpleNormalization(l)).size() > 1) {
+                    values.add(l);
+                  }
+                }));
+
+    return values.isEmpty() ? hits() : sample(values, new Random(SEED), Function.identity());
+  }
+
+  /** Hits surrounded by the noise that the prefilters remove. */
+  public String[] prefilteredHits() {
+    String[] hits = hits();
+    String[] values = new String[hits.length];
+    for (int i = 0; i < hits.length; i++) {
+      values[i] = (i % 100) + " " + hits[i] + " (" + i + ")";
+    }
+    return values;
+  }
+
+  private void forEachConcept(Consumer<JsonNode> consumer) {
+    try {
+      OBJECT_MAPPER.readTree(export()).get("concepts").forEach(consumer);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private static void forEachLabel(JsonNode concept, Consumer<String> consumer) {
+    concept.path("label").forEach(l -> consumer.accept(l.asText()));
+    concept.path("alternativeLabels").forEach(alt -> alt.forEach(l -> consumer.accept(l.asText())));
+  }
+
+  private static String simpleNormalization(String label) {
+    return label.toLowerCase(Locale.ROOT).replace(" ", "");
+  }
+
+  private static String[] sample(
+      List<String> values, Random random, Function<String, String> transformation) {
+    String[] sample = new String[VALUES_SIZE];
+    for (int i = 0; i < sample.length; i++) {
+      sample[i] = transformation.apply(values.get(random.nextInt(values.size())));
+    }
+    return sample;
+  }
+
+  private static String vary(String value, Random random) {
+    switch (random.nextInt(4)) {
+      case 0:
+        return value.toUpperCase(Locale.ROOT);
+      case 1:
+        return "  " + value + " ";
+      case 2:
+        return value.toLowerCase(Locale.ROOT);
+      default:
+        return value;
+    }
+  }
+
+  /**
+   * Generates a vocabulary export with a tree of concepts.
+   *
+   * @param vocabularyName name of the vocabulary
+   * @param fanOut number of children of each concept per level. The first element is the number of
+   *     root concepts
+   */
+  private static byte[] generateExport(String vocabularyName, int[] fanOut) {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (JsonGenerator gen = OBJECT_MAPPER.getFactory().createGenerator(out)) {
+      gen.writeStartObject();
+      gen.writeObjectFieldStart("metadata");
+      gen.writeStringField("createdDate", "2024-01-01T00:00:00.000");
+      gen.writeStringField("version", "1.0");
+      gen.writeEndObject();
+
+      gen.writeObjectFieldStart("vocabulary");
+      gen.writeNumberField("key", 1);
+      gen.writeStringField("name", vocabularyName);
+      gen.writeEndObject();
+
+      gen.writeArrayFieldStart("concepts");
+      writeConcepts(gen, fanOut, 0, null, new long[] {1});
+      gen.writeEndArray();
+      gen.writeEndObject();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return out.toByteArray();
+  }
+
+  private static void writeConcepts(
+      JsonGenerator gen, int[] fanOut, int level, Long parentKey, long[] nextKey)
+      throws IOException {
+    if (level == fanOut.length) {
+      return;
+    }
+
+    for (int i = 0; i < fanOut[level]; i++) {
+      long key = nextKey[0]++;
+      writeConcept(gen, key, level, parentKey);
+      writeConcepts(gen, fanOut, level + 1, key, nextKey);
+    }
+  }
+
+  private static void writeConcept(JsonGenerator gen, long key, int level, Long parentKey)
+      throws IOException {
+    gen.writeStartObject();
+    gen.writeNumberField("key", key);
+    gen.writeStringField("name", "Level" + level + "Concept" + key);
+    gen.writeNumberField("vocabularyKey", 1);
+    if (parentKey != null) {
+      gen.writeNumberField("parentKey", parentKey);
+    } else {
+      gen.writeNullField("parentKey");
+    }
+
+    gen.writeObjectFieldStart("label");
+    gen.writeStringField(LanguageRegion.ENGLISH.getLocale(), "Concept " + key);
+    gen.writeStringField(LanguageRegion.SPANISH.getLocale(), "Concepto número " + key);
+    gen.writeStringField(LanguageRegion.FRENCH.getLocale(), "Concept français " + key);
+    gen.writeStringField(LanguageRegion.GERMAN.getLocale(), "Begriff " + key);
+    gen.writeEndObject();
+
+    gen.writeObjectFieldStart("definition");
+    for (LanguageRegion language : LANGUAGES) {
+      gen.writeStringField(
+          language.getLocale(),
+          "Definition of the concept " + key + " of the level " + level + " in " + language);
+    }
+    gen.writeEndObject();
+
+    gen.writeObjectFieldStart("alternativeLabels");
+    gen.writeArrayFieldStart(LanguageRegion.ENGLISH.getLocale());
+    gen.writeString("Alt concept " + key);
+    gen.writeString("C-" + key);
+    gen.writeEndArray();
+    if (key % 2 == 1) {
+      // the German label of the previous concept is also a Spanish label of this one, so the
+      // language is needed to break the tie
+      gen.writeArrayFieldStart(LanguageRegion.SPANISH.getLocale());
+      gen.writeString("Begriff " + (key - 1));
+      gen.writeEndArray();
+    }
+    gen.writeEndObject();
+
+    gen.writeArrayFieldStart("hiddenLabels");
+    gen.writeString("concept_" + key);
+    gen.writeEndArray();
+
+    gen.writeArrayFieldStart("tags");
+    gen.writeString("level" + level);
+    gen.writeEndArray();
+
+    gen.writeArrayFieldStart("externalDefinitions");
+    gen.writeString("https://example.org/concepts/" + key);
+    gen.writeEndArray();
+    gen.writeArrayFieldStart("editorialNotes");
+    gen.writeEndArray();
+    gen.writeArrayFieldStart("sameAsUris");
+    gen.writeEndArray();
+
+    gen.writeStringField("created", "2024-01-01T00:00:00.000");
+    gen.writeStringField("createdBy", "benchmark");
+    gen.writeStringField("modified", "2024-01-01T00:00:00.000");
+    gen.writeStringField("modifiedBy", "benchmark");
+    gen.writeEndObject();
+  }
+}
@@ -50,6 +50,7 @@ import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Strings;
 import com.opencsv.CSVParser;
@@ -331,7 +332,7 @@ public class VocabularyImporter {
               targetVocabularyClient.addLabel(vocabularyName, l);
             });
 
-    List<Concept> concepts = getVocabularyConcepts(vocabularyName);
+    List<Concept> concepts = getVocabularyConcepts(conceptClient, vocabularyName);
     concepts.stream()
         .filter(c -> c.getParentKey() == null)
         .forEach(
@@ -736,18 +737,25 @@ public class VocabularyImporter {
     }
   }
 
-  private List<Concept> getVocabularyConcepts(String vocabularyName) {
-    int offset = 0;
+  @VisibleForTesting
+  static List<Concept> getVocabularyConcepts(ConceptClient conceptClient, String vocabularyName) {
     int limit = 100;
+    // the first page has to be ordered by key too, otherwise the next pages could skip concepts
+    long afterKey = 0L;
 
     boolean endOfRecords = false;
     List<ConceptView> conceptViews = new ArrayList<>();
     while (!endOfRecords) {
-      ConceptListParams params = ConceptListParams.builder().offset(offset).limit(limit).build();
+      // keyset pagination, so every page costs the same regardless of its depth
+      ConceptListParams params =
+          ConceptListParams.builder().afterKey(afterKey).limit(limit).build();
       PagingResponse<ConceptView> response = conceptClient.listConcepts(vocabularyName, params);
-      endOfRecords = response.isEndOfRecords();
+      endOfRecords = response.isEndOfRecords() || response.getResults().isEmpty();
       conceptViews.addAll(response.getResults());
-      offset += limit;
+      if (!response.getResults().isEmpty()) {
+        afterKey =
+            response.getResults().get(response.getResults().size() - 1).getConcept().getKey();
+      }
     }
 
     return conceptViews.stream().map(ConceptView::getConcept).collect(Collectors.toList());
@@ -0,0 +1,100 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.vocabulary.importer;
+
+import org.gbif.api.model.common.paging.PagingRequest;
+import org.gbif.api.model.common.paging.PagingResponse;
+import org.gbif.vocabulary.api.ConceptListParams;
+import org.gbif.vocabulary.api.ConceptView;
+import org.gbif.vocabulary.client.ConceptClient;
+import org.gbif.vocabulary.model.Concept;
+
+import java.lang.reflect.Proxy;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class VocabularyImporterTest {
+
+  @Test
+  void shouldGetAllConceptsWhenCreationOrderDiffersFromKeyOrder() {
+    // the concepts weren't created in the same order as their keys
+    List<Concept> concepts = new ArrayList<>();
+    ZonedDateTime now = ZonedDateTime.now();
+    for (long key = 1; key <= 250; key++) {
+      Concept concept = new Concept();
+      concept.setKey(key);
+      concept.setName("c" + key);
+      concept.setCreated(now.minusMinutes(key * 37 % 250));
+      concepts.add(concept);
+    }
+
+    List<Concept> result =
+        VocabularyImporter.getVocabularyConcepts(conceptClient(concepts), "Test");
+
+    assertEquals(
+        concepts.stream().map(Concept::getKey).collect(Collectors.toList()),
+        result.stream().map(Concept::getKey).sorted().collect(Collectors.toList()));
+  }
+
+  /** Client that lists the concepts as the API does. */
+  private static ConceptClient conceptClient(List<Concept> concepts) {
+    return (ConceptClient)
+        Proxy.newProxyInstance(
+            ConceptClient.class.getClassLoader(),
+            new Class<?>[] {ConceptClient.class},
+            (proxy, method, args) -> {
+              if (!method.getName().equals("listConcepts")) {
+                throw new UnsupportedOperationException(method.getName());
+              }
+              return listConcepts(concepts, (ConceptListParams) args[1]);
+            });
+  }
+
+  private static PagingResponse<ConceptView> listConcepts(
+      List<Concept> concepts, ConceptListParams params) {
+    Stream<Concept> stream = concepts.stream();
+    if (params.getAfterKey() != null) {
+      // keyset pagination ignores the offset and sorts by key
+      stream =
+          stream
+              .filter(c -> c.getKey() > params.getAfterKey())
+              .sorted(Comparator.comparing(Concept::getKey));
+    } else {
+      stream =
+          stream
+              .sorted(
+                  Comparator.comparing(Concept::getCreated)
+                      .reversed()
+                      .thenComparing(Concept::getKey))
+              .skip(params.getOffset());
+    }
+
+    List<Concept> matches = stream.collect(Collectors.toList());
+    List<ConceptView> results =
+        matches.stream()
+            .limit(params.getLimit())
+            .map(ConceptView::new)
+            .collect(Collectors.toList());
+    return new PagingResponse<>(
+        new PagingRequest(0, params.getLimit()), (long) matches.size(), results);
+  }
+}
@@ -0,0 +1,215 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.vocabulary.lookup;
+
+import org.gbif.vocabulary.model.Concept;
+import org.gbif.vocabulary.model.LanguageRegion;
+import org.gbif.vocabulary.model.export.ConceptExportView;
+import org.gbif.vocabulary.model.export.Export;
+import org.gbif.vocabulary.model.utils.GzipUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.fasterxml.jackson.datatype.jsr310.deser.LocalDateTimeDeserializer;
+
+/**
+ * Reads a vocabulary export with a streaming parser and adds each concept to a {@link
+ * LookupIndex.Builder} as soon as it's read.
+ *
+ * <p>The export is never fully bound to an {@link Export}, and the fields that the lookup doesn't
+ * use (definitions, editorial notes and external definitions) are skipped, so the memory needed
+ * during the load is bounded by the size of the index.
+ */
+final class ExportReader {
+
+  // also used to write the concepts of the snapshots, so the dates have to be written as text
+  static final ObjectMapper OBJECT_MAPPER =
+      new ObjectMapper()
+          .registerModule(
+              new JavaTimeModule()
+                  .addDeserializer(ZonedDateTime.class, new ZonedDateTimeDeserializer()))
+          .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+          .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+  private static final String LABEL = "label";
+  private static final String ALTERNATIVE_LABELS = "alternativeLabels";
+  private static final String HIDDEN_LABELS = "hiddenLabels";
+  private static final String TAGS = "tags";
+  private static final String DEFINITION = "definition";
+  private static final String EXTERNAL_DEFINITIONS = "externalDefinitions";
+  private static final String EDITORIAL_NOTES = "editorialNotes";
+
+  private final JsonParser parser;
+  private final Map<String, LanguageRegion> languages = new HashMap<>();
+
+  private ExportReader(JsonParser parser) {
+    this.parser = parser;
+  }
+
+  /**
+   * Reads the export and adds all its concepts to the index builder.
+   *
+   * @param in export of the vocabulary. It's decompressed if it's gzip-compressed
+   * @param indexBuilder builder where the concepts are added
+   */
+  static void read(InputStream in, LookupIndex.Builder indexBuilder) throws IOException {
+    try (JsonParser parser =
+        OBJECT_MAPPER.getFactory().createParser(GzipUtils.decompressIfGzipped(in))) {
+      new ExportReader(parser).readExport(indexBuilder);
+    }
+  }
+
+  private void readExport(LookupIndex.Builder indexBuilder) throws IOException {
+    expect(parser.nextToken(), JsonToken.START_OBJECT);
+
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String field = parser.getCurrentName();
+      JsonToken token = parser.nextToken();
+
+      if (Export.CONCEPTS_PROP.equals(field) && token == JsonToken.START_ARRAY) {
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+          indexBuilder.addConcept(readConcept());
+        }
+      } else {
+        // the metadata and the vocabulary are not needed for the lookups
+        parser.skipChildren();
+      }
+    }
+  }
+
+  private ConceptExportView readConcept() throws IOException {
+    ConceptExportView conceptExport = new ConceptExportView();
+    // the fields of the concept are collected in a tree to bind them to the Concept at the end
+    ObjectNode conceptNode = OBJECT_MAPPER.createObjectNode();
+
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String field = parser.getCurrentName();
+      JsonToken token = parser.nextToken();
+
+      if (token == JsonToken.VALUE_NULL) {
+        conceptNode.putNull(field);
+        continue;
+      }
+
+      switch (field) {
+        case LABEL:
+          readLabels(conceptExport.getLabel());
+          break;
+        case ALTERNATIVE_LABELS:
+          readAlternativeLabels(conceptExport.getAlternativeLabels());
+          break;
+        case HIDDEN_LABELS:
+          readValues(conceptExport.getHiddenLabels());
+          break;
+        case TAGS:
+          readValues(conceptExport.getTags());
+          break;
+        case DEFINITION:
+        case EXTERNAL_DEFINITIONS:
+        case EDITORIAL_NOTES:
+          parser.skipChildren();
+          break;
+        default:
+          conceptNode.set(field, OBJECT_MAPPER.readTree(parser));
+      }
+    }
+
+    conceptExport.setConcept(OBJECT_MAPPER.treeToValue(conceptNode, Concept.class));
+    return conceptExport;
+  }
+
+  private void readLabels(Map<LanguageRegion, String> labels) throws IOException {
+    expect(parser.currentToken(), JsonToken.START_OBJECT);
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      LanguageRegion language = language(parser.getCurrentName());
+      // null values are skipped as if the label wasn't there
+      if (parser.nextToken() != JsonToken.VALUE_NULL) {
+        expect(parser.currentToken(), JsonToken.VALUE_STRING);
+        labels.put(language, parser.getText());
+      }
+    }
+  }
+
+  private void readAlternativeLabels(Map<LanguageRegion, Set<String>> labels) throws IOException {
+    expect(parser.currentToken(), JsonToken.START_OBJECT);
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      LanguageRegion language = language(parser.getCurrentName());
+      parser.nextToken();
+      readValues(labels.computeIfAbsent(language, l -> new HashSet<>()));
+    }
+  }
+
+  private void readValues(Set<String> values) throws IOException {
+    expect(parser.currentToken(), JsonToken.START_ARRAY);
+    JsonToken token;
+    while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+      // null elements are skipped
+      if (token != JsonToken.VALUE_NULL) {
+        expect(token, JsonToken.VALUE_STRING);
+        values.add(parser.getText());
+      }
+    }
+  }
+
+  private LanguageRegion language(String locale) {
+    // the same few locales are repeated in all the concepts
+    return languages.computeIfAbsent(locale, LanguageRegion::fromLocale);
+  }
+
+  private void expect(JsonToken actual, JsonToken expected) throws IOException {
+    if (actual != expected) {
+      throw new IOException(
+          "Unexpected token "
+              + actual
+              + " in the vocabulary export, expected "
+              + expected
+              + " at "
+              + parser.getCurrentLocation());
+    }
+  }
+
+  private static class ZonedDateTimeDeserializer extends JsonDeserializer<ZonedDateTime> {
+
+    private final LocalDateTimeDeserializer localDateTimeDeserializer =
+        new LocalDateTimeDeserializer(DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+
+    @Override
+    public ZonedDateTime deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+
+      // try first with timezone, otherwise without it
+      try {
+        return ZonedDateTime.parse(p.getText(), DateTimeFormatter.ISO_OFFSET_DATE_TIME);
+      } catch (Exception ex) {
+        return localDateTimeDeserializer.deserialize(p, ctxt).atZone(ZoneId.systemDefault());
+      }
+    }
+  }
+}
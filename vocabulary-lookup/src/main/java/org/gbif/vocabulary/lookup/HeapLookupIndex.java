@@ -0,0 +1,53 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.vocabulary.lookup;
+
+/**
+ * {@link LookupIndex} that keeps all the concepts and the normalized names and labels in the heap.
+ *
+ * <p>It is created by a {@link LookupIndex.Builder} when a vocabulary export is loaded.
+ */
+final class HeapLookupIndex extends LookupIndex {
+
+  final LookupConcept[] concepts;
+  final StringIndex<LookupConcept> names;
+  final StringIndex<LabelMatch> labels;
+  final StringIndex<LookupConcept> hiddenLabels;
+
+  HeapLookupIndex(
+      LookupConcept[] concepts,
+      StringIndex<LookupConcept> names,
+      StringIndex<LabelMatch> labels,
+      StringIndex<LookupConcept> hiddenLabels) {
+    this.concepts = concepts;
+    this.names = names;
+    this.labels = labels;
+    this.hiddenLabels = hiddenLabels;
+  }
+
+  @Override
+  LookupConcept getByName(String name) {
+    return names.get(name);
+  }
+
+  @Override
+  LabelMatch getByLabel(String label) {
+    return labels.get(label);
+  }
+
+  @Override
+  LookupConcept getByHiddenLabel(String hiddenLabel) {
+    return hiddenLabels.get(hiddenLabel);
+  }
+}
@@ -13,45 +13,31 @@
  */
 package org.gbif.vocabulary.lookup;
 
+import org.gbif.vocabulary.lookup.LookupIndex.LabelMatch;
 import org.gbif.vocabulary.model.LanguageRegion;
-import org.gbif.vocabulary.model.export.ConceptExportView;
-import org.gbif.vocabulary.model.export.Export;
 import org.gbif.vocabulary.tools.VocabularyDownloader;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.time.ZoneId;
-import java.time.ZonedDateTime;
-import java.time.format.DateTimeFormatter;
-import java.util.ArrayList;
+import java.nio.file.Path;
 import java.util.Collections;
-import java.util.EnumMap;
-import java.util.HashSet;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
-import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.function.Function;
 import java.util.function.UnaryOperator;
 
 import org.cache2k.Cache;
 import org.cache2k.Cache2kBuilder;
-
-import com.fasterxml.jackson.core.JsonParser;
-import com.fasterxml.jackson.databind.DeserializationContext;
-import com.fasterxml.jackson.databind.DeserializationFeature;
-import com.fasterxml.jackson.databind.JsonDeserializer;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
-import com.fasterxml.jackson.datatype.jsr310.deser.LocalDateTimeDeserializer;
+import org.slf4j.event.Level;
 
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 
-import static org.gbif.vocabulary.model.normalizers.StringNormalizer.normalizeLabel;
-import static org.gbif.vocabulary.model.normalizers.StringNormalizer.normalizeName;
-import static org.gbif.vocabulary.model.normalizers.StringNormalizer.replaceNonAsciiCharactersWithEquivalents;
+import static org.gbif.vocabulary.model.normalizers.AsciiStringNormalizer.normalizeLabel;
 
 /**
  * Class that allows to load a vocabulary export in memory to do fast lookups by concept labels.
@@ -91,47 +77,68 @@ import static org.gbif.vocabulary.model.normalizers.StringNormalizer.replaceNonA
  *
  * Notice that there is no need to remove whitespaces or take care of non-ASCII characters. This is
  * already handled by this class and will be normalized before performing a lookup.
+ *
+ * <p>The index of a vocabulary can be written to a snapshot file and opened later, or by other
+ * processes in the same node, without downloading and normalizing the vocabulary again. The
+ * snapshots are mapped in memory, so their pages are shared by all the processes that open them:
+ *
+ * <pre>
+ *        VocabularyLookup.newBuilder().from("http://api.gbif.org/v1/", "LifeStage").build()
+ *            .writeSnapshot(Paths.get("LifeStage.snapshot"));
+ *
+ *        VocabularyLookup.newBuilder().fromSnapshot(Paths.get("LifeStage.snapshot")).build();
+ * </pre>
+ *
+ * The snapshots can only be opened with the same prefilter used to write them. The predefined
+ * prefilters are identified automatically, but the custom and chained ones need an id:
+ *
+ * <pre>
+ *        VocabularyLookup.newBuilder().fromSnapshot(Paths.get("LifeStage.snapshot"))
+ *            .withPrefilter(
+ *             PreFilters.REMOVE_NON_ALPHANUMERIC.andThen(
+ *                 PreFilters.REMOVE_PARENTHESIS_CONTENT_SUFFIX),
+ *             "alphanumeric-without-parenthesis").build();
+ * </pre>
+ *
+ * <p>When the same values are expected to miss many times (e.g.: typos or free text) a cache of
+ * misses can be enabled, and the logs of the misses can be demoted or sampled:
+ *
+ * <pre>
+ *        VocabularyLookup.newBuilder().from(new InputStream(...))
+ *            .withMissCache(100_000)
+ *            .withMissLogLevel(Level.DEBUG)
+ *            .withMissLogSampling(1000).build();
+ * </pre>
  */
 @Slf4j
 public class InMemoryVocabularyLookup implements VocabularyLookup {
 
-  private static final ObjectMapper OBJECT_MAPPER =
-      new ObjectMapper()
-          .registerModule(
-              new JavaTimeModule()
-                  .addDeserializer(ZonedDateTime.class, new ZonedDateTimeDeserializer()))
-          .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
-
-  private final Cache<String, ConceptExportView> namesCache;
-  private final Cache<String, LabelMatch> labelsCache;
-  private final Cache<String, ConceptExportView> hiddenLabelsCache;
-  private final Cache<Long, ConceptExportView> conceptsByKeyCache;
-  private final Function<String, String> prefilter;
+  private static final List<UnaryOperator<String>> TRANSFORMATIONS =
+      Collections.singletonList(UnaryOperator.identity());
 
-  private InMemoryVocabularyLookup(InputStream in, Function<String, String> prefilter) {
-    Objects.requireNonNull(in);
-    this.prefilter = prefilter;
-    namesCache =
-        Cache2kBuilder.of(String.class, ConceptExportView.class)
-            .eternal(true)
-            .entryCapacity(Long.MAX_VALUE)
-            .build();
-    labelsCache =
-        new Cache2kBuilder<String, LabelMatch>() {}.eternal(true)
-            .entryCapacity(Long.MAX_VALUE)
-            .build();
-    hiddenLabelsCache =
-        Cache2kBuilder.of(String.class, ConceptExportView.class)
-            .eternal(true)
-            .entryCapacity(Long.MAX_VALUE)
-            .build();
-    conceptsByKeyCache =
-        Cache2kBuilder.of(Long.class, ConceptExportView.class)
-            .eternal(true)
-            .entryCapacity(Long.MAX_VALUE)
-            .build();
-
-    importVocabulary(in);
+  // marks the values without match in a batch
+  private static final Object NO_MATCH = new Object();
+
+  private final LookupIndex index;
+  private final Function<String, String> prefilter;
+  private final String prefilterId;
+  private final Cache<String, Boolean> missCache;
+  private final Level missLogLevel;
+  private final int missLogSamplingRate;
+
+  private InMemoryVocabularyLookup(LookupIndex index, InMemoryVocabularyLookupBuilder builder) {
+    this.index = index;
+    this.prefilter = builder.prefilter;
+    this.prefilterId = builder.prefilterId();
+    this.missLogLevel = builder.missLogLevel;
+    this.missLogSamplingRate = builder.missLogSamplingRate;
+    this.missCache =
+        builder.missCacheSize > 0
+            ? Cache2kBuilder.of(String.class, Boolean.class)
+                .eternal(true)
+                .entryCapacity(builder.missCacheSize)
+                .build()
+            : null;
   }
 
   /**
@@ -159,8 +166,51 @@ public class InMemoryVocabularyLookup implements VocabularyLookup {
    */
   @Override
   public Optional<LookupConcept> lookup(String value, LanguageRegion contextLang) {
+    return Optional.ofNullable(find(value, contextLang, null));
+  }
+
+  /**
+   * Looks up a batch of values in the vocabulary.
+   *
+   * <p>Each distinct value is prefiltered, normalized and looked up only once per batch, and no
+   * {@link Optional} is created per value.
+   *
+   * @param values the values whose concepts we are looking for
+   * @param contextLang {@link LanguageRegion} to break ties
+   * @param results array where the {@link LookupConcept} found for each value is set in the same
+   *     position. Null is set if there was no match
+   */
+  @Override
+  public void lookupBatch(String[] values, LanguageRegion contextLang, LookupConcept[] results) {
+    Objects.requireNonNull(values);
+    Objects.requireNonNull(results);
+    if (results.length < values.length) {
+      throw new IllegalArgumentException(
+          "The results array has to be at least as long as the values array");
+    }
+
+    Map<String, Object> resolved = new HashMap<>();
+    StringBuilder buffer = new StringBuilder();
+    for (int i = 0; i < values.length; i++) {
+      String value = values[i];
+      if (value == null || value.isEmpty()) {
+        results[i] = null;
+        continue;
+      }
+
+      Object match = resolved.get(value);
+      if (match == null) {
+        LookupConcept found = find(value, contextLang, buffer);
+        match = found != null ? found : NO_MATCH;
+        resolved.put(value, match);
+      }
+      results[i] = match != NO_MATCH ? (LookupConcept) match : null;
+    }
+  }
+
+  private LookupConcept find(String value, LanguageRegion contextLang, StringBuilder buffer) {
     if (value == null || value.isEmpty()) {
-      return Optional.empty();
+      return null;
     }
 
     // apply the pre-filters
@@ -169,229 +219,175 @@ public class InMemoryVocabularyLookup implements VocabularyLookup {
     }
 
     // base normalization
-    String normalizedValue = replaceNonAsciiCharactersWithEquivalents(normalizeLabel(value));
+    String normalizedValue = normalizeLabel(value, buffer);
 
-    List<UnaryOperator<String>> transformations =
-        Collections.singletonList(UnaryOperator.identity());
+    // values that didn't match before won't match now either
+    if (missCache != null && missCache.containsKey(normalizedValue)) {
+      logMiss(value);
+      return null;
+    }
 
-    for (UnaryOperator<String> t : transformations) {
+    boolean ambiguous = false;
+    for (UnaryOperator<String> t : TRANSFORMATIONS) {
       String transformedValue = t.apply(normalizedValue);
 
       // matching by name
-      ConceptExportView nameMatch = namesCache.get(transformedValue);
+      LookupConcept nameMatch = index.getByName(transformedValue);
       if (nameMatch != null) {
         log.debug(
             "value {} matched with concept {} by name", value, nameMatch.getConcept().getName());
-        return Optional.of(toLookupConcept(nameMatch));
+        return nameMatch;
       }
 
       // if no match with names we try with labels
-      LabelMatch labelMatch = labelsCache.get(transformedValue);
+      LabelMatch labelMatch = index.getByLabel(transformedValue);
       if (labelMatch != null) {
-        if (labelMatch.allMatches.size() == 1) {
-          ConceptExportView conceptMatched = labelMatch.allMatches.iterator().next();
-          log.debug(
-              "value {} matched with concept {} by label",
-              value,
-              conceptMatched.getConcept().getName());
-          return Optional.of(toLookupConcept(conceptMatched));
-        }
-
-        // several candidates found. We try to match by using the language received as discriminator
-        // or English as fallback
-        Optional<ConceptExportView> langMatch = matchByLanguage(labelMatch, contextLang, value);
-        if (langMatch.isPresent()) {
-          log.debug(
-              "value {} matched with concept {} by language {}",
-              value,
-              langMatch.get().getConcept().getName(),
-              contextLang);
-          return Optional.of(toLookupConcept(langMatch.get()));
+        LookupConcept conceptMatched = resolveLabelMatch(labelMatch, contextLang, value);
+        if (conceptMatched != null) {
+          return conceptMatched;
         }
-
-        log.warn(
-            "Couldn't resolve match between all the several candidates found for {}: {}",
-            value,
-            labelMatch.allMatches);
+        ambiguous = true;
       }
 
       // if no match we try with the hidden labels
-      ConceptExportView hiddenMatch = hiddenLabelsCache.get(transformedValue);
+      LookupConcept hiddenMatch = index.getByHiddenLabel(transformedValue);
       if (hiddenMatch != null) {
         log.debug(
             "value {} matched with concept {} by hidden label",
             value,
             hiddenMatch.getConcept().getName());
-        return Optional.of(toLookupConcept(hiddenMatch));
+        return hiddenMatch;
       }
     }
 
-    log.info("Couldn't find any match for {}", value);
-    return Optional.empty();
-  }
-
-  private Optional<ConceptExportView> matchByLanguage(
-      LabelMatch match, LanguageRegion lang, String value) {
-    Set<ConceptExportView> langMatches = null;
-    if (lang != null) {
-      langMatches = match.matchesByLanguage.get(lang);
+    // the ambiguous values are not cached since they can match with another language
+    if (missCache != null && !ambiguous) {
+      missCache.put(normalizedValue, Boolean.TRUE);
     }
 
-    // we try with English as fallback
-    if ((langMatches == null || langMatches.size() != 1) && lang != LanguageRegion.ENGLISH) {
-      lang = LanguageRegion.ENGLISH;
-      langMatches = match.matchesByLanguage.get(lang);
+    logMiss(value);
+    return null;
+  }
+
+  private void logMiss(String value) {
+    if (log.isEnabledForLevel(missLogLevel)
+        && (missLogSamplingRate <= 1
+            || ThreadLocalRandom.current().nextInt(missLogSamplingRate) == 0)) {
+      log.atLevel(missLogLevel).log("Couldn't find any match for {}", value);
     }
+  }
 
-    if (langMatches == null || langMatches.isEmpty()) {
-      return Optional.empty();
+  /**
+   * Resolves the concepts that matched by label. If there are several candidates the language is
+   * used to break the tie.
+   *
+   * @return the concept matched or null if the tie couldn't be broken
+   */
+  static LookupConcept resolveLabelMatch(
+      LabelMatch labelMatch, LanguageRegion contextLang, String value) {
+    if (labelMatch.allMatches.length == 1) {
+      LookupConcept conceptMatched = labelMatch.allMatches[0];
+      log.debug(
+          "value {} matched with concept {} by label",
+          value,
+          conceptMatched.getConcept().getName());
+      return conceptMatched;
     }
 
-    if (langMatches.size() == 1) {
-      ConceptExportView conceptMatched = langMatches.iterator().next();
+    // several candidates found. We try to match by using the language received as discriminator
+    // or English as fallback
+    LookupConcept langMatch = matchByLanguage(labelMatch, contextLang, value);
+    if (langMatch != null) {
       log.debug(
-          "Value {} matched with concept {} by using language {}", value, conceptMatched, lang);
-      return Optional.of(conceptMatched);
+          "value {} matched with concept {} by language {}",
+          value,
+          langMatch.getConcept().getName(),
+          contextLang);
+      return langMatch;
     }
 
-    return Optional.empty();
+    log.warn(
+        "Couldn't resolve match between all the several candidates found for {}: {}",
+        value,
+        labelMatch);
+    return null;
   }
 
-  @Override
-  public void close() {
-    if (namesCache != null) {
-      namesCache.close();
-    }
-    if (labelsCache != null) {
-      labelsCache.close();
-    }
-    if (hiddenLabelsCache != null) {
-      hiddenLabelsCache.close();
-    }
-    if (conceptsByKeyCache != null) {
-      conceptsByKeyCache.close();
+  private static LookupConcept matchByLanguage(
+      LabelMatch match, LanguageRegion lang, String value) {
+    LookupConcept[] langMatches = null;
+    if (lang != null) {
+      langMatches = match.matchesByLanguage.get(lang);
     }
-  }
-
-  @SneakyThrows
-  private void importVocabulary(InputStream in) {
-    Export export = OBJECT_MAPPER.readValue(in, Export.class);
-
-    for (ConceptExportView conceptExport : export.getConceptExports()) {
-      // add to the cache concepts
-      conceptsByKeyCache.put(conceptExport.getConcept().getKey(), conceptExport);
-
-      // add name to the cache
-      addNameToCache(conceptExport);
 
-      // add labels to the cache
-      conceptExport.getLabel().forEach((key, value) -> addLabelToCache(value, conceptExport, key));
-
-      // add alternative labels to the cache
-      conceptExport
-          .getAlternativeLabels()
-          .forEach((key, value) -> addLabelsToCache(value, conceptExport, key));
-
-      // add hidden labels to the cache
-      conceptExport.getHiddenLabels().forEach(label -> addHiddenLabelToCache(label, conceptExport));
+    // we try with English as fallback
+    if ((langMatches == null || langMatches.length != 1) && lang != LanguageRegion.ENGLISH) {
+      lang = LanguageRegion.ENGLISH;
+      langMatches = match.matchesByLanguage.get(lang);
     }
-  }
 
-  private void addNameToCache(ConceptExportView concept) {
-    String normalizedValue =
-        replaceNonAsciiCharactersWithEquivalents(normalizeName(concept.getConcept().getName()));
-    ConceptExportView existing = namesCache.peekAndPut(normalizedValue, concept);
-
-    if (existing != null) {
-      log.warn(
-          "Incorrect vocabulary: concept names have to be unique. The concept name {} has the same name as {}",
-          concept,
-          existing);
+    if (langMatches == null || langMatches.length == 0) {
+      return null;
     }
-  }
 
-  private void addLabelsToCache(
-      Set<String> values, ConceptExportView concept, LanguageRegion language) {
-    values.forEach(v -> addLabelToCache(v, concept, language));
-  }
-
-  private void addLabelToCache(String value, ConceptExportView concept, LanguageRegion language) {
-    if (prefilter != null) {
-      value = prefilter.apply(value);
+    if (langMatches.length == 1) {
+      LookupConcept conceptMatched = langMatches[0];
+      log.debug(
+          "Value {} matched with concept {} by using language {}",
+          value,
+          conceptMatched.getConcept().getName(),
+          lang);
+      return conceptMatched;
     }
 
-    String normalizedValue = replaceNonAsciiCharactersWithEquivalents(normalizeLabel(value));
-
-    Boolean added =
-        labelsCache.invoke(
-            normalizedValue,
-            e -> {
-              LabelMatch match = e.getValue();
-              if (match == null) {
-                match = new LabelMatch();
-              }
-              e.setValue(match);
-
-              match.allMatches.add(concept);
-              return match
-                  .matchesByLanguage
-                  .computeIfAbsent(language, l -> new HashSet<>())
-                  .add(concept);
-            });
-
-    if (Boolean.FALSE.equals(added)) {
-      log.warn("Concept {} not added for value {}", concept, normalizedValue);
-    }
+    return null;
   }
 
-  private void addHiddenLabelToCache(String hiddenLabel, ConceptExportView concept) {
-    if (prefilter != null) {
-      hiddenLabel = prefilter.apply(hiddenLabel);
+  /**
+   * Writes a snapshot of the vocabulary index to a file, so it can be opened later with {@link
+   * InMemoryVocabularyLookupBuilder#fromSnapshot(Path)} without downloading and normalizing the
+   * vocabulary again.
+   *
+   * <p>The file is replaced atomically, so other processes can open it while it's being rewritten.
+   *
+   * @param path file where the snapshot is written
+   * @throws IllegalStateException if the lookup uses a custom prefilter without id
+   */
+  public void writeSnapshot(Path path) throws IOException {
+    if (prefilterId == null) {
+      throw new IllegalStateException(
+          "The snapshots of lookups with custom prefilters require a prefilter id");
     }
+    MappedLookupIndex.write(index, prefilterId, path);
+  }
 
-    String normalizedValue = replaceNonAsciiCharactersWithEquivalents(normalizeLabel(hiddenLabel));
-    ConceptExportView existing = hiddenLabelsCache.peekAndPut(normalizedValue, concept);
-
-    if (existing != null
-        && !existing.getConcept().getName().equals(concept.getConcept().getName())) {
-      log.warn(
-          "Incorrect vocabulary: different concepts cannot have the same hidden label. "
-              + "The concept hidden label: {} in the concept: {} is also present in: {}",
-          hiddenLabel,
-          concept,
-          existing);
+  @Override
+  public void close() {
+    // the index is immutable and the mapped snapshots are released by the GC, so only the miss
+    // cache has to be closed
+    if (missCache != null) {
+      missCache.close();
     }
   }
 
-  private LookupConcept toLookupConcept(ConceptExportView conceptExportView) {
-    // find parents
-    List<LookupConcept.Parent> parents = new ArrayList<>();
-    Long parentKey = conceptExportView.getConcept().getParentKey();
-    while (parentKey != null) {
-      ConceptExportView parent = conceptsByKeyCache.get(parentKey);
-
-      if (parent == null) {
-        break;
-      }
-
-      parents.add(LookupConcept.Parent.from(parent));
-
-      if (parentKey.equals(parent.getConcept().getParentKey())) {
-        // this should never happen but we protect against it
-        break;
-      }
-
-      parentKey = parent.getConcept().getParentKey();
-    }
+  @SneakyThrows
+  static LookupIndex importVocabulary(
+      InputStream in, Function<String, String> prefilter) {
+    Objects.requireNonNull(in);
 
-    return LookupConcept.of(
-        conceptExportView.getConcept(), parents, new ArrayList<>(conceptExportView.getTags()));
+    // the concepts are indexed while the export is read, so the whole export is never in memory
+    LookupIndex.Builder indexBuilder = LookupIndex.builder(prefilter);
+    ExportReader.read(in, indexBuilder);
+    return indexBuilder.build();
   }
 
-  private static class LabelMatch {
-    Set<ConceptExportView> allMatches = new HashSet<>();
-    Map<LanguageRegion, Set<ConceptExportView>> matchesByLanguage =
-        new EnumMap<>(LanguageRegion.class);
+  @SneakyThrows
+  private static LookupIndex openSnapshot(Path snapshot, String prefilterId) {
+    if (prefilterId == null) {
+      throw new IllegalArgumentException(
+          "The snapshots can't be opened with custom prefilters without id");
+    }
+    return MappedLookupIndex.open(snapshot, prefilterId);
   }
 
   public static InMemoryVocabularyLookupBuilder newBuilder() {
@@ -405,9 +401,14 @@ public class InMemoryVocabularyLookup implements VocabularyLookup {
    */
   public static class InMemoryVocabularyLookupBuilder {
     private InputStream inputStream;
+    private Path snapshot;
     private String apiUrl;
     private String vocabularyName;
     private Function<String, String> prefilter;
+    private String prefilterId;
+    private long missCacheSize;
+    private Level missLogLevel = Level.INFO;
+    private int missLogSamplingRate = 1;
 
     public InMemoryVocabularyLookupBuilder from(InputStream inputStream) {
       this.inputStream = inputStream;
@@ -420,39 +421,96 @@ public class InMemoryVocabularyLookup implements VocabularyLookup {
       return this;
     }
 
+    /**
+     * Opens a snapshot written with {@link InMemoryVocabularyLookup#writeSnapshot(Path)}. The
+     * snapshot is mapped in memory, so it's shared by all the processes that open it.
+     *
+     * <p>The snapshot contains the labels already prefiltered, so the same prefilter used when it
+     * was written has to be set. Otherwise, the build fails.
+     *
+     * @param snapshot snapshot file
+     */
+    public InMemoryVocabularyLookupBuilder fromSnapshot(Path snapshot) {
+      this.snapshot = snapshot;
+      return this;
+    }
+
     public InMemoryVocabularyLookupBuilder withPrefilter(Function<String, String> prefilter) {
       this.prefilter = prefilter;
+      this.prefilterId = null;
+      return this;
+    }
+
+    /**
+     * Sets a custom prefilter with an id. The id is stored in the snapshots to check that they are
+     * opened with the same prefilter, so it has to change when the prefilter does.
+     *
+     * @param prefilter prefilter to apply to the values before the lookups
+     * @param prefilterId id of the prefilter
+     */
+    public InMemoryVocabularyLookupBuilder withPrefilter(
+        Function<String, String> prefilter, String prefilterId) {
+      this.prefilter = prefilter;
+      this.prefilterId = Objects.requireNonNull(prefilterId);
+      return this;
+    }
+
+    /**
+     * Enables a cache of the values that didn't match any concept, so the repeated misses are
+     * resolved with one single probe. Disabled by default.
+     *
+     * @param maxSize maximum number of normalized values to keep in the cache
+     */
+    public InMemoryVocabularyLookupBuilder withMissCache(long maxSize) {
+      this.missCacheSize = maxSize;
+      return this;
+    }
+
+    /**
+     * Sets the log level used when a value doesn't match any concept. By default it's {@link
+     * Level#INFO}.
+     */
+    public InMemoryVocabularyLookupBuilder withMissLogLevel(Level missLogLevel) {
+      this.missLogLevel = Objects.requireNonNull(missLogLevel);
+      return this;
+    }
+
+    /**
+     * Logs only 1 out of every samplingRate values that don't match any concept. By default all of
+     * them are logged.
+     */
+    public InMemoryVocabularyLookupBuilder withMissLogSampling(int samplingRate) {
+      if (samplingRate < 1) {
+        throw new IllegalArgumentException("The sampling rate has to be greater than 0");
+      }
+      this.missLogSamplingRate = samplingRate;
       return this;
     }
 
     public InMemoryVocabularyLookup build() {
-      if (inputStream != null) {
-        return new InMemoryVocabularyLookup(inputStream, prefilter);
+      if (snapshot != null) {
+        return new InMemoryVocabularyLookup(openSnapshot(snapshot, prefilterId()), this);
+      } else if (inputStream != null) {
+        return new InMemoryVocabularyLookup(importVocabulary(inputStream, prefilter), this);
       } else if (apiUrl != null && vocabularyName != null) {
         return new InMemoryVocabularyLookup(
-            VocabularyDownloader.downloadLatestVocabularyVersion(apiUrl, vocabularyName),
-            prefilter);
+            importVocabulary(
+                VocabularyDownloader.downloadLatestVocabularyVersion(apiUrl, vocabularyName),
+                prefilter),
+            this);
       }
 
       throw new IllegalArgumentException(
-          "Either the inputstream or the API URL and the vocabulary name are required");
+          "Either the inputstream, the snapshot or the API URL and the vocabulary name are "
+              + "required");
     }
-  }
-
-  private static class ZonedDateTimeDeserializer extends JsonDeserializer<ZonedDateTime> {
-
-    private final LocalDateTimeDeserializer localDateTimeDeserializer =
-        new LocalDateTimeDeserializer(DateTimeFormatter.ISO_LOCAL_DATE_TIME);
-
-    @Override
-    public ZonedDateTime deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
 
-      // try first with timezone, otherwise without it
-      try {
-        return ZonedDateTime.parse(p.getText(), DateTimeFormatter.ISO_OFFSET_DATE_TIME);
-      } catch (Exception ex) {
-        return localDateTimeDeserializer.deserialize(p, ctxt).atZone(ZoneId.systemDefault());
+    /** Id of the prefilter, empty if there is no prefilter and null if it's unknown. */
+    private String prefilterId() {
+      if (prefilter == null) {
+        return "";
       }
+      return prefilterId != null ? prefilterId : PreFilters.idOf(prefilter);
     }
   }
 }
@@ -16,34 +16,40 @@ package org.gbif.vocabulary.lookup;
 import org.gbif.vocabulary.model.Concept;
 import org.gbif.vocabulary.model.export.ConceptExportView;
 
-import java.util.ArrayList;
 import java.util.List;
 
 import lombok.AllArgsConstructor;
-import lombok.Data;
+import lombok.Value;
 
-@Data
+/**
+ * Concept returned by a {@link VocabularyLookup}.
+ *
+ * <p>The instances returned by {@link InMemoryVocabularyLookup} are created when the vocabulary is
+ * loaded and shared between lookups, so they are immutable and their parents and tags are
+ * unmodifiable lists. The {@link Concept} is shared too and shouldn't be modified.
+ */
+@Value
 @AllArgsConstructor(staticName = "of")
 public class LookupConcept {
 
-  private Concept concept;
-  private List<Parent> parents;
-  private List<String> tags;
+  Concept concept;
+  List<Parent> parents;
+  List<String> tags;
 
-  @Data
+  @Value
   @AllArgsConstructor(staticName = "of")
   public static class Parent {
-    private Long key;
-    private Long parentKey;
-    private String name;
-    private List<String> tags;
+    Long key;
+    Long parentKey;
+    String name;
+    List<String> tags;
 
     public static Parent from(ConceptExportView conceptExportView) {
       return Parent.of(
           conceptExportView.getConcept().getKey(),
           conceptExportView.getConcept().getParentKey(),
           conceptExportView.getConcept().getName(),
-          new ArrayList<>(conceptExportView.getTags()));
+          List.copyOf(conceptExportView.getTags()));
     }
   }
 }
@@ -0,0 +1,256 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.vocabulary.lookup;
+
+import org.gbif.vocabulary.model.LanguageRegion;
+import org.gbif.vocabulary.model.export.ConceptExportView;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import lombok.extern.slf4j.Slf4j;
+
+import static org.gbif.vocabulary.model.normalizers.AsciiStringNormalizer.normalizeLabel;
+import static org.gbif.vocabulary.model.normalizers.AsciiStringNormalizer.normalizeName;
+
+/**
+ * Immutable index used by {@link InMemoryVocabularyLookup} to find the concepts by their
+ * normalized names and labels.
+ *
+ * <p>It is created once per vocabulary, either with a {@link Builder} from the concepts of an
+ * export or by opening a snapshot with {@link MappedLookupIndex#open(java.nio.file.Path, String)},
+ * and it can't be modified afterwards, so it doesn't need any locking or cache bookkeeping. The
+ * lookups return shared {@link LookupConcept} instances that must not be modified.
+ */
+@Slf4j
+abstract class LookupIndex {
+
+  /**
+   * Finds the concept with the name received.
+   *
+   * @param name normalized name
+   * @return the concept found or null if there is no match
+   */
+  abstract LookupConcept getByName(String name);
+
+  /**
+   * Finds the concepts with the label or alternative label received.
+   *
+   * @param label normalized label
+   * @return the concepts found or null if there is no match
+   */
+  abstract LabelMatch getByLabel(String label);
+
+  /**
+   * Finds the concept with the hidden label received.
+   *
+   * @param hiddenLabel normalized hidden label
+   * @return the concept found or null if there is no match
+   */
+  abstract LookupConcept getByHiddenLabel(String hiddenLabel);
+
+  static Builder builder(Function<String, String> prefilter) {
+    return new Builder(prefilter);
+  }
+
+  /** Concepts that share the same label. */
+  static final class LabelMatch {
+    final LookupConcept[] allMatches;
+    final Map<LanguageRegion, LookupConcept[]> matchesByLanguage;
+
+    LabelMatch(
+        LookupConcept[] allMatches, Map<LanguageRegion, LookupConcept[]> matchesByLanguage) {
+      this.allMatches = allMatches;
+      this.matchesByLanguage = matchesByLanguage;
+    }
+
+    @Override
+    public String toString() {
+      return Arrays.toString(allMatches);
+    }
+  }
+
+  /** Builder that collects the concepts of a vocabulary and creates the {@link LookupIndex}. */
+  static final class Builder {
+    private final Function<String, String> prefilter;
+    private final Map<String, ConceptExportView> names = new HashMap<>();
+    private final Map<String, LabelMatchBuilder> labels = new HashMap<>();
+    private final Map<String, ConceptExportView> hiddenLabels = new HashMap<>();
+    private final Map<Long, ConceptExportView> conceptsByKey = new HashMap<>();
+    private final List<ConceptExportView> concepts = new ArrayList<>();
+    private final StringBuilder buffer = new StringBuilder();
+
+    private Builder(Function<String, String> prefilter) {
+      this.prefilter = prefilter;
+    }
+
+    /**
+     * Adds a concept to the index with its name, labels, alternative labels and hidden labels.
+     *
+     * @param conceptExport concept to add
+     * @return this builder
+     */
+    Builder addConcept(ConceptExportView conceptExport) {
+      concepts.add(conceptExport);
+      conceptsByKey.put(conceptExport.getConcept().getKey(), conceptExport);
+
+      addName(conceptExport);
+
+      conceptExport.getLabel().forEach((key, value) -> addLabel(value, conceptExport, key));
+
+      conceptExport
+          .getAlternativeLabels()
+          .forEach((key, value) -> value.forEach(v -> addLabel(v, conceptExport, key)));
+
+      conceptExport.getHiddenLabels().forEach(label -> addHiddenLabel(label, conceptExport));
+
+      return this;
+    }
+
+    LookupIndex build() {
+      Map<ConceptExportView, LookupConcept> lookupConcepts = createLookupConcepts();
+
+      Map<String, LabelMatch> frozenLabels = new HashMap<>(labels.size() * 2);
+      labels.forEach((k, v) -> frozenLabels.put(k, v.freeze(lookupConcepts)));
+
+      return new HeapLookupIndex(
+          concepts.stream().map(lookupConcepts::get).toArray(LookupConcept[]::new),
+          StringIndex.of(toLookupConcepts(names, lookupConcepts)),
+          StringIndex.of(frozenLabels),
+          StringIndex.of(toLookupConcepts(hiddenLabels, lookupConcepts)));
+    }
+
+    private Map<ConceptExportView, LookupConcept> createLookupConcepts() {
+      // parents are created only once and shared by all their descendants
+      Map<Long, LookupConcept.Parent> parentsByKey = new HashMap<>(conceptsByKey.size() * 2);
+      conceptsByKey.forEach((k, v) -> parentsByKey.put(k, LookupConcept.Parent.from(v)));
+
+      Map<ConceptExportView, LookupConcept> lookupConcepts = new IdentityHashMap<>();
+      for (ConceptExportView conceptExport : concepts) {
+        List<LookupConcept.Parent> parents = new ArrayList<>();
+        Long parentKey = conceptExport.getConcept().getParentKey();
+        while (parentKey != null) {
+          LookupConcept.Parent parent = parentsByKey.get(parentKey);
+
+          if (parent == null) {
+            break;
+          }
+
+          parents.add(parent);
+
+          if (parentKey.equals(parent.getParentKey()) || parents.size() > parentsByKey.size()) {
+            // this should never happen but we protect against it
+            break;
+          }
+
+          parentKey = parent.getParentKey();
+        }
+
+        lookupConcepts.put(
+            conceptExport,
+            LookupConcept.of(
+                conceptExport.getConcept(),
+                Collections.unmodifiableList(parents),
+                List.copyOf(conceptExport.getTags())));
+      }
+      return lookupConcepts;
+    }
+
+    private static Map<String, LookupConcept> toLookupConcepts(
+        Map<String, ConceptExportView> map,
+        Map<ConceptExportView, LookupConcept> lookupConcepts) {
+      Map<String, LookupConcept> result = new HashMap<>(map.size() * 2);
+      map.forEach((k, v) -> result.put(k, lookupConcepts.get(v)));
+      return result;
+    }
+
+    private void addName(ConceptExportView concept) {
+      String normalizedValue = normalizeName(concept.getConcept().getName(), buffer);
+      ConceptExportView existing = names.put(normalizedValue, concept);
+
+      if (existing != null) {
+        log.warn(
+            "Incorrect vocabulary: concept names have to be unique. The concept name {} has the same name as {}",
+            concept,
+            existing);
+      }
+    }
+
+    private void addLabel(String value, ConceptExportView concept, LanguageRegion language) {
+      if (prefilter != null) {
+        value = prefilter.apply(value);
+      }
+
+      String normalizedValue = normalizeLabel(value, buffer);
+
+      LabelMatchBuilder match =
+          labels.computeIfAbsent(normalizedValue, k -> new LabelMatchBuilder());
+      match.allMatches.add(concept);
+      boolean added =
+          match
+              .matchesByLanguage
+              .computeIfAbsent(language, l -> new LinkedHashSet<>())
+              .add(concept);
+
+      if (!added) {
+        log.warn("Concept {} not added for value {}", concept, normalizedValue);
+      }
+    }
+
+    private void addHiddenLabel(String hiddenLabel, ConceptExportView concept) {
+      if (prefilter != null) {
+        hiddenLabel = prefilter.apply(hiddenLabel);
+      }
+
+      String normalizedValue = normalizeLabel(hiddenLabel, buffer);
+      ConceptExportView existing = hiddenLabels.put(normalizedValue, concept);
+
+      if (existing != null
+          && !existing.getConcept().getName().equals(concept.getConcept().getName())) {
+        log.warn(
+            "Incorrect vocabulary: different concepts cannot have the same hidden label. "
+                + "The concept hidden label: {} in the concept: {} is also present in: {}",
+            hiddenLabel,
+            concept,
+            existing);
+      }
+    }
+  }
+
+  private static final class LabelMatchBuilder {
+    final Set<ConceptExportView> allMatches = new LinkedHashSet<>();
+    final Map<LanguageRegion, Set<ConceptExportView>> matchesByLanguage =
+        new EnumMap<>(LanguageRegion.class);
+
+    LabelMatch freeze(Map<ConceptExportView, LookupConcept> lookupConcepts) {
+      Map<LanguageRegion, LookupConcept[]> byLanguage = new EnumMap<>(LanguageRegion.class);
+      matchesByLanguage.forEach((k, v) -> byLanguage.put(k, toArray(v, lookupConcepts)));
+      return new LabelMatch(toArray(allMatches, lookupConcepts), byLanguage);
+    }
+
+    private static LookupConcept[] toArray(
+        Set<ConceptExportView> concepts, Map<ConceptExportView, LookupConcept> lookupConcepts) {
+      return concepts.stream().map(lookupConcepts::get).toArray(LookupConcept[]::new);
+    }
+  }
+}
@@ -0,0 +1,543 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.vocabulary.lookup;
+
+import org.gbif.vocabulary.lookup.LookupIndex.LabelMatch;
+import org.gbif.vocabulary.model.Concept;
+import org.gbif.vocabulary.model.LanguageRegion;
+import org.gbif.vocabulary.model.normalizers.AsciiStringNormalizer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.IntFunction;
+import java.util.function.ToIntFunction;
+
+/**
+ * {@link LookupIndex} backed by a snapshot file mapped in memory.
+ *
+ * <p>The snapshots contain the names and labels already normalized and their hash tables, so
+ * opening them doesn't require to parse the export or normalize anything and the lookups probe the
+ * hash tables directly in the mapped file. All the processes that open the same snapshot share its
+ * pages through the page cache. The concepts are decoded the first time they are matched and then
+ * reused.
+ *
+ * <p>Format of the snapshots, with all the numbers in big-endian:
+ *
+ * <pre>
+ * header       magic, version, normalization version, number of concepts, number of ties and
+ *              the offsets of the concepts, ties, names, labels and hidden labels sections (ints)
+ * prefilter    length (int) and UTF-16 chars of the id of the prefilter
+ * keys         length (int) and UTF-16 chars of every normalized name and label
+ * concepts     key and parent key (nullable longs), name, tags, ids of the parents and the
+ *              concept in JSON
+ * ties         ids of the concepts that share a label, all of them and by language
+ * offsets      offset of every concept and tie (ints)
+ * hash tables  capacity (int) and 3 ints per slot: hash, offset of the key and value. The value
+ *              is the concept id or, for labels shared by several concepts, -(tie id + 1)
+ * </pre>
+ *
+ * <p>The names and labels are stored already prefiltered and normalized, so the snapshots keep the
+ * id of the prefilter and the {@link AsciiStringNormalizer#VERSION} used and they can only be
+ * opened with the same ones.
+ */
+final class MappedLookupIndex extends LookupIndex {
+
+  private static final int MAGIC = 0x564C4B50; // VLKP
+  private static final int VERSION = 2;
+  private static final int HEADER_SIZE = 10 * Integer.BYTES;
+  private static final int SLOT_SIZE = 3 * Integer.BYTES;
+  private static final int NOT_FOUND = Integer.MIN_VALUE;
+
+  private final ByteBuffer buffer;
+  private final int conceptsOffset;
+  private final int tiesOffset;
+  private final int namesOffset;
+  private final int labelsOffset;
+  private final int hiddenLabelsOffset;
+
+  // decoded lazily and shared by all the lookups
+  private final AtomicReferenceArray<LookupConcept> concepts;
+  private final AtomicReferenceArray<LookupConcept.Parent> parents;
+  private final AtomicReferenceArray<LabelMatch> singleMatches;
+  private final AtomicReferenceArray<LabelMatch> ties;
+
+  private MappedLookupIndex(ByteBuffer buffer, Path path, String prefilterId)
+      throws IOException {
+    if (buffer.capacity() < HEADER_SIZE
+        || buffer.getInt(0) != MAGIC
+        || buffer.getInt(Integer.BYTES) != VERSION) {
+      throw new IOException("Not a valid vocabulary lookup snapshot: " + path);
+    }
+    if (buffer.getInt(2 * Integer.BYTES) != AsciiStringNormalizer.VERSION) {
+      throw new IOException(
+          "The vocabulary lookup snapshot "
+              + path
+              + " was written with a different version of the normalizer");
+    }
+
+    ByteBuffer header = buffer.duplicate();
+    header.position(HEADER_SIZE);
+    String snapshotPrefilterId = readString(header);
+    if (!Objects.equals(snapshotPrefilterId, prefilterId)) {
+      throw new IOException(
+          "The vocabulary lookup snapshot "
+              + path
+              + " was written with the prefilter '"
+              + snapshotPrefilterId
+              + "' but the prefilter '"
+              + prefilterId
+              + "' is used");
+    }
+
+    this.buffer = buffer;
+    int conceptsCount = buffer.getInt(3 * Integer.BYTES);
+    int tiesCount = buffer.getInt(4 * Integer.BYTES);
+    this.conceptsOffset = buffer.getInt(5 * Integer.BYTES);
+    this.tiesOffset = buffer.getInt(6 * Integer.BYTES);
+    this.namesOffset = buffer.getInt(7 * Integer.BYTES);
+    this.labelsOffset = buffer.getInt(8 * Integer.BYTES);
+    this.hiddenLabelsOffset = buffer.getInt(9 * Integer.BYTES);
+
+    this.concepts = new AtomicReferenceArray<>(conceptsCount);
+    this.parents = new AtomicReferenceArray<>(conceptsCount);
+    this.singleMatches = new AtomicReferenceArray<>(conceptsCount);
+    this.ties = new AtomicReferenceArray<>(tiesCount);
+  }
+
+  /**
+   * Opens a snapshot by mapping it in memory.
+   *
+   * @param path snapshot file
+   * @param prefilterId id of the prefilter used in the lookups, it has to be the same that was
+   *     used to write the snapshot
+   * @return the index of the snapshot
+   */
+  static MappedLookupIndex open(Path path, String prefilterId) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      if (channel.size() > Integer.MAX_VALUE) {
+        throw new IOException("The vocabulary lookup snapshot is too big: " + path);
+      }
+
+      // the mapping stays valid after closing the channel
+      return new MappedLookupIndex(
+          channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), path, prefilterId);
+    }
+  }
+
+  /**
+   * Writes a snapshot of the index. The snapshot is written to a temporary file first and then
+   * moved to the final path, so the processes that open it never see a partial file.
+   *
+   * @param index index to write
+   * @param prefilterId id of the prefilter used to build the index
+   * @param path snapshot file
+   */
+  static void write(LookupIndex index, String prefilterId, Path path) throws IOException {
+    Path absolutePath = path.toAbsolutePath();
+    Path tmp =
+        Files.createTempFile(
+            absolutePath.getParent(), absolutePath.getFileName().toString(), ".tmp");
+    try {
+      // the mapped indexes were opened with the same prefilter, so they can be copied as they are
+      if (index instanceof MappedLookupIndex) {
+        ByteBuffer source = ((MappedLookupIndex) index).buffer.duplicate();
+        source.position(0);
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+          while (source.hasRemaining()) {
+            channel.write(source);
+          }
+        }
+      } else {
+        Files.write(tmp, new Writer().write((HeapLookupIndex) index, prefilterId));
+      }
+
+      Files.move(
+          tmp, absolutePath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(tmp);
+    }
+  }
+
+  @Override
+  LookupConcept getByName(String name) {
+    int id = find(namesOffset, name);
+    return id != NOT_FOUND ? concept(id) : null;
+  }
+
+  @Override
+  LabelMatch getByLabel(String label) {
+    int value = find(labelsOffset, label);
+    if (value == NOT_FOUND) {
+      return null;
+    }
+
+    return value >= 0
+        ? getOrCreate(
+            singleMatches,
+            value,
+            id -> new LabelMatch(new LookupConcept[] {concept(id)}, Collections.emptyMap()))
+        : getOrCreate(ties, -value - 1, this::readTie);
+  }
+
+  @Override
+  LookupConcept getByHiddenLabel(String hiddenLabel) {
+    int id = find(hiddenLabelsOffset, hiddenLabel);
+    return id != NOT_FOUND ? concept(id) : null;
+  }
+
+  private int find(int tableOffset, String key) {
+    if (key == null) {
+      return NOT_FOUND;
+    }
+
+    int mask = buffer.getInt(tableOffset) - 1;
+    int hash = StringIndex.hash(key);
+    int i = hash & mask;
+    while (true) {
+      int slot = tableOffset + Integer.BYTES + i * SLOT_SIZE;
+      int keyOffset = buffer.getInt(slot + Integer.BYTES);
+      if (keyOffset == 0) {
+        return NOT_FOUND;
+      }
+      if (buffer.getInt(slot) == hash && keyEquals(keyOffset, key)) {
+        return buffer.getInt(slot + 2 * Integer.BYTES);
+      }
+      i = (i + 1) & mask;
+    }
+  }
+
+  private boolean keyEquals(int offset, String key) {
+    int length = buffer.getInt(offset);
+    if (length != key.length()) {
+      return false;
+    }
+
+    int position = offset + Integer.BYTES;
+    for (int i = 0; i < length; i++, position += Character.BYTES) {
+      if (buffer.getChar(position) != key.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private LookupConcept concept(int id) {
+    return getOrCreate(concepts, id, this::readConcept);
+  }
+
+  private LookupConcept.Parent parent(int id) {
+    return getOrCreate(parents, id, this::readParent);
+  }
+
+  private static <T> T getOrCreate(AtomicReferenceArray<T> cache, int i, IntFunction<T> factory) {
+    T value = cache.get(i);
+    if (value == null) {
+      value = factory.apply(i);
+      // only one instance is kept if several threads create it at the same time
+      if (!cache.compareAndSet(i, null, value)) {
+        value = cache.get(i);
+      }
+    }
+    return value;
+  }
+
+  private LookupConcept readConcept(int id) {
+    ByteBuffer record = record(conceptsOffset, id);
+    skipNullableLong(record);
+    skipNullableLong(record);
+    readString(record);
+    List<String> tags = readStrings(record);
+
+    int parentsCount = record.getInt();
+    List<LookupConcept.Parent> conceptParents = new ArrayList<>(parentsCount);
+    for (int i = 0; i < parentsCount; i++) {
+      conceptParents.add(parent(record.getInt()));
+    }
+
+    byte[] json = new byte[record.getInt()];
+    record.get(json);
+    try {
+      return LookupConcept.of(
+          ExportReader.OBJECT_MAPPER.readValue(json, Concept.class),
+          Collections.unmodifiableList(conceptParents),
+          tags);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Couldn't read the concept " + id + " of the snapshot", e);
+    }
+  }
+
+  private LookupConcept.Parent readParent(int id) {
+    ByteBuffer record = record(conceptsOffset, id);
+    Long key = readNullableLong(record);
+    Long parentKey = readNullableLong(record);
+    String name = readString(record);
+    return LookupConcept.Parent.of(key, parentKey, name, readStrings(record));
+  }
+
+  private LabelMatch readTie(int id) {
+    ByteBuffer record = record(tiesOffset, id);
+    LookupConcept[] allMatches = readConcepts(record);
+
+    int languagesCount = record.getInt();
+    Map<LanguageRegion, LookupConcept[]> matchesByLanguage = new EnumMap<>(LanguageRegion.class);
+    for (int i = 0; i < languagesCount; i++) {
+      matchesByLanguage.put(LanguageRegion.fromLocale(readString(record)), readConcepts(record));
+    }
+    return new LabelMatch(allMatches, matchesByLanguage);
+  }
+
+  private LookupConcept[] readConcepts(ByteBuffer record) {
+    LookupConcept[] result = new LookupConcept[record.getInt()];
+    for (int i = 0; i < result.length; i++) {
+      result[i] = concept(record.getInt());
+    }
+    return result;
+  }
+
+  /** Returns a buffer positioned at the start of the record, so it can be read sequentially. */
+  private ByteBuffer record(int offsetsOffset, int id) {
+    ByteBuffer record = buffer.duplicate();
+    record.position(buffer.getInt(offsetsOffset + id * Integer.BYTES));
+    return record;
+  }
+
+  private static void skipNullableLong(ByteBuffer record) {
+    record.position(record.position() + 1 + Long.BYTES);
+  }
+
+  private static Long readNullableLong(ByteBuffer record) {
+    boolean isNull = record.get() == 0;
+    long value = record.getLong();
+    return isNull ? null : value;
+  }
+
+  private static String readString(ByteBuffer record) {
+    int length = record.getInt();
+    if (length < 0) {
+      return null;
+    }
+
+    char[] chars = new char[length];
+    for (int i = 0; i < length; i++) {
+      chars[i] = record.getChar();
+    }
+    return new String(chars);
+  }
+
+  private static List<String> readStrings(ByteBuffer record) {
+    int size = record.getInt();
+    List<String> values = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      values.add(readString(record));
+    }
+    return Collections.unmodifiableList(values);
+  }
+
+  /** Encodes a {@link HeapLookupIndex} in the snapshot format. */
+  private static final class Writer {
+    private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    private final DataOutputStream out = new DataOutputStream(bytes);
+    private final Map<LookupConcept, Integer> ids = new IdentityHashMap<>();
+    private final Map<Long, Integer> idsByKey = new HashMap<>();
+    private final List<LabelMatch> ties = new ArrayList<>();
+
+    byte[] write(HeapLookupIndex index, String prefilterId) throws IOException {
+      out.write(new byte[HEADER_SIZE]);
+      writeString(prefilterId);
+
+      LookupConcept[] lookupConcepts = index.concepts;
+      for (int i = 0; i < lookupConcepts.length; i++) {
+        ids.put(lookupConcepts[i], i);
+        idsByKey.put(lookupConcepts[i].getConcept().getKey(), i);
+      }
+
+      Table names = writeKeys(index.names, ids::get);
+      Table labels = writeKeys(index.labels, this::labelValue);
+      Table hiddenLabels = writeKeys(index.hiddenLabels, ids::get);
+
+      int[] conceptOffsets = new int[lookupConcepts.length];
+      for (int i = 0; i < lookupConcepts.length; i++) {
+        conceptOffsets[i] = out.size();
+        writeConcept(lookupConcepts[i]);
+      }
+
+      int[] tieOffsets = new int[ties.size()];
+      for (int i = 0; i < tieOffsets.length; i++) {
+        tieOffsets[i] = out.size();
+        writeTie(ties.get(i));
+      }
+
+      int conceptsOffset = writeInts(conceptOffsets);
+      int tiesOffset = writeInts(tieOffsets);
+      int namesOffset = names.write();
+      int labelsOffset = labels.write();
+      int hiddenLabelsOffset = hiddenLabels.write();
+      out.flush();
+
+      byte[] result = bytes.toByteArray();
+      ByteBuffer.wrap(result)
+          .putInt(MAGIC)
+          .putInt(VERSION)
+          .putInt(AsciiStringNormalizer.VERSION)
+          .putInt(lookupConcepts.length)
+          .putInt(tieOffsets.length)
+          .putInt(conceptsOffset)
+          .putInt(tiesOffset)
+          .putInt(namesOffset)
+          .putInt(labelsOffset)
+          .putInt(hiddenLabelsOffset);
+      return result;
+    }
+
+    private int labelValue(LabelMatch match) {
+      if (match.allMatches.length == 1) {
+        return ids.get(match.allMatches[0]);
+      }
+      ties.add(match);
+      return -ties.size();
+    }
+
+    private <V> Table writeKeys(StringIndex<V> index, ToIntFunction<V> valueFn)
+        throws IOException {
+      List<Map.Entry<String, V>> entries = new ArrayList<>(index.size());
+      index.forEach((k, v) -> entries.add(Map.entry(k, v)));
+
+      Table table = new Table(index.size());
+      for (Map.Entry<String, V> entry : entries) {
+        int keyOffset = out.size();
+        writeString(entry.getKey());
+        table.put(entry.getKey(), keyOffset, valueFn.applyAsInt(entry.getValue()));
+      }
+      return table;
+    }
+
+    private void writeConcept(LookupConcept lookupConcept) throws IOException {
+      Concept concept = lookupConcept.getConcept();
+      writeNullableLong(concept.getKey());
+      writeNullableLong(concept.getParentKey());
+      writeString(concept.getName());
+      writeStrings(lookupConcept.getTags());
+
+      out.writeInt(lookupConcept.getParents().size());
+      for (LookupConcept.Parent parent : lookupConcept.getParents()) {
+        out.writeInt(idsByKey.get(parent.getKey()));
+      }
+
+      byte[] json = ExportReader.OBJECT_MAPPER.writeValueAsBytes(concept);
+      out.writeInt(json.length);
+      out.write(json);
+    }
+
+    private void writeTie(LabelMatch match) throws IOException {
+      writeIds(match.allMatches);
+      out.writeInt(match.matchesByLanguage.size());
+      for (Map.Entry<LanguageRegion, LookupConcept[]> entry :
+          match.matchesByLanguage.entrySet()) {
+        writeString(entry.getKey().getLocale());
+        writeIds(entry.getValue());
+      }
+    }
+
+    private void writeIds(LookupConcept[] concepts) throws IOException {
+      out.writeInt(concepts.length);
+      for (LookupConcept concept : concepts) {
+        out.writeInt(ids.get(concept));
+      }
+    }
+
+    private int writeInts(int[] values) throws IOException {
+      int offset = out.size();
+      for (int value : values) {
+        out.writeInt(value);
+      }
+      return offset;
+    }
+
+    private void writeNullableLong(Long value) throws IOException {
+      out.writeBoolean(value != null);
+      out.writeLong(value != null ? value : 0L);
+    }
+
+    private void writeString(String value) throws IOException {
+      if (value == null) {
+        out.writeInt(-1);
+        return;
+      }
+      out.writeInt(value.length());
+      out.writeChars(value);
+    }
+
+    private void writeStrings(List<String> values) throws IOException {
+      out.writeInt(values.size());
+      for (String value : values) {
+        writeString(value);
+      }
+    }
+
+    /** Hash table with the same layout and probing as {@link StringIndex}. */
+    private final class Table {
+      private final int[] hashes;
+      private final int[] keyOffsets;
+      private final int[] values;
+      private final int mask;
+
+      Table(int size) {
+        int capacity = StringIndex.tableSizeFor(size);
+        this.hashes = new int[capacity];
+        this.keyOffsets = new int[capacity];
+        this.values = new int[capacity];
+        this.mask = capacity - 1;
+      }
+
+      void put(String key, int keyOffset, int value) {
+        int hash = StringIndex.hash(key);
+        int i = hash & mask;
+        while (keyOffsets[i] != 0) {
+          i = (i + 1) & mask;
+        }
+        hashes[i] = hash;
+        keyOffsets[i] = keyOffset;
+        values[i] = value;
+      }
+
+      int write() throws IOException {
+        int offset = out.size();
+        out.writeInt(keyOffsets.length);
+        for (int i = 0; i < keyOffsets.length; i++) {
+          out.writeInt(hashes[i]);
+          out.writeInt(keyOffsets[i]);
+          out.writeInt(values[i]);
+        }
+        return offset;
+      }
+    }
+  }
+}
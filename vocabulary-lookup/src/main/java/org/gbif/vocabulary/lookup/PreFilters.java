@@ -13,6 +13,8 @@
  */
 package org.gbif.vocabulary.lookup;
 
+import java.util.Map;
+import java.util.function.Function;
 import java.util.function.UnaryOperator;
 import java.util.regex.Pattern;
 
@@ -73,4 +75,24 @@ public final class PreFilters {
    */
   public static final UnaryOperator<String> REMOVE_PARENTHESIS_CONTENT_SUFFIX =
       s -> PARENTHESIS_CONTENT_SUFFIX_PATTERN.matcher(s).replaceAll(EMPTY);
+
+  private static final Map<Function<String, String>, String> IDS =
+      Map.of(
+          REMOVE_NON_ALPHANUMERIC, "REMOVE_NON_ALPHANUMERIC",
+          REMOVE_NUMERIC, "REMOVE_NUMERIC",
+          REMOVE_POSITIVE_NUMERIC, "REMOVE_POSITIVE_NUMERIC",
+          REMOVE_NON_LETTER, "REMOVE_NON_LETTER",
+          REMOVE_NUMERIC_PREFIX, "REMOVE_NUMERIC_PREFIX",
+          REMOVE_SIGNED_DECIMAL_NUMBERS_PREFIX, "REMOVE_SIGNED_DECIMAL_NUMBERS_PREFIX",
+          REMOVE_PARENTHESIS_CONTENT_SUFFIX, "REMOVE_PARENTHESIS_CONTENT_SUFFIX");
+
+  /**
+   * Returns the id of a predefined prefilter.
+   *
+   * @param prefilter prefilter
+   * @return the name of the prefilter or null if it's not one of the predefined prefilters
+   */
+  static String idOf(Function<String, String> prefilter) {
+    return IDS.get(prefilter);
+  }
 }
@@ -0,0 +1,281 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.vocabulary.lookup;
+
+import org.gbif.vocabulary.lookup.InMemoryVocabularyLookup.InMemoryVocabularyLookupBuilder;
+import org.gbif.vocabulary.model.LanguageRegion;
+import org.gbif.vocabulary.model.VocabularyRelease;
+import org.gbif.vocabulary.tools.VocabularyDownloader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * {@link VocabularyLookup} that uses the latest release of a vocabulary and picks up the new
+ * releases without having to restart the application.
+ *
+ * <p>The latest release is polled periodically in a background thread. When its version is
+ * different from the current one, its export is downloaded, loaded in a new {@link
+ * InMemoryVocabularyLookup} and swapped atomically with the current one. The lookups don't take any
+ * lock, so they are never blocked by a refresh and they use either the old or the new release.
+ *
+ * <pre>
+ *   RefreshingVocabularyLookup lookup =
+ *       RefreshingVocabularyLookup.newBuilder()
+ *           .from("http://api.gbif.org/v1/", "LifeStage")
+ *           .withRefreshInterval(Duration.ofMinutes(30))
+ *           .withLookupSettings(b -> b.withPrefilter(PreFilters.REMOVE_NUMERIC_PREFIX))
+ *           .build();
+ * </pre>
+ */
+@Slf4j
+public class RefreshingVocabularyLookup implements VocabularyLookup {
+
+  private static final Duration DEFAULT_REFRESH_INTERVAL = Duration.ofMinutes(10);
+
+  private final String vocabularyName;
+  private final ReleaseSource releaseSource;
+  private final Consumer<InMemoryVocabularyLookupBuilder> lookupSettings;
+  private final Duration refreshInterval;
+  private final ScheduledExecutorService scheduler;
+  private final AtomicReference<ReleaseLookup> current = new AtomicReference<>();
+  // previous releases that haven't been closed yet
+  private final Set<InMemoryVocabularyLookup> retired = ConcurrentHashMap.newKeySet();
+
+  private RefreshingVocabularyLookup(Builder builder) {
+    this.vocabularyName = builder.vocabularyName;
+    this.releaseSource =
+        builder.releaseSource != null
+            ? builder.releaseSource
+            : ReleaseSource.fromApi(builder.apiUrl, builder.vocabularyName);
+    this.lookupSettings = builder.lookupSettings;
+    this.refreshInterval = builder.refreshInterval;
+    this.scheduler =
+        Executors.newSingleThreadScheduledExecutor(
+            r -> {
+              Thread thread = new Thread(r, "vocabulary-refresh-" + vocabularyName);
+              thread.setDaemon(true);
+              return thread;
+            });
+
+    // the first release is loaded synchronously so the lookup is ready when it's created
+    try {
+      refresh();
+    } catch (RuntimeException e) {
+      scheduler.shutdownNow();
+      throw e;
+    }
+
+    long intervalMillis = refreshInterval.toMillis();
+    scheduler.scheduleWithFixedDelay(
+        this::refreshQuietly, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+  }
+
+  @Override
+  public Optional<LookupConcept> lookup(String value) {
+    return current.get().lookup.lookup(value);
+  }
+
+  @Override
+  public Optional<LookupConcept> lookup(String value, LanguageRegion contextLang) {
+    return current.get().lookup.lookup(value, contextLang);
+  }
+
+  @Override
+  public void lookupBatch(String[] values, LanguageRegion contextLang, LookupConcept[] results) {
+    // the whole batch is resolved with the same release
+    current.get().lookup.lookupBatch(values, contextLang, results);
+  }
+
+  /** Version of the release currently used. */
+  public String getVersion() {
+    return current.get().version;
+  }
+
+  /**
+   * Checks if there is a new release and, if so, loads it and swaps it with the current one. It is
+   * called periodically but it can also be called to force a refresh.
+   *
+   * @return true if a new release was loaded
+   */
+  public synchronized boolean refresh() {
+    VocabularyRelease release = releaseSource.getLatestRelease();
+    ReleaseLookup currentLookup = current.get();
+    if (currentLookup != null && Objects.equals(currentLookup.version, release.getVersion())) {
+      log.debug("Vocabulary {} already in version {}", vocabularyName, release.getVersion());
+      return false;
+    }
+
+    InMemoryVocabularyLookupBuilder lookupBuilder = InMemoryVocabularyLookup.newBuilder();
+    lookupSettings.accept(lookupBuilder);
+
+    InMemoryVocabularyLookup newLookup;
+    try (InputStream in = releaseSource.downloadExport(release)) {
+      newLookup = lookupBuilder.from(in).build();
+    } catch (IOException e) {
+      throw new UncheckedIOException(
+          "Couldn't load the release " + release.getVersion() + " of " + vocabularyName, e);
+    }
+
+    ReleaseLookup previous = current.getAndSet(new ReleaseLookup(newLookup, release.getVersion()));
+    log.info("Vocabulary {} loaded in version {}", vocabularyName, release.getVersion());
+
+    if (previous != null) {
+      if (scheduler.isShutdown()) {
+        previous.lookup.close();
+      } else {
+        // the lookups that are still using the previous release are given some time to finish.
+        // If this lookup is closed before, they are closed then
+        retired.add(previous.lookup);
+        scheduler.schedule(
+            () -> closeRetired(previous.lookup),
+            refreshInterval.toMillis(),
+            TimeUnit.MILLISECONDS);
+      }
+    }
+    return true;
+  }
+
+  private void closeRetired(InMemoryVocabularyLookup lookup) {
+    if (retired.remove(lookup)) {
+      lookup.close();
+    }
+  }
+
+  private void refreshQuietly() {
+    try {
+      refresh();
+    } catch (Exception e) {
+      // the current release is kept and it will be retried in the next refresh
+      log.warn("Couldn't refresh vocabulary {}", vocabularyName, e);
+    }
+  }
+
+  @Override
+  public synchronized void close() {
+    // the pending closes of the previous releases are discarded, so they are closed here
+    scheduler.shutdownNow();
+    retired.forEach(this::closeRetired);
+    current.get().lookup.close();
+  }
+
+  public static Builder newBuilder() {
+    return new Builder();
+  }
+
+  /** Lookup of a release with its version, so they are swapped together. */
+  private static final class ReleaseLookup {
+    final InMemoryVocabularyLookup lookup;
+    final String version;
+
+    ReleaseLookup(InMemoryVocabularyLookup lookup, String version) {
+      this.lookup = lookup;
+      this.version = version;
+    }
+  }
+
+  /** Source of the releases of a vocabulary. */
+  interface ReleaseSource {
+
+    /** Gets the latest release. */
+    VocabularyRelease getLatestRelease();
+
+    /** Downloads the export of a release. */
+    InputStream downloadExport(VocabularyRelease release) throws IOException;
+
+    static ReleaseSource fromApi(String apiUrl, String vocabularyName) {
+      return new ReleaseSource() {
+        @Override
+        public VocabularyRelease getLatestRelease() {
+          return VocabularyDownloader.getLatestRelease(apiUrl, vocabularyName);
+        }
+
+        @Override
+        public InputStream downloadExport(VocabularyRelease release) throws IOException {
+          // the downloads go through the HTTP cache of the downloader and the temporary file is
+          // deleted once it's loaded
+          return Files.newInputStream(
+              VocabularyDownloader.downloadVocabularyExport(release.getExportUrl()),
+              StandardOpenOption.DELETE_ON_CLOSE);
+        }
+      };
+    }
+  }
+
+  /**
+   * Builder to create instances of {@link RefreshingVocabularyLookup}.
+   *
+   * <p>It is required to call the from method.
+   */
+  public static class Builder {
+    private String apiUrl;
+    private String vocabularyName;
+    private ReleaseSource releaseSource;
+    private Duration refreshInterval = DEFAULT_REFRESH_INTERVAL;
+    private Consumer<InMemoryVocabularyLookupBuilder> lookupSettings = b -> {};
+
+    public Builder from(String apiUrl, String vocabularyName) {
+      this.apiUrl = apiUrl;
+      this.vocabularyName = vocabularyName;
+      return this;
+    }
+
+    /** Interval between the checks of new releases. By default it's 10 minutes. */
+    public Builder withRefreshInterval(Duration refreshInterval) {
+      Objects.requireNonNull(refreshInterval);
+      if (refreshInterval.isNegative() || refreshInterval.isZero()) {
+        throw new IllegalArgumentException("The refresh interval has to be positive");
+      }
+      this.refreshInterval = refreshInterval;
+      return this;
+    }
+
+    /**
+     * Settings applied to the {@link InMemoryVocabularyLookupBuilder} of every release loaded,
+     * e.g.: the prefilter or the miss cache.
+     */
+    public Builder withLookupSettings(Consumer<InMemoryVocabularyLookupBuilder> lookupSettings) {
+      this.lookupSettings = Objects.requireNonNull(lookupSettings);
+      return this;
+    }
+
+    Builder withReleaseSource(String vocabularyName, ReleaseSource releaseSource) {
+      this.vocabularyName = vocabularyName;
+      this.releaseSource = releaseSource;
+      return this;
+    }
+
+    public RefreshingVocabularyLookup build() {
+      if (vocabularyName == null || (releaseSource == null && apiUrl == null)) {
+        throw new IllegalArgumentException("The API URL and the vocabulary name are required");
+      }
+      return new RefreshingVocabularyLookup(this);
+    }
+  }
+}
@@ -0,0 +1,122 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.vocabulary.lookup;
+
+import java.io.Serializable;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.BiConsumer;
+
+/**
+ * Read-only hash table keyed by strings.
+ *
+ * <p>It uses open addressing with linear probing over plain arrays and keeps the hash of every key
+ * to avoid calling {@link String#equals(Object)} on collisions. Instances are built once from a
+ * {@link Map} and never change afterwards, so they are safe to be shared between threads.
+ *
+ * @param <V> type of the values
+ */
+final class StringIndex<V> implements Serializable {
+
+  private final String[] keys;
+  private final int[] hashes;
+  private final Object[] values;
+  private final int mask;
+  private final int size;
+
+  private StringIndex(int size) {
+    int capacity = tableSizeFor(size);
+    this.keys = new String[capacity];
+    this.hashes = new int[capacity];
+    this.values = new Object[capacity];
+    this.mask = capacity - 1;
+    this.size = size;
+  }
+
+  /**
+   * Creates a new index with all the entries of the map received.
+   *
+   * @param map entries to index. Null keys or values are not allowed
+   * @return the new index
+   */
+  static <V> StringIndex<V> of(Map<String, V> map) {
+    StringIndex<V> index = new StringIndex<>(map.size());
+    map.forEach(index::insert);
+    return index;
+  }
+
+  /**
+   * Returns the value associated to the key.
+   *
+   * @param key key to look up
+   * @return the value found or null if the key doesn't exist
+   */
+  @SuppressWarnings("unchecked")
+  V get(String key) {
+    if (key == null) {
+      return null;
+    }
+
+    int hash = hash(key);
+    int i = hash & mask;
+    String k;
+    while ((k = keys[i]) != null) {
+      if (hashes[i] == hash && (k == key || k.equals(key))) {
+        return (V) values[i];
+      }
+      i = (i + 1) & mask;
+    }
+    return null;
+  }
+
+  int size() {
+    return size;
+  }
+
+  /** Performs the action for each entry of the index. */
+  @SuppressWarnings("unchecked")
+  void forEach(BiConsumer<String, V> action) {
+    for (int i = 0; i < keys.length; i++) {
+      if (keys[i] != null) {
+        action.accept(keys[i], (V) values[i]);
+      }
+    }
+  }
+
+  private void insert(String key, V value) {
+    Objects.requireNonNull(key);
+    Objects.requireNonNull(value);
+
+    int hash = hash(key);
+    int i = hash & mask;
+    while (keys[i] != null) {
+      i = (i + 1) & mask;
+    }
+    keys[i] = key;
+    hashes[i] = hash;
+    values[i] = value;
+  }
+
+  static int hash(String key) {
+    // spreads the bits so the low bits used as table index are well distributed
+    int h = key.hashCode() * 0x9E3779B9;
+    return h ^ (h >>> 16);
+  }
+
+  /** Power of two that keeps the load factor at 0.5 at most. */
+  static int tableSizeFor(int size) {
+    int capacity = Integer.highestOneBit(Math.max(size, 1) * 2 - 1) << 1;
+    return Math.max(capacity, 2);
+  }
+}
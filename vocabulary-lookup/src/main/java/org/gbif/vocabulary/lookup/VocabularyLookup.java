@@ -16,6 +16,10 @@ package org.gbif.vocabulary.lookup;
 import org.gbif.vocabulary.model.LanguageRegion;
 
 import java.io.Serializable;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 
 /** Service to look up concepts within a vocabulary. */
@@ -41,6 +45,46 @@ public interface VocabularyLookup extends AutoCloseable, Serializable {
    */
   Optional<LookupConcept> lookup(String value, LanguageRegion contextLang);
 
+  /**
+   * Looks up a batch of values in the vocabulary with a language context.
+   *
+   * <p>It is intended for callers that process many values at once. Duplicate values in the batch
+   * are only looked up once, so they get the same {@link LookupConcept} instance.
+   *
+   * @param values the values whose concepts we are looking for
+   * @param contextLang {@link LanguageRegion} to use in the lookup. It can be null
+   * @param results array where the {@link LookupConcept} found for each value is set in the same
+   *     position. Null is set if there was no match. It has to be at least as long as the values
+   */
+  default void lookupBatch(String[] values, LanguageRegion contextLang, LookupConcept[] results) {
+    checkBatchArguments(values, results);
+
+    Map<String, Optional<LookupConcept>> resolved = new HashMap<>();
+    for (int i = 0; i < values.length; i++) {
+      String value = values[i];
+      results[i] =
+          value != null
+              ? resolved.computeIfAbsent(value, v -> lookup(v, contextLang)).orElse(null)
+              : null;
+    }
+  }
+
+  /**
+   * Same as {@link #lookupBatch(String[], LanguageRegion, LookupConcept[])} but it takes a list of
+   * values and creates the results array.
+   *
+   * @param values the values whose concepts we are looking for
+   * @param contextLang {@link LanguageRegion} to use in the lookup. It can be null
+   * @return array with the {@link LookupConcept} found for each value in the same position. Null
+   *     if there was no match
+   */
+  default LookupConcept[] lookupBatch(List<String> values, LanguageRegion contextLang) {
+    Objects.requireNonNull(values);
+    LookupConcept[] results = new LookupConcept[values.size()];
+    lookupBatch(values.toArray(new String[0]), contextLang, results);
+    return results;
+  }
+
   /**
    * See {@link AutoCloseable#close()}.
    *
@@ -48,4 +92,13 @@ public interface VocabularyLookup extends AutoCloseable, Serializable {
    */
   @Override
   void close();
+
+  private static void checkBatchArguments(String[] values, LookupConcept[] results) {
+    Objects.requireNonNull(values);
+    Objects.requireNonNull(results);
+    if (results.length < values.length) {
+      throw new IllegalArgumentException(
+          "The results array has to be at least as long as the values array");
+    }
+  }
 }
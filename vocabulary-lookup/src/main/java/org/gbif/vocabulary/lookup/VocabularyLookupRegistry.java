@@ -0,0 +1,365 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.vocabulary.lookup;
+
+import org.gbif.vocabulary.lookup.LookupIndex.LabelMatch;
+import org.gbif.vocabulary.model.LanguageRegion;
+import org.gbif.vocabulary.tools.VocabularyDownloader;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+
+import lombok.extern.slf4j.Slf4j;
+
+import static org.gbif.vocabulary.model.normalizers.AsciiStringNormalizer.normalizeLabel;
+
+/**
+ * Holds several vocabularies behind one API, so a value can be looked up in many of them with one
+ * single call.
+ *
+ * <p>The normalized names and labels of all the vocabularies are kept in one table, so the values
+ * that several vocabularies have in common are stored only once. The values looked up are
+ * prefiltered, normalized and probed only once for all the vocabularies that share the same
+ * prefilter instance.
+ *
+ * <pre>
+ *   VocabularyLookupRegistry registry =
+ *       VocabularyLookupRegistry.newBuilder()
+ *           .add("LifeStage", lifeStageExport, PreFilters.REMOVE_NUMERIC_PREFIX)
+ *           .add("Sex", sexExport)
+ *           .addLatest("http://api.gbif.org/v1/", "Pathway", null)
+ *           .build();
+ *
+ *   // one value in several vocabularies
+ *   LookupConcept[] concepts = registry.lookupAll("adult", null, "LifeStage", "Sex");
+ *
+ *   // the fields of a record, each of them in its vocabulary
+ *   registry.lookupFields(
+ *       new String[] {lifeStage, sex, pathway},
+ *       new String[] {"LifeStage", "Sex", "Pathway"},
+ *       LanguageRegion.ENGLISH,
+ *       results);
+ * </pre>
+ */
+@Slf4j
+public final class VocabularyLookupRegistry {
+
+  private final Map<String, Integer> vocabularyIds;
+  private final List<Function<String, String>> prefilters;
+  // index in the prefilters list of the prefilter of each vocabulary
+  private final int[] prefilterOfVocabulary;
+  private final StringIndex<SharedEntry> entries;
+
+  private VocabularyLookupRegistry(Builder builder) {
+    this.vocabularyIds = Collections.unmodifiableMap(new LinkedHashMap<>(builder.vocabularyIds));
+    this.prefilters = new ArrayList<>(builder.prefilters);
+    this.prefilterOfVocabulary =
+        builder.prefilterOfVocabulary.stream().mapToInt(Integer::intValue).toArray();
+
+    // the values of all the vocabularies are merged in one table
+    Map<String, SharedEntry> merged = new HashMap<>();
+    for (int i = 0; i < builder.indexes.size(); i++) {
+      merge(i, builder.indexes.get(i), merged);
+    }
+    this.entries = StringIndex.of(merged);
+  }
+
+  private static void merge(
+      int vocabularyId, HeapLookupIndex index, Map<String, SharedEntry> merged) {
+    Map<String, SharedEntry> vocabularyEntries = new HashMap<>();
+    Function<String, SharedEntry> newEntry = k -> new SharedEntry(vocabularyId);
+    index.names.forEach((k, v) -> vocabularyEntries.computeIfAbsent(k, newEntry).name = v);
+    index.labels.forEach((k, v) -> vocabularyEntries.computeIfAbsent(k, newEntry).label = v);
+    index.hiddenLabels.forEach(
+        (k, v) -> vocabularyEntries.computeIfAbsent(k, newEntry).hiddenLabel = v);
+
+    // the entries of other vocabularies with the same value are chained
+    vocabularyEntries.forEach(
+        (k, v) ->
+            merged.compute(
+                k,
+                (key, next) -> {
+                  v.next = next;
+                  return v;
+                }));
+  }
+
+  /** Names of the vocabularies of the registry. */
+  public Set<String> getVocabularyNames() {
+    return vocabularyIds.keySet();
+  }
+
+  /**
+   * Looks up a value in one vocabulary.
+   *
+   * @param vocabularyName name of the vocabulary
+   * @param value the value whose concept we are looking for
+   * @param contextLang {@link LanguageRegion} to break ties. It can be null
+   * @return the {@link LookupConcept} found. Empty {@link Optional} if there was no match.
+   */
+  public Optional<LookupConcept> lookup(
+      String vocabularyName, String value, LanguageRegion contextLang) {
+    int vocabularyId = vocabularyId(vocabularyName);
+    if (value == null || value.isEmpty()) {
+      return Optional.empty();
+    }
+    return Optional.ofNullable(
+        resolve(value, vocabularyId, contextLang, probe(value, vocabularyId, null)));
+  }
+
+  /**
+   * Looks up a value in several vocabularies.
+   *
+   * @param value the value whose concepts we are looking for
+   * @param contextLang {@link LanguageRegion} to break ties. It can be null
+   * @param vocabularyNames names of the vocabularies
+   * @return array with the {@link LookupConcept} found in each vocabulary in the same position as
+   *     the vocabulary names. Null if there was no match
+   */
+  public LookupConcept[] lookupAll(
+      String value, LanguageRegion contextLang, String... vocabularyNames) {
+    Objects.requireNonNull(vocabularyNames);
+    LookupConcept[] results = new LookupConcept[vocabularyNames.length];
+    String[] values = new String[vocabularyNames.length];
+    Arrays.fill(values, value);
+    lookupFields(values, vocabularyNames, contextLang, results);
+    return results;
+  }
+
+  /**
+   * Looks up several values, each of them in its vocabulary. It is intended to resolve all the
+   * fields of a record with one call.
+   *
+   * <p>The values that are repeated in vocabularies with the same prefilter are only normalized and
+   * probed once.
+   *
+   * @param values the values whose concepts we are looking for
+   * @param vocabularyNames names of the vocabularies of each value, in the same position
+   * @param contextLang {@link LanguageRegion} to break ties. It can be null
+   * @param results array where the {@link LookupConcept} found for each value is set in the same
+   *     position. Null is set if there was no match
+   */
+  public void lookupFields(
+      String[] values,
+      String[] vocabularyNames,
+      LanguageRegion contextLang,
+      LookupConcept[] results) {
+    Objects.requireNonNull(values);
+    Objects.requireNonNull(vocabularyNames);
+    Objects.requireNonNull(results);
+    if (vocabularyNames.length != values.length || results.length < values.length) {
+      throw new IllegalArgumentException(
+          "There has to be one vocabulary per value and the results array has to be at least as "
+              + "long as the values array");
+    }
+
+    int[] ids = new int[values.length];
+    SharedEntry[] probed = new SharedEntry[values.length];
+    StringBuilder buffer = new StringBuilder();
+    for (int i = 0; i < values.length; i++) {
+      ids[i] = vocabularyId(vocabularyNames[i]);
+      String value = values[i];
+      if (value == null || value.isEmpty()) {
+        results[i] = null;
+        continue;
+      }
+
+      // reuse the probes of the same value with the same prefilter
+      int reused = -1;
+      for (int j = 0; j < i && reused < 0; j++) {
+        if (prefilterOfVocabulary[ids[j]] == prefilterOfVocabulary[ids[i]]
+            && value.equals(values[j])) {
+          reused = j;
+        }
+      }
+
+      probed[i] = reused >= 0 ? probed[reused] : probe(value, ids[i], buffer);
+      results[i] = resolve(value, ids[i], contextLang, probed[i]);
+    }
+  }
+
+  /**
+   * Returns a {@link VocabularyLookup} of one of the vocabularies of the registry. It shares the
+   * tables of the registry.
+   *
+   * @param vocabularyName name of the vocabulary
+   */
+  public VocabularyLookup get(String vocabularyName) {
+    String name = Objects.requireNonNull(vocabularyName);
+    vocabularyId(name);
+    return new VocabularyLookup() {
+      @Override
+      public Optional<LookupConcept> lookup(String value) {
+        return lookup(value, null);
+      }
+
+      @Override
+      public Optional<LookupConcept> lookup(String value, LanguageRegion contextLang) {
+        return VocabularyLookupRegistry.this.lookup(name, value, contextLang);
+      }
+
+      @Override
+      public void close() {
+        // the registry doesn't hold any resources
+      }
+    };
+  }
+
+  private int vocabularyId(String vocabularyName) {
+    Integer id = vocabularyIds.get(vocabularyName);
+    if (id == null) {
+      throw new IllegalArgumentException("Vocabulary not found in the registry: " + vocabularyName);
+    }
+    return id;
+  }
+
+  private SharedEntry probe(String value, int vocabularyId, StringBuilder buffer) {
+    Function<String, String> prefilter = prefilters.get(prefilterOfVocabulary[vocabularyId]);
+    if (prefilter != null) {
+      value = prefilter.apply(value);
+    }
+    return entries.get(normalizeLabel(value, buffer));
+  }
+
+  private static LookupConcept resolve(
+      String value, int vocabularyId, LanguageRegion contextLang, SharedEntry entry) {
+    for (SharedEntry e = entry; e != null; e = e.next) {
+      if (e.vocabularyId != vocabularyId) {
+        continue;
+      }
+
+      if (e.name != null) {
+        return e.name;
+      }
+
+      if (e.label != null) {
+        LookupConcept labelMatch =
+            InMemoryVocabularyLookup.resolveLabelMatch(e.label, contextLang, value);
+        if (labelMatch != null) {
+          return labelMatch;
+        }
+      }
+
+      return e.hiddenLabel;
+    }
+
+    log.debug("Couldn't find any match for {}", value);
+    return null;
+  }
+
+  public static Builder newBuilder() {
+    return new Builder();
+  }
+
+  /**
+   * Matches of a normalized value in one vocabulary. The entries of the same value in other
+   * vocabularies are chained.
+   */
+  private static final class SharedEntry {
+    final int vocabularyId;
+    LookupConcept name;
+    LabelMatch label;
+    LookupConcept hiddenLabel;
+    SharedEntry next;
+
+    SharedEntry(int vocabularyId) {
+      this.vocabularyId = vocabularyId;
+    }
+  }
+
+  /**
+   * Builder to create instances of {@link VocabularyLookupRegistry}. The vocabularies are loaded
+   * when they are added.
+   */
+  public static final class Builder {
+    private final Map<String, Integer> vocabularyIds = new LinkedHashMap<>();
+    private final List<HeapLookupIndex> indexes = new ArrayList<>();
+    private final List<Function<String, String>> prefilters = new ArrayList<>();
+    private final List<Integer> prefilterOfVocabulary = new ArrayList<>();
+
+    private Builder() {}
+
+    /**
+     * Adds a vocabulary from its export.
+     *
+     * @param vocabularyName name used to look up values in the vocabulary
+     * @param export export of the vocabulary
+     */
+    public Builder add(String vocabularyName, InputStream export) {
+      return add(vocabularyName, export, null);
+    }
+
+    /**
+     * Adds a vocabulary from its export with a prefilter. The vocabularies that use the same
+     * prefilter instance share the normalization of the values.
+     *
+     * @param vocabularyName name used to look up values in the vocabulary
+     * @param export export of the vocabulary
+     * @param prefilter prefilter applied to the values of the vocabulary. It can be null
+     */
+    public Builder add(
+        String vocabularyName, InputStream export, Function<String, String> prefilter) {
+      Objects.requireNonNull(vocabularyName);
+      if (vocabularyIds.containsKey(vocabularyName)) {
+        throw new IllegalArgumentException("Vocabulary already added: " + vocabularyName);
+      }
+
+      int prefilterId = -1;
+      for (int i = 0; i < prefilters.size() && prefilterId < 0; i++) {
+        if (prefilters.get(i) == prefilter) {
+          prefilterId = i;
+        }
+      }
+      if (prefilterId < 0) {
+        prefilters.add(prefilter);
+        prefilterId = prefilters.size() - 1;
+      }
+
+      indexes.add(
+          (HeapLookupIndex) InMemoryVocabularyLookup.importVocabulary(export, prefilter));
+      vocabularyIds.put(vocabularyName, vocabularyIds.size());
+      prefilterOfVocabulary.add(prefilterId);
+      return this;
+    }
+
+    /**
+     * Downloads the latest version of a vocabulary via the vocabulary API and adds it.
+     *
+     * @param apiUrl URL of the vocabulary API
+     * @param vocabularyName name of the vocabulary
+     * @param prefilter prefilter applied to the values of the vocabulary. It can be null
+     */
+    public Builder addLatest(
+        String apiUrl, String vocabularyName, Function<String, String> prefilter) {
+      return add(
+          vocabularyName,
+          VocabularyDownloader.downloadLatestVocabularyVersion(apiUrl, vocabularyName),
+          prefilter);
+    }
+
+    public VocabularyLookupRegistry build() {
+      return new VocabularyLookupRegistry(this);
+    }
+  }
+}
@@ -0,0 +1,134 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.vocabulary.lookup;
+
+import org.gbif.vocabulary.model.Concept;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.function.Function;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** Tests the {@link ExportReader}. */
+public class ExportReaderTest {
+
+  @Test
+  public void readExportTest() throws IOException {
+    LookupIndex.Builder builder = LookupIndex.builder(Function.identity());
+    try (InputStream in =
+        Thread.currentThread().getContextClassLoader().getResourceAsStream("test-vocab.json")) {
+      ExportReader.read(in, builder);
+    }
+    LookupIndex index = builder.build();
+
+    LookupConcept january = index.getByName("january");
+    assertNotNull(january);
+    Concept concept = january.getConcept();
+    assertEquals(1L, concept.getKey());
+    assertEquals("January", concept.getName());
+    assertNotNull(concept.getCreated());
+    assertNull(concept.getParentKey());
+    assertTrue(concept.getExternalDefinitions().isEmpty());
+
+    // labels, alternative labels and hidden labels
+    assertSame(january, index.getByLabel("enero").allMatches[0]);
+    assertSame(january, index.getByLabel("ene.").allMatches[0]);
+    assertSame(january, index.getByHiddenLabel("janauary"));
+  }
+
+  @Test
+  public void unknownFieldsTest() throws IOException {
+    String export =
+        "{\"metadata\":{\"version\":\"1.0\",\"extra\":[1,{\"a\":2}]},"
+            + "\"other\":\"value\","
+            + "\"concepts\":[{\"key\":7,\"name\":\"Adult\",\"unknown\":{\"x\":[1,2]},"
+            + "\"definition\":{\"en\":\"long text\"},\"label\":{\"en\":\"Adult\"},"
+            + "\"tags\":[\"tag1\"]}]}";
+
+    LookupIndex.Builder builder = LookupIndex.builder(Function.identity());
+    ExportReader.read(new ByteArrayInputStream(export.getBytes(StandardCharsets.UTF_8)), builder);
+    LookupIndex index = builder.build();
+
+    LookupConcept adult = index.getByName("adult");
+    assertEquals(7L, adult.getConcept().getKey());
+    assertEquals("tag1", adult.getTags().get(0));
+  }
+
+  @Test
+  public void nullValuesTest() throws IOException {
+    String export =
+        "{\"concepts\":[{\"key\":7,\"name\":\"Adult\","
+            + "\"label\":{\"en\":null,\"es\":\"Adulto\"},"
+            + "\"alternativeLabels\":{\"en\":[null,\"Grownup\"]},"
+            + "\"hiddenLabels\":[\"adlt\",null],"
+            + "\"tags\":[null,\"tag1\",null]}]}";
+
+    LookupIndex.Builder builder = LookupIndex.builder(Function.identity());
+    ExportReader.read(new ByteArrayInputStream(export.getBytes(StandardCharsets.UTF_8)), builder);
+    LookupIndex index = builder.build();
+
+    LookupConcept adult = index.getByName("adult");
+    assertEquals(7L, adult.getConcept().getKey());
+    assertEquals(List.of("tag1"), adult.getTags());
+    assertSame(adult, index.getByLabel("adulto").allMatches[0]);
+    assertSame(adult, index.getByLabel("grownup").allMatches[0]);
+    assertSame(adult, index.getByHiddenLabel("adlt"));
+  }
+
+  @Test
+  public void compressedExportTest() throws IOException {
+    ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+    try (InputStream in =
+            Thread.currentThread().getContextClassLoader().getResourceAsStream("test-vocab.json");
+        OutputStream out = new GZIPOutputStream(compressed)) {
+      byte[] buffer = new byte[8192];
+      int read;
+      while ((read = in.read(buffer)) != -1) {
+        out.write(buffer, 0, read);
+      }
+    }
+
+    LookupIndex.Builder builder = LookupIndex.builder(Function.identity());
+    ExportReader.read(new ByteArrayInputStream(compressed.toByteArray()), builder);
+    LookupIndex index = builder.build();
+
+    assertEquals("January", index.getByName("january").getConcept().getName());
+  }
+
+  @Test
+  public void invalidExportTest() {
+    LookupIndex.Builder builder = LookupIndex.builder(Function.identity());
+    assertThrows(
+        IOException.class,
+        () ->
+            ExportReader.read(
+                new ByteArrayInputStream(
+                    "[{\"concepts\":[]}]".getBytes(StandardCharsets.UTF_8)),
+                builder));
+  }
+}
@@ -0,0 +1,127 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.vocabulary.lookup;
+
+import org.gbif.vocabulary.lookup.RefreshingVocabularyLookup.ReleaseSource;
+import org.gbif.vocabulary.model.VocabularyRelease;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** Tests the {@link RefreshingVocabularyLookup}. */
+public class RefreshingVocabularyLookupTest {
+
+  @Test
+  public void refreshTest() {
+    FakeReleaseSource source = new FakeReleaseSource();
+    source.publish("1.0", "test-vocab.json");
+
+    try (RefreshingVocabularyLookup lookup = createLookup(source)) {
+      assertEquals("1.0", lookup.getVersion());
+      assertEquals("January", lookup.lookup("enero").get().getConcept().getName());
+      assertEquals(1, source.downloads);
+
+      // same version
+      assertFalse(lookup.refresh());
+      assertEquals("1.0", lookup.getVersion());
+      assertEquals(1, source.downloads);
+
+      // new release
+      source.publish("2.0", "LifeStage.json");
+      assertTrue(lookup.refresh());
+      assertEquals("2.0", lookup.getVersion());
+      assertEquals(2, source.downloads);
+      assertEquals("Adult", lookup.lookup("adult").get().getConcept().getName());
+      assertFalse(lookup.lookup("enero").isPresent());
+    }
+  }
+
+  @Test
+  public void failedRefreshTest() {
+    FakeReleaseSource source = new FakeReleaseSource();
+    source.publish("1.0", "test-vocab.json");
+
+    try (RefreshingVocabularyLookup lookup = createLookup(source)) {
+      // the export of the new release can't be downloaded
+      source.publish("2.0", "missing.json");
+      assertThrows(UncheckedIOException.class, lookup::refresh);
+      assertEquals("1.0", lookup.getVersion());
+      assertEquals("January", lookup.lookup("enero").get().getConcept().getName());
+
+      // it's retried in the next refresh even though the latest release didn't change
+      source.exports.put("2.0", "LifeStage.json");
+      assertTrue(lookup.refresh());
+      assertEquals("2.0", lookup.getVersion());
+    }
+  }
+
+  @Test
+  public void invalidBuilderTest() {
+    assertThrows(
+        IllegalArgumentException.class, () -> RefreshingVocabularyLookup.newBuilder().build());
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> RefreshingVocabularyLookup.newBuilder().withRefreshInterval(Duration.ZERO));
+  }
+
+  private static RefreshingVocabularyLookup createLookup(ReleaseSource source) {
+    return RefreshingVocabularyLookup.newBuilder()
+        .withReleaseSource("Test", source)
+        .withRefreshInterval(Duration.ofHours(1))
+        .build();
+  }
+
+  /** Releases served from the test resources. */
+  private static class FakeReleaseSource implements ReleaseSource {
+    final Map<String, String> exports = new HashMap<>();
+    String version;
+    int downloads;
+
+    void publish(String version, String resource) {
+      this.version = version;
+      exports.put(version, resource);
+    }
+
+    @Override
+    public VocabularyRelease getLatestRelease() {
+      VocabularyRelease release = new VocabularyRelease();
+      release.setVersion(version);
+      return release;
+    }
+
+    @Override
+    public InputStream downloadExport(VocabularyRelease release) throws IOException {
+      InputStream in =
+          Thread.currentThread()
+              .getContextClassLoader()
+              .getResourceAsStream(exports.get(release.getVersion()));
+      if (in == null) {
+        throw new IOException("Export not found");
+      }
+      downloads++;
+      return in;
+    }
+  }
+}
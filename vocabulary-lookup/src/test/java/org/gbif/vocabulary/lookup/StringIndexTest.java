@@ -0,0 +1,50 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.vocabulary.lookup;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/** Tests the {@link StringIndex}. */
+public class StringIndexTest {
+
+  @Test
+  public void stringIndexTest() {
+    Map<String, Integer> map = new HashMap<>();
+    for (int i = 0; i < 5000; i++) {
+      map.put("value" + i, i);
+    }
+
+    StringIndex<Integer> index = StringIndex.of(map);
+    assertEquals(5000, index.size());
+    for (int i = 0; i < 5000; i++) {
+      assertEquals(i, index.get("value" + i));
+    }
+    assertNull(index.get("value5000"));
+    assertNull(index.get(null));
+  }
+
+  @Test
+  public void emptyStringIndexTest() {
+    StringIndex<Integer> index = StringIndex.of(Collections.emptyMap());
+    assertEquals(0, index.size());
+    assertNull(index.get("value"));
+  }
+}
@@ -0,0 +1,123 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.vocabulary.lookup;
+
+import org.gbif.vocabulary.model.LanguageRegion;
+
+import java.io.InputStream;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/** Tests the {@link VocabularyLookupRegistry}. */
+public class VocabularyLookupRegistryTest {
+
+  private static final VocabularyLookupRegistry REGISTRY =
+      VocabularyLookupRegistry.newBuilder()
+          .add("LifeStage", resource("LifeStage.json"), PreFilters.REMOVE_NUMERIC_PREFIX)
+          .add("Pathway", resource("Pathway.json"))
+          .add("Months", resource("test-vocab.json"))
+          .build();
+
+  @Test
+  public void lookupTest() {
+    assertEquals(
+        Arrays.asList("LifeStage", "Pathway", "Months"),
+        Arrays.asList(REGISTRY.getVocabularyNames().toArray()));
+
+    assertEquals(
+        "Adult", REGISTRY.lookup("LifeStage", "1 adult", null).get().getConcept().getName());
+    assertEquals("February", REGISTRY.lookup("Months", "Fév", null).get().getConcept().getName());
+    assertFalse(REGISTRY.lookup("Months", "1 adult", null).isPresent());
+    assertFalse(REGISTRY.lookup("LifeStage", null, null).isPresent());
+
+    // labels shared by several concepts
+    assertFalse(REGISTRY.lookup("Months", "Marzo", null).isPresent());
+    assertEquals(
+        "March",
+        REGISTRY.lookup("Months", "Marzo", LanguageRegion.SPANISH).get().getConcept().getName());
+
+    assertThrows(
+        IllegalArgumentException.class, () -> REGISTRY.lookup("Unknown", "adult", null));
+  }
+
+  @Test
+  public void lookupInSeveralVocabulariesTest() {
+    LookupConcept[] concepts = REGISTRY.lookupAll("Adult", null, "LifeStage", "Pathway", "Months");
+    assertEquals(3, concepts.length);
+    assertEquals("Adult", concepts[0].getConcept().getName());
+    assertNull(concepts[1]);
+    assertNull(concepts[2]);
+
+    concepts = REGISTRY.lookupAll("January", null, "Months", "LifeStage");
+    assertEquals("January", concepts[0].getConcept().getName());
+    assertNull(concepts[1]);
+  }
+
+  @Test
+  public void lookupFieldsTest() {
+    LookupConcept[] results = new LookupConcept[4];
+    REGISTRY.lookupFields(
+        new String[] {"10 adult", "natural dispersal", "ÉnERo", null},
+        new String[] {"LifeStage", "Pathway", "Months", "Months"},
+        null,
+        results);
+
+    assertEquals("Adult", results[0].getConcept().getName());
+    assertEquals("naturalDispersal", results[1].getConcept().getName());
+    assertEquals(2, results[1].getParents().size());
+    assertEquals("January", results[2].getConcept().getName());
+    assertNull(results[3]);
+
+    assertThrows(
+        IllegalArgumentException.class,
+        () ->
+            REGISTRY.lookupFields(
+                new String[] {"adult"}, new String[] {"LifeStage", "Months"}, null, results));
+  }
+
+  @Test
+  public void sameResultsAsLookupTest() {
+    InMemoryVocabularyLookup lookup =
+        InMemoryVocabularyLookup.newBuilder()
+            .from(resource("LifeStage.json"))
+            .withPrefilter(PreFilters.REMOVE_NUMERIC_PREFIX)
+            .build();
+    VocabularyLookup registryLookup = REGISTRY.get("LifeStage");
+
+    for (String value :
+        Arrays.asList("1 adult", "A", "sub-Adult", "young", "imago:1", "1st instar", "adult?")) {
+      assertEquals(
+          lookup.lookup(value).map(c -> c.getConcept().getKey()),
+          registryLookup.lookup(value).map(c -> c.getConcept().getKey()));
+    }
+  }
+
+  @Test
+  public void duplicatedVocabularyTest() {
+    VocabularyLookupRegistry.Builder builder =
+        VocabularyLookupRegistry.newBuilder().add("Months", resource("test-vocab.json"));
+    assertThrows(
+        IllegalArgumentException.class, () -> builder.add("Months", resource("test-vocab.json")));
+  }
+
+  private static InputStream resource(String name) {
+    return Thread.currentThread().getContextClassLoader().getResourceAsStream(name);
+  }
+}
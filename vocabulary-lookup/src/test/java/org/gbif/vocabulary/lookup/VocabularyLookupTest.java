@@ -15,13 +15,23 @@ package org.gbif.vocabulary.lookup;
 
 import org.gbif.vocabulary.model.LanguageRegion;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.Optional;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.event.Level;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /** Tests the {@link InMemoryVocabularyLookup}. */
@@ -125,4 +135,176 @@ public class VocabularyLookupTest {
     assertEquals("Adult", lookup.lookup("1325 adult (dsgds)").get().getConcept().getName());
     assertEquals("Adult", lookup.lookup("adult (dsgds)").get().getConcept().getName());
   }
+
+  @Test
+  public void lookupBatchTest() {
+    InMemoryVocabularyLookup vocabulary =
+        InMemoryVocabularyLookup.newBuilder()
+            .from(
+                Thread.currentThread().getContextClassLoader().getResourceAsStream(TEST_VOCAB_FILE))
+            .build();
+
+    String[] values = {"February", "Marzo", null, "eneiro.", "Fév", "February", ""};
+    LookupConcept[] results = new LookupConcept[values.length];
+    vocabulary.lookupBatch(values, LanguageRegion.SPANISH, results);
+
+    assertEquals("February", results[0].getConcept().getName());
+    assertEquals("March", results[1].getConcept().getName());
+    assertNull(results[2]);
+    assertNull(results[3]);
+    assertEquals("February", results[4].getConcept().getName());
+    assertSame(results[0], results[5]);
+    assertNull(results[6]);
+
+    results = vocabulary.lookupBatch(Arrays.asList("Marzo", "march"), LanguageRegion.GERMAN);
+    assertEquals(2, results.length);
+    assertEquals("February", results[0].getConcept().getName());
+    assertEquals("March", results[1].getConcept().getName());
+
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> vocabulary.lookupBatch(values, null, new LookupConcept[1]));
+  }
+
+  @Test
+  public void sharedLookupConceptsTest() {
+    InMemoryVocabularyLookup vocabulary =
+        InMemoryVocabularyLookup.newBuilder()
+            .from(
+                Thread.currentThread().getContextClassLoader().getResourceAsStream(TEST_VOCAB_FILE))
+            .build();
+
+    LookupConcept march = vocabulary.lookup("march").get();
+    assertSame(march, vocabulary.lookup("MARCH").get());
+    assertSame(march, vocabulary.lookup("Marzo", LanguageRegion.SPANISH).get());
+
+    // parents and tags are precomputed and can't be modified
+    assertThrows(UnsupportedOperationException.class, () -> march.getParents().clear());
+    assertThrows(UnsupportedOperationException.class, () -> march.getTags().add("tag"));
+    assertSame(
+        vocabulary.lookup("February").get().getParents().get(0), march.getParents().get(1));
+  }
+
+  @Test
+  public void missCacheTest() {
+    InMemoryVocabularyLookup vocabulary =
+        InMemoryVocabularyLookup.newBuilder()
+            .from(
+                Thread.currentThread().getContextClassLoader().getResourceAsStream(TEST_VOCAB_FILE))
+            .withMissCache(10)
+            .withMissLogLevel(Level.DEBUG)
+            .withMissLogSampling(10)
+            .build();
+
+    assertFalse(vocabulary.lookup("eneiro.").isPresent());
+    assertFalse(vocabulary.lookup("Eneiro.").isPresent());
+    assertTrue(vocabulary.lookup("February").isPresent());
+
+    // ambiguous values can still match when the language is provided
+    assertFalse(vocabulary.lookup("Marzo").isPresent());
+    Optional<LookupConcept> concept = vocabulary.lookup("Marzo", LanguageRegion.SPANISH);
+    assertTrue(concept.isPresent());
+    assertEquals("March", concept.get().getConcept().getName());
+
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> InMemoryVocabularyLookup.newBuilder().withMissLogSampling(0));
+  }
+
+  @Test
+  public void snapshotTest(@TempDir Path tempDir) throws IOException {
+    InMemoryVocabularyLookup vocabulary =
+        InMemoryVocabularyLookup.newBuilder()
+            .from(
+                Thread.currentThread().getContextClassLoader().getResourceAsStream(TEST_VOCAB_FILE))
+            .build();
+
+    Path snapshot = tempDir.resolve("test-vocab.snapshot");
+    vocabulary.writeSnapshot(snapshot);
+
+    InMemoryVocabularyLookup snapshotVocabulary =
+        InMemoryVocabularyLookup.newBuilder().fromSnapshot(snapshot).build();
+
+    for (String value : Arrays.asList("February", "Fév", "ÉnERo", "eneiro.", "march", "Januray")) {
+      assertEquals(
+          vocabulary.lookup(value).map(c -> c.getConcept().getKey()),
+          snapshotVocabulary.lookup(value).map(c -> c.getConcept().getKey()));
+    }
+
+    Optional<LookupConcept> concept = snapshotVocabulary.lookup("march");
+    assertTrue(concept.isPresent());
+    assertEquals("March", concept.get().getConcept().getName());
+    assertEquals(
+        vocabulary.lookup("march").get().getConcept().getParentKey(),
+        concept.get().getConcept().getParentKey());
+    assertEquals(2, concept.get().getParents().size());
+    assertEquals("February", concept.get().getParents().get(0).getName());
+    assertEquals("January", concept.get().getParents().get(1).getName());
+    assertSame(concept.get(), snapshotVocabulary.lookup("March").get());
+
+    // labels shared by several concepts
+    assertFalse(snapshotVocabulary.lookup("Marzo").isPresent());
+    assertEquals(
+        "March",
+        snapshotVocabulary.lookup("Marzo", LanguageRegion.SPANISH).get().getConcept().getName());
+    assertEquals(
+        "February",
+        snapshotVocabulary.lookup("Marzo", LanguageRegion.GERMAN).get().getConcept().getName());
+
+    // a snapshot can be written again from a snapshot
+    Path copy = tempDir.resolve("copy.snapshot");
+    snapshotVocabulary.writeSnapshot(copy);
+    assertArrayEquals(Files.readAllBytes(snapshot), Files.readAllBytes(copy));
+  }
+
+  @Test
+  public void invalidSnapshotTest(@TempDir Path tempDir) throws IOException {
+    Path snapshot = Files.write(tempDir.resolve("invalid.snapshot"), new byte[] {1, 2, 3});
+    assertThrows(
+        IOException.class,
+        () -> InMemoryVocabularyLookup.newBuilder().fromSnapshot(snapshot).build());
+  }
+
+  @Test
+  public void snapshotPrefilterTest(@TempDir Path tempDir) throws IOException {
+    InMemoryVocabularyLookup vocabulary =
+        InMemoryVocabularyLookup.newBuilder()
+            .from(
+                Thread.currentThread().getContextClassLoader().getResourceAsStream(TEST_VOCAB_FILE))
+            .withPrefilter(PreFilters.REMOVE_NUMERIC_PREFIX)
+            .build();
+
+    Path snapshot = tempDir.resolve("test-vocab.snapshot");
+    vocabulary.writeSnapshot(snapshot);
+
+    assertTrue(
+        InMemoryVocabularyLookup.newBuilder()
+            .fromSnapshot(snapshot)
+            .withPrefilter(PreFilters.REMOVE_NUMERIC_PREFIX)
+            .build()
+            .lookup("1march")
+            .isPresent());
+
+    // the snapshot can't be opened with other prefilters
+    assertThrows(
+        IOException.class,
+        () -> InMemoryVocabularyLookup.newBuilder().fromSnapshot(snapshot).build());
+    assertThrows(
+        IOException.class,
+        () ->
+            InMemoryVocabularyLookup.newBuilder()
+                .fromSnapshot(snapshot)
+                .withPrefilter(PreFilters.REMOVE_NUMERIC_PREFIX, "other")
+                .build());
+
+    // the custom prefilters require an id
+    InMemoryVocabularyLookup customPrefilterVocabulary =
+        InMemoryVocabularyLookup.newBuilder()
+            .from(
+                Thread.currentThread().getContextClassLoader().getResourceAsStream(TEST_VOCAB_FILE))
+            .withPrefilter(String::trim)
+            .build();
+    assertThrows(
+        IllegalStateException.class, () -> customPrefilterVocabulary.writeSnapshot(snapshot));
+  }
 }
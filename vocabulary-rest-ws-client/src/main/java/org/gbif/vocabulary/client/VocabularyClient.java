@@ -23,6 +23,7 @@ import org.gbif.vocabulary.model.Label;
 import org.gbif.vocabulary.model.LanguageRegion;
 import org.gbif.vocabulary.model.Vocabulary;
 import org.gbif.vocabulary.model.VocabularyRelease;
+import org.gbif.vocabulary.model.export.ReleaseDiff;
 import org.gbif.vocabulary.model.search.KeyNameResult;
 
 import java.util.List;
@@ -112,6 +113,12 @@ public interface VocabularyClient {
   byte[] getReleaseExport(
       @PathVariable("name") String vocabularyName, @PathVariable("version") String version);
 
+  @GetMapping(value = "{name}/releases/{version}/diff", produces = MediaType.APPLICATION_JSON_VALUE)
+  ReleaseDiff getReleaseDiff(
+      @PathVariable("name") String vocabularyName,
+      @PathVariable("version") String version,
+      @RequestParam("from") String fromVersion);
+
   @DeleteMapping(value = "{name}")
   void deleteVocabulary(@PathVariable("name") String vocabularyName);
 
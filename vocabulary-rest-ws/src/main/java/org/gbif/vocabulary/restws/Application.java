@@ -20,7 +20,10 @@ import org.gbif.common.messaging.DefaultMessagePublisher;
 import org.gbif.common.messaging.api.MessagePublisher;
 import org.gbif.vocabulary.SpringConfig;
 import org.gbif.vocabulary.restws.config.ConfigPropertiesValidator;
+import org.gbif.vocabulary.restws.config.DiffCacheConfig;
+import org.gbif.vocabulary.restws.config.ExportCacheConfig;
 import org.gbif.vocabulary.restws.config.MessagingConfig;
+import org.gbif.vocabulary.restws.config.SuggestCacheConfig;
 import org.gbif.vocabulary.restws.config.WsConfig;
 import org.gbif.vocabulary.restws.resolvers.StringToLanguageRegionConverter;
 import org.gbif.vocabulary.restws.security.SecurityConfig;
@@ -72,8 +75,11 @@ import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
     },
     excludeFilters = {@ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE)})
 @EnableConfigurationProperties({
+  DiffCacheConfig.class,
+  ExportCacheConfig.class,
   MessagingConfig.class,
   SecurityConfig.class,
+  SuggestCacheConfig.class,
   WsConfig.class
 })
 @EnableFeignClients
@@ -0,0 +1,35 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.vocabulary.restws.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+import org.springframework.validation.annotation.Validated;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/** Configuration of the local cache of the release export files. */
+@ConfigurationProperties(prefix = "export-cache")
+@Validated
+@Getter
+@Setter
+public class ExportCacheConfig {
+
+  /** Directory where the exports are cached. The cache is disabled if it's not set. */
+  private String directory;
+
+  /** Max size of all the exports cached. */
+  private DataSize maxSize = DataSize.ofGigabytes(1);
+}
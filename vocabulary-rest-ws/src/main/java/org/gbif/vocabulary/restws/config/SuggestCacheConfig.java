@@ -0,0 +1,41 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.vocabulary.restws.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+import org.springframework.validation.annotation.Validated;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/** Configuration of the in-memory cache of the suggestions of the latest releases. */
+@ConfigurationProperties(prefix = "suggest-cache")
+@Validated
+@Getter
+@Setter
+public class SuggestCacheConfig {
+
+  /** Max size of all the suggestions cached, shared by all the vocabularies. */
+  private DataSize maxSize = DataSize.ofMegabytes(64);
+
+  /**
+   * Time after which a cached suggestion expires. The cache is cleared when a vocabulary is
+   * released, so it only bounds how long other instances of the service can serve the previous
+   * release.
+   */
+  private Duration expireAfterWrite = Duration.ofHours(1);
+}
@@ -15,7 +15,6 @@ package org.gbif.vocabulary.restws.resources;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static org.gbif.vocabulary.model.utils.PathUtils.*;
-import static org.gbif.vocabulary.restws.resources.LatestReleaseCache.conceptSuggestLatestReleaseCache;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -33,7 +32,6 @@ import java.lang.annotation.Target;
 import java.util.*;
 import java.util.function.Function;
 import java.util.function.LongFunction;
-import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import org.assertj.core.util.Strings;
@@ -80,16 +78,19 @@ public class ConceptResource {
   private final VocabularyService vocabularyService;
   private final TagService tagService;
   private final WsConfig wsConfig;
+  private final LatestReleaseCache latestReleaseCache;
 
   ConceptResource(
       ConceptService conceptService,
       VocabularyService vocabularyService,
       TagService tagService,
-      WsConfig wsConfig) {
+      WsConfig wsConfig,
+      LatestReleaseCache latestReleaseCache) {
     this.conceptService = conceptService;
     this.vocabularyService = vocabularyService;
     this.tagService = tagService;
     this.wsConfig = wsConfig;
+    this.latestReleaseCache = latestReleaseCache;
   }
 
   @Target({ElementType.METHOD, ElementType.TYPE})
@@ -168,6 +169,14 @@ public class ConceptResource {
             description = "The hidden label to filter by",
             schema = @Schema(implementation = String.class),
             in = ParameterIn.QUERY,
+            explode = Explode.FALSE),
+        @Parameter(
+            name = "afterKey",
+            description =
+                "Key of the last concept of the previous page. If set, the concepts are ordered by "
+                    + "key and the offset is ignored, which keeps deep pages fast.",
+            schema = @Schema(implementation = Long.class),
+            in = ParameterIn.QUERY,
             explode = Explode.FALSE)
       })
   @CommonParameters.QParameter
@@ -213,6 +222,7 @@ public class ConceptResource {
                 .hasReplacement(params.getHasReplacement())
                 .tags(params.getTags())
                 .hiddenLabel(params.getHiddenLabel())
+                .afterKey(params.getAfterKey())
                 .build(),
             params.getPage());
 
@@ -835,6 +845,7 @@ public class ConceptResource {
                 .hasParent(params.getHasParent())
                 .hasReplacement(params.getHasReplacement())
                 .hiddenLabel(params.getHiddenLabel())
+                .afterKey(params.getAfterKey())
                 .build(),
             params.getPage(),
             vocabularyName);
@@ -908,27 +919,20 @@ public class ConceptResource {
       @RequestParam(value = "fallbackLocale", required = false) LanguageRegion fallbackLocale,
       @RequestParam(value = "limit", required = false) Integer limit) {
 
-    Supplier<String> cacheKey =
+    return latestReleaseCache.getSuggestions(
+        vocabularyName,
+        query,
+        locale,
+        fallbackLocale,
+        limit,
         () ->
-            new StringJoiner(";")
-                .add(query != null ? query : "null")
-                .add(locale != null ? locale.getLocale() : "null")
-                .add(fallbackLocale != null ? fallbackLocale.getLocale() : "null")
-                .add(String.valueOf(limit))
-                .toString();
-
-    return conceptSuggestLatestReleaseCache
-        .computeIfAbsent(vocabularyName, k -> new HashMap<>())
-        .computeIfAbsent(
-            cacheKey.get(),
-            k ->
-                conceptService.suggestLatestRelease(
-                    query,
-                    getVocabularyWithCheck(vocabularyName).getKey(),
-                    locale,
-                    fallbackLocale,
-                    vocabularyName,
-                    limit));
+            conceptService.suggestLatestRelease(
+                query,
+                getVocabularyWithCheck(vocabularyName).getKey(),
+                locale,
+                fallbackLocale,
+                vocabularyName,
+                limit));
   }
 
   @Operation(
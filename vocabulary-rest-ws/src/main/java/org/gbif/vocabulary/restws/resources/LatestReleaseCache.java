@@ -13,28 +13,163 @@
  */
 package org.gbif.vocabulary.restws.resources;
 
+import org.gbif.vocabulary.model.LanguageRegion;
 import org.gbif.vocabulary.model.search.SuggestResult;
+import org.gbif.vocabulary.restws.config.SuggestCacheConfig;
 
 import java.util.List;
-import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import jakarta.annotation.Nullable;
 
 import org.cache2k.Cache;
 import org.cache2k.Cache2kBuilder;
+import org.cache2k.event.CacheEntryEvictedListener;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
 
-import lombok.AccessLevel;
-import lombok.NoArgsConstructor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
 
-@NoArgsConstructor(access = AccessLevel.PRIVATE)
+/**
+ * Cache for the concepts suggestions when querying the latest release versions.
+ *
+ * <p>The suggestions of all the vocabularies share the same cache, which is bounded by the
+ * approximate size in bytes of the suggestions and evicts the least used ones when it's full.
+ * Each vocabulary has its own namespace in the cache, so all its suggestions can be discarded at
+ * once when it's released.
+ */
+@Slf4j
+@Component
 class LatestReleaseCache {
 
+  // approximate sizes in bytes of the objects of a cached entry
+  private static final int ENTRY_SIZE = 128;
+  private static final int RESULT_SIZE = 64;
+  private static final int PARENT_SIZE = 48;
+  private static final int STRING_SIZE = 40;
+
+  private final Cache<SuggestKey, List<SuggestResult>> suggestCache;
+
+  // the generation of a vocabulary is part of the cache keys of its suggestions, so increasing it
+  // makes all of them unreachable at once, including the ones being loaded from the previous
+  // release. Only the invalidated vocabularies have an entry, the rest are in generation 0
+  private final ConcurrentMap<String, Long> generations = new ConcurrentHashMap<>();
+
+  private final Counter hits;
+  private final Counter misses;
+  private final Counter evictions;
+
+  @Autowired
+  LatestReleaseCache(SuggestCacheConfig config, MeterRegistry meterRegistry) {
+    hits = meterRegistry.counter("vocabulary.suggest.cache.requests", "result", "hit");
+    misses = meterRegistry.counter("vocabulary.suggest.cache.requests", "result", "miss");
+    evictions = meterRegistry.counter("vocabulary.suggest.cache.evictions");
+
+    suggestCache =
+        new Cache2kBuilder<SuggestKey, List<SuggestResult>>() {}.weigher(
+                LatestReleaseCache::weigh)
+            .maximumWeight(config.getMaxSize().toBytes())
+            .expireAfterWrite(config.getExpireAfterWrite().toMillis(), TimeUnit.MILLISECONDS)
+            .addListener(
+                (CacheEntryEvictedListener<SuggestKey, List<SuggestResult>>)
+                    (cache, entry) -> evictions.increment())
+            .build();
+
+    Gauge.builder("vocabulary.suggest.cache.entries", suggestCache, c -> c.asMap().size())
+        .register(meterRegistry);
+
+    log.info(
+        "Suggest cache with max size of {} bytes and expiry of {}",
+        config.getMaxSize().toBytes(),
+        config.getExpireAfterWrite());
+  }
+
   /**
-   * Cache for the concepts suggestions when querying the latest release versions. It's keyed by
-   * vocabulary name and then by the sugestion search parameters.
+   * Gets the suggestions of the latest release of a vocabulary. If they are not cached they are
+   * loaded and cached. Concurrent requests of the same suggestions load them only once.
+   *
+   * @param vocabularyName name of the vocabulary
+   * @param query query of the suggest
+   * @param locale locale of the suggest
+   * @param fallbackLocale fallback locale of the suggest
+   * @param limit limit of the suggest
+   * @param loader loads the suggestions when they are not cached
+   * @return the suggestions
    */
-  static final Cache<String, Map<String, List<SuggestResult>>> conceptSuggestLatestReleaseCache =
-      new Cache2kBuilder<String, Map<String, List<SuggestResult>>>() {}.weigher(
-              (k, v) -> v.keySet().size())
-          .maximumWeight(20_000)
-          .eternal(true)
-          .build();
+  List<SuggestResult> getSuggestions(
+      String vocabularyName,
+      @Nullable String query,
+      @Nullable LanguageRegion locale,
+      @Nullable LanguageRegion fallbackLocale,
+      @Nullable Integer limit,
+      Supplier<List<SuggestResult>> loader) {
+    String namespace = vocabularyName.toLowerCase();
+    SuggestKey key =
+        new SuggestKey(namespace, generation(namespace), query, locale, fallbackLocale, limit);
+
+    List<SuggestResult> suggestions = suggestCache.peek(key);
+    if (suggestions != null) {
+      hits.increment();
+      return suggestions;
+    }
+
+    return suggestCache.computeIfAbsent(
+        key,
+        k -> {
+          misses.increment();
+          return List.copyOf(loader.get());
+        });
+  }
+
+  /** Discards all the cached suggestions of a vocabulary. */
+  void invalidate(String vocabularyName) {
+    String namespace = vocabularyName.toLowerCase();
+    long generation = generations.merge(namespace, 1L, Long::sum);
+
+    // the entries of the previous generations can't be accessed anymore, they are removed to free
+    // the space
+    Set<SuggestKey> keys =
+        suggestCache.keys().stream()
+            .filter(k -> k.namespace.equals(namespace) && k.generation < generation)
+            .collect(Collectors.toSet());
+    suggestCache.removeAll(keys);
+  }
+
+  private long generation(String namespace) {
+    return generations.getOrDefault(namespace, 0L);
+  }
+
+  private static int weigh(SuggestKey key, List<SuggestResult> suggestions) {
+    long weight = ENTRY_SIZE + size(key.namespace) + size(key.query);
+    for (SuggestResult suggestion : suggestions) {
+      weight += RESULT_SIZE + size(suggestion.getName()) + size(suggestion.getLabel());
+      for (SuggestResult.Parent parent : suggestion.getParents()) {
+        weight += PARENT_SIZE + size(parent.getName()) + size(parent.getLabel());
+      }
+    }
+    return (int) Math.min(weight, Integer.MAX_VALUE);
+  }
+
+  private static long size(@Nullable String value) {
+    return value != null ? STRING_SIZE + 2L * value.length() : 0;
+  }
+
+  @Value
+  private static class SuggestKey {
+    String namespace;
+    long generation;
+    String query;
+    LanguageRegion locale;
+    LanguageRegion fallbackLocale;
+    Integer limit;
+  }
 }
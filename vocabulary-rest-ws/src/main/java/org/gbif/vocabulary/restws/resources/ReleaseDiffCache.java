@@ -0,0 +1,114 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.vocabulary.restws.resources;
+
+import org.gbif.vocabulary.model.export.ReleaseDiff;
+import org.gbif.vocabulary.restws.config.DiffCacheConfig;
+
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import org.cache2k.Cache;
+import org.cache2k.Cache2kBuilder;
+import org.cache2k.event.CacheEntryEvictedListener;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Cache for the diffs between two releases of a vocabulary. It's keyed by vocabulary name and the
+ * versions of both releases. Releases never change, so the entries only have to be removed when
+ * the vocabulary is deleted.
+ */
+@Slf4j
+@Component
+class ReleaseDiffCache {
+
+  private final Cache<DiffKey, ReleaseDiff> diffCache;
+
+  private final Counter hits;
+  private final Counter misses;
+  private final Counter evictions;
+
+  @Autowired
+  ReleaseDiffCache(DiffCacheConfig config, MeterRegistry meterRegistry) {
+    hits = meterRegistry.counter("vocabulary.diff.cache.requests", "result", "hit");
+    misses = meterRegistry.counter("vocabulary.diff.cache.requests", "result", "miss");
+    evictions = meterRegistry.counter("vocabulary.diff.cache.evictions");
+
+    diffCache =
+        new Cache2kBuilder<DiffKey, ReleaseDiff>() {}.entryCapacity(config.getMaxEntries())
+            .eternal(true)
+            .addListener(
+                (CacheEntryEvictedListener<DiffKey, ReleaseDiff>)
+                    (cache, entry) -> evictions.increment())
+            .build();
+
+    Gauge.builder("vocabulary.diff.cache.entries", diffCache, c -> c.asMap().size())
+        .register(meterRegistry);
+
+    log.info("Release diff cache with max {} entries", config.getMaxEntries());
+  }
+
+  /**
+   * Gets the diff between two releases of a vocabulary. If it's not cached it's computed and
+   * cached. Concurrent requests of the same diff compute it only once.
+   *
+   * @param vocabularyName name of the vocabulary
+   * @param fromVersion version of the older release
+   * @param toVersion version of the newer release
+   * @param loader computes the diff when it's not cached
+   * @return the diff
+   */
+  ReleaseDiff getDiff(
+      String vocabularyName, String fromVersion, String toVersion, Supplier<ReleaseDiff> loader) {
+    DiffKey key = new DiffKey(vocabularyName.toLowerCase(), fromVersion, toVersion);
+
+    ReleaseDiff diff = diffCache.peek(key);
+    if (diff != null) {
+      hits.increment();
+      return diff;
+    }
+
+    return diffCache.computeIfAbsent(
+        key,
+        k -> {
+          misses.increment();
+          return loader.get();
+        });
+  }
+
+  /** Removes all the diffs of a vocabulary. */
+  void invalidate(String vocabularyName) {
+    String name = vocabularyName.toLowerCase();
+    Set<DiffKey> keys =
+        diffCache.keys().stream()
+            .filter(k -> k.vocabularyName.equals(name))
+            .collect(Collectors.toSet());
+    diffCache.removeAll(keys);
+  }
+
+  @Value
+  private static class DiffKey {
+    String vocabularyName;
+    String fromVersion;
+    String toVersion;
+  }
+}
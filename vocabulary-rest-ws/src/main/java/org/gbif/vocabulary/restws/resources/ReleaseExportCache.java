@@ -0,0 +1,355 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.vocabulary.restws.resources;
+
+import org.gbif.vocabulary.model.export.ExportFileInfo;
+import org.gbif.vocabulary.restws.config.ExportCacheConfig;
+import org.gbif.vocabulary.service.ExportService;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.google.common.base.Strings;
+
+import lombok.Getter;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Local on-disk cache of the export files of the releases. The releases never change, so once an
+ * export is read from the DB it's kept in the cache and the next requests don't go to the DB.
+ *
+ * <p>The exports are keyed by the key of the vocabulary and the version, so a vocabulary that is
+ * deleted and created again doesn't get the exports of the old one. The files are addressed by the
+ * SHA-256 of their content and the cache is bounded by the total size of the files, evicting the
+ * least recently used ones. The index of the cache is kept in memory, so the directory is cleared
+ * when the cache is created.
+ *
+ * <p>If no directory is configured the cache is disabled and the exports are always read from the
+ * DB.
+ */
+@Slf4j
+@Component
+class ReleaseExportCache {
+
+  private static final String FILE_EXTENSION = ".export";
+  private static final String TMP_FILE_EXTENSION = ".tmp";
+
+  private final ExportService exportService;
+  private final Path directory;
+  private final long maxSize;
+
+  // cached exports in access order, for the LRU eviction. Guarded by this
+  private final LinkedHashMap<ReleaseKey, ReleaseExport> cachedExports =
+      new LinkedHashMap<>(16, 0.75f, true);
+  private long size;
+
+  // loads in progress, so the concurrent requests of a release only read it once from the DB
+  private final ConcurrentMap<ReleaseKey, CompletableFuture<ReleaseExport>> loads =
+      new ConcurrentHashMap<>();
+
+  @Autowired
+  ReleaseExportCache(ExportService exportService, ExportCacheConfig config) throws IOException {
+    this.exportService = exportService;
+    this.maxSize = config.getMaxSize().toBytes();
+    if (Strings.isNullOrEmpty(config.getDirectory())) {
+      this.directory = null;
+      log.info("Release export cache disabled");
+    } else {
+      this.directory = Paths.get(config.getDirectory());
+      Files.createDirectories(directory);
+      clearDirectory();
+      log.info("Release export cache in {} with max size of {} bytes", directory, maxSize);
+    }
+  }
+
+  /**
+   * Gets the export file of a release. If the cache is enabled the export is read from the DB and
+   * cached the first time it's requested.
+   *
+   * @param vocabularyKey key of the vocabulary
+   * @param vocabularyName name of the vocabulary
+   * @param version version of the release
+   * @return the export of the release or null if it doesn't exist
+   */
+  ReleaseExport get(long vocabularyKey, String vocabularyName, String version) {
+    if (directory == null) {
+      ExportFileInfo exportFileInfo = exportService.getExportFileInfo(vocabularyName, version);
+      return exportFileInfo != null
+          ? new ReleaseExport(vocabularyName, exportFileInfo, null)
+          : null;
+    }
+
+    ReleaseKey key = new ReleaseKey(vocabularyKey, version);
+    ReleaseExport releaseExport = getCached(key);
+    return releaseExport != null ? releaseExport : load(key, vocabularyName);
+  }
+
+  /**
+   * Caches the export of a release, so the first request doesn't have to go to the DB. Errors are
+   * only logged since the export is cached anyway on first access.
+   */
+  void preload(long vocabularyKey, String vocabularyName, String version) {
+    if (directory == null) {
+      return;
+    }
+
+    try {
+      get(vocabularyKey, vocabularyName, version);
+    } catch (RuntimeException e) {
+      log.warn("Couldn't preload the export of {} release {}", vocabularyName, version, e);
+    }
+  }
+
+  /** Removes from the cache all the exports of a vocabulary. */
+  synchronized void invalidate(long vocabularyKey) {
+    Iterator<Map.Entry<ReleaseKey, ReleaseExport>> it = cachedExports.entrySet().iterator();
+    while (it.hasNext()) {
+      Map.Entry<ReleaseKey, ReleaseExport> entry = it.next();
+      if (entry.getKey().vocabularyKey == vocabularyKey) {
+        it.remove();
+        evicted(entry.getValue());
+      }
+    }
+  }
+
+  private synchronized ReleaseExport getCached(ReleaseKey key) {
+    return cachedExports.get(key);
+  }
+
+  private ReleaseExport load(ReleaseKey key, String vocabularyName) {
+    CompletableFuture<ReleaseExport> load = new CompletableFuture<>();
+    CompletableFuture<ReleaseExport> loadInProgress = loads.putIfAbsent(key, load);
+    if (loadInProgress != null) {
+      try {
+        return loadInProgress.join();
+      } catch (CompletionException e) {
+        throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+      }
+    }
+
+    try {
+      // it may have been cached by a load that finished after the cache was checked
+      ReleaseExport releaseExport = getCached(key);
+      if (releaseExport == null) {
+        releaseExport = download(key, vocabularyName);
+      }
+      load.complete(releaseExport);
+      return releaseExport;
+    } catch (RuntimeException e) {
+      load.completeExceptionally(e);
+      throw e;
+    } finally {
+      loads.remove(key);
+    }
+  }
+
+  private ReleaseExport download(ReleaseKey key, String vocabularyName) {
+    ExportFileInfo exportFileInfo = exportService.getExportFileInfo(vocabularyName, key.version);
+    if (exportFileInfo == null) {
+      return null;
+    }
+    if (exportFileInfo.getLength() > maxSize) {
+      return new ReleaseExport(vocabularyName, exportFileInfo, null);
+    }
+
+    try {
+      Path tmpFile = Files.createTempFile(directory, "export-", TMP_FILE_EXTENSION);
+      try {
+        String hash = writeFile(tmpFile, vocabularyName, exportFileInfo);
+        ReleaseExport releaseExport =
+            new ReleaseExport(
+                vocabularyName, exportFileInfo, directory.resolve(hash + FILE_EXTENSION));
+        put(key, releaseExport, tmpFile);
+        return releaseExport;
+      } finally {
+        Files.deleteIfExists(tmpFile);
+      }
+    } catch (IOException e) {
+      // the export can still be served from the DB
+      log.warn("Couldn't cache the export of {} release {}", vocabularyName, key.version, e);
+      return new ReleaseExport(vocabularyName, exportFileInfo, null);
+    }
+  }
+
+  /** Writes the export to the file and returns the SHA-256 of its content. */
+  private String writeFile(Path file, String vocabularyName, ExportFileInfo exportFileInfo)
+      throws IOException {
+    MessageDigest digest = newSha256Digest();
+    try (InputStream in =
+            exportService.openExportFile(
+                vocabularyName, exportFileInfo.getVersion(), 0, exportFileInfo.getLength());
+        OutputStream out = new DigestOutputStream(Files.newOutputStream(file), digest)) {
+      in.transferTo(out);
+    }
+    return HexFormat.of().formatHex(digest.digest());
+  }
+
+  /**
+   * Moves the downloaded file into place and adds the export to the cache. Both are done with the
+   * lock held, so the eviction of another export with the same file can't delete it in between.
+   */
+  private synchronized void put(ReleaseKey key, ReleaseExport releaseExport, Path downloadedFile)
+      throws IOException {
+    Files.move(
+        downloadedFile,
+        releaseExport.cachedFile,
+        StandardCopyOption.REPLACE_EXISTING,
+        StandardCopyOption.ATOMIC_MOVE);
+
+    size += releaseExport.info.getLength();
+    ReleaseExport previous = cachedExports.put(key, releaseExport);
+    if (previous != null) {
+      evicted(previous);
+    }
+
+    // the least recently used exports are evicted until the cache fits in the max size
+    Iterator<Map.Entry<ReleaseKey, ReleaseExport>> it = cachedExports.entrySet().iterator();
+    while (size > maxSize && it.hasNext()) {
+      Map.Entry<ReleaseKey, ReleaseExport> eldest = it.next();
+      if (!eldest.getKey().equals(key)) {
+        it.remove();
+        evicted(eldest.getValue());
+      }
+    }
+  }
+
+  /** Called with the lock held when an export is removed from the cache. */
+  private void evicted(ReleaseExport releaseExport) {
+    size -= releaseExport.info.getLength();
+
+    // the same file can be used by several releases if their exports are identical
+    boolean fileInUse =
+        cachedExports.values().stream()
+            .anyMatch(e -> e.cachedFile.equals(releaseExport.cachedFile));
+    if (!fileInUse) {
+      try {
+        // the requests that are already reading the file can finish since it's open
+        Files.deleteIfExists(releaseExport.cachedFile);
+      } catch (IOException e) {
+        log.warn("Couldn't delete cached export {}", releaseExport.cachedFile, e);
+      }
+    }
+  }
+
+  private void clearDirectory() throws IOException {
+    try (Stream<Path> files = Files.list(directory)) {
+      for (Path file : (Iterable<Path>) files::iterator) {
+        String fileName = file.getFileName().toString();
+        if (fileName.endsWith(FILE_EXTENSION) || fileName.endsWith(TMP_FILE_EXTENSION)) {
+          Files.deleteIfExists(file);
+        }
+      }
+    }
+  }
+
+  private static MessageDigest newSha256Digest() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /** Export file of a release, read from the cache or from the DB if it's not cached. */
+  class ReleaseExport {
+    private final String vocabularyName;
+    @Getter private final ExportFileInfo info;
+    private final Path cachedFile;
+
+    private ReleaseExport(String vocabularyName, ExportFileInfo info, Path cachedFile) {
+      this.vocabularyName = vocabularyName;
+      this.info = info;
+      this.cachedFile = cachedFile;
+    }
+
+    /** Writes a range of the export file, as it's stored, to the output stream. */
+    void write(long offset, long length, OutputStream out) throws IOException {
+      FileChannel channel = openCachedFile();
+      if (channel == null) {
+        try (InputStream in =
+            exportService.openExportFile(vocabularyName, info.getVersion(), offset, length)) {
+          in.transferTo(out);
+        }
+        return;
+      }
+
+      try (FileChannel fileChannel = channel) {
+        WritableByteChannel target = Channels.newChannel(out);
+        long position = offset;
+        long end = offset + length;
+        while (position < end) {
+          long transferred = fileChannel.transferTo(position, end - position, target);
+          if (transferred <= 0) {
+            throw new EOFException("Cached export " + cachedFile + " ended at byte " + position);
+          }
+          position += transferred;
+        }
+      }
+    }
+
+    /** Opens a stream of the whole export file, as it's stored. */
+    InputStream open() throws IOException {
+      FileChannel channel = openCachedFile();
+      return channel != null
+          ? Channels.newInputStream(channel)
+          : exportService.openExportFile(vocabularyName, info.getVersion(), 0, info.getLength());
+    }
+
+    private FileChannel openCachedFile() throws IOException {
+      if (cachedFile == null) {
+        return null;
+      }
+
+      try {
+        return FileChannel.open(cachedFile, StandardOpenOption.READ);
+      } catch (NoSuchFileException e) {
+        // it was evicted after it was retrieved from the cache
+        return null;
+      }
+    }
+  }
+
+  @Value
+  private static class ReleaseKey {
+    long vocabularyKey;
+    String version;
+  }
+}
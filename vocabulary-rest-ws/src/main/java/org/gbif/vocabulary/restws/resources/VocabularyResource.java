@@ -17,6 +17,7 @@ import static com.google.common.base.Preconditions.checkArgument;
 import static org.gbif.vocabulary.model.utils.PathUtils.VOCABULARIES_PATH;
 import static org.gbif.vocabulary.model.utils.PathUtils.VOCABULARY_EXPORT_PATH;
 import static org.gbif.vocabulary.model.utils.PathUtils.VOCABULARY_RELEASES_PATH;
+import static org.gbif.vocabulary.model.utils.PathUtils.VOCABULARY_RELEASE_DIFF_PATH;
 
 import io.swagger.v3.oas.annotations.*;
 import io.swagger.v3.oas.annotations.enums.Explode;
@@ -30,11 +31,12 @@ import io.swagger.v3.oas.annotations.servers.Server;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.servlet.http.HttpServletRequest;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.List;
-import lombok.SneakyThrows;
+import java.util.zip.GZIPInputStream;
 import lombok.extern.slf4j.Slf4j;
 import org.gbif.api.documentation.CommonParameters;
 import org.gbif.api.model.common.paging.Pageable;
@@ -47,21 +49,29 @@ import org.gbif.vocabulary.api.VocabularyListParams;
 import org.gbif.vocabulary.api.VocabularyReleaseParams;
 import org.gbif.vocabulary.model.*;
 import org.gbif.vocabulary.model.exception.EntityNotFoundException;
+import org.gbif.vocabulary.model.export.ExportFileInfo;
 import org.gbif.vocabulary.model.export.ExportParams;
+import org.gbif.vocabulary.model.export.ReleaseDiff;
 import org.gbif.vocabulary.model.search.SuggestResult;
 import org.gbif.vocabulary.model.search.VocabularySearchParams;
+import org.gbif.vocabulary.model.utils.GzipUtils;
 import org.gbif.vocabulary.restws.documentation.Docs;
+import org.gbif.vocabulary.restws.resources.ReleaseExportCache.ReleaseExport;
 import org.gbif.vocabulary.service.ExportService;
 import org.gbif.vocabulary.service.VocabularyService;
 import org.jetbrains.annotations.NotNull;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.io.ByteArrayResource;
 import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 /** Controller for {@link org.gbif.vocabulary.model.Vocabulary} entities. */
 @OpenAPIDefinition(
@@ -96,14 +106,23 @@ public class VocabularyResource {
 
   private final VocabularyService vocabularyService;
   private final ExportService exportService;
+  private final ReleaseExportCache releaseExportCache;
+  private final ReleaseDiffCache releaseDiffCache;
+  private final LatestReleaseCache latestReleaseCache;
   private final MessagePublisher messagePublisher;
 
   VocabularyResource(
       VocabularyService vocabularyService,
       ExportService exportService,
+      ReleaseExportCache releaseExportCache,
+      ReleaseDiffCache releaseDiffCache,
+      LatestReleaseCache latestReleaseCache,
       @Autowired(required = false) MessagePublisher messagePublisher) {
     this.vocabularyService = vocabularyService;
     this.exportService = exportService;
+    this.releaseExportCache = releaseExportCache;
+    this.releaseDiffCache = releaseDiffCache;
+    this.latestReleaseCache = latestReleaseCache;
     this.messagePublisher = messagePublisher;
   }
 
@@ -350,7 +369,8 @@ public class VocabularyResource {
     VocabularyRelease release = releaseVocabularyVersion(vocabularyName, params);
 
     // clear cache
-    LatestReleaseCache.conceptSuggestLatestReleaseCache.remove(vocabularyName);
+    latestReleaseCache.invalidate(vocabularyName);
+    releaseExportCache.preload(release.getVocabularyKey(), vocabularyName, release.getVersion());
 
     return ResponseEntity.created(
             URI.create(httpServletRequest.getRequestURL() + "/" + release.getVersion()))
@@ -416,15 +436,13 @@ public class VocabularyResource {
     return releases.getResults().isEmpty() ? null : releases.getResults().get(0);
   }
 
-  @SneakyThrows
-  public byte[] getReleaseExport(String vocabularyName, String version) {
-    return exportService.getExportFile(vocabularyName, version);
-  }
-
   @Operation(
       operationId = "getReleaseExport",
       summary = "Get the exported release",
-      description = "Details of the exported release to see its content.",
+      description =
+          "Details of the exported release to see its content. The export is served "
+              + "gzip-compressed to the clients that accept it. Range requests and conditional "
+              + "requests using the version as ETag are supported.",
       extensions =
           @Extension(
               name = "Order",
@@ -437,27 +455,155 @@ public class VocabularyResource {
                 "The version of the release. To get the latest one you can specify 'latest'.",
             schema = @Schema(implementation = String.class),
             in = ParameterIn.PATH,
-            explode = Explode.FALSE)
+            explode = Explode.FALSE),
+        @Parameter(name = "requestHeaders", hidden = true)
       })
   @Docs.VocabularyNamePathParameter
   @ApiResponse(responseCode = "200", description = "Release export found and returned")
+  @ApiResponse(responseCode = "206", description = "Requested range of the release export")
+  @ApiResponse(responseCode = "304", description = "Release export not modified")
   @Docs.DefaultUnsuccessfulReadResponses
   @GetMapping(value = "{name}/" + VOCABULARY_RELEASES_PATH + "/{version}/" + VOCABULARY_EXPORT_PATH)
-  @SneakyThrows
-  public ResponseEntity<Resource> getReleasedExport(
-      @PathVariable("name") String vocabularyName, @PathVariable("version") String version) {
-    byte[] exportBytes = getReleaseExport(vocabularyName, version);
-    if (exportBytes == null) {
+  public ResponseEntity<StreamingResponseBody> getReleasedExport(
+      @PathVariable("name") String vocabularyName,
+      @PathVariable("version") String version,
+      @RequestHeader HttpHeaders requestHeaders) {
+    Vocabulary vocabulary = getVocabularyByName(vocabularyName);
+    ReleaseExport releaseExport =
+        releaseExportCache.get(vocabulary.getKey(), vocabularyName, version);
+    if (releaseExport == null) {
+      return ResponseEntity.notFound().build();
+    }
+    ExportFileInfo exportFile = releaseExport.getInfo();
+
+    // the file is served as it's stored unless it's compressed and the client doesn't accept gzip
+    boolean asStored =
+        !exportFile.isGzipped()
+            || GzipUtils.acceptsGzip(requestHeaders.getFirst(HttpHeaders.ACCEPT_ENCODING));
+
+    // releases never change, so the version is used as ETag. The decompressed representation gets
+    // a weak one since it doesn't have the same bytes
+    String eTag = (asStored ? "\"" : "W/\"") + exportFile.getVersion() + "\"";
+
+    HttpHeaders responseHeaders = new HttpHeaders();
+    responseHeaders.set(HttpHeaders.CONTENT_DISPOSITION, "inline");
+    responseHeaders.set(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+    responseHeaders.setETag(eTag);
+    if (matchesETag(requestHeaders.getIfNoneMatch(), eTag)) {
+      return ResponseEntity.status(HttpStatus.NOT_MODIFIED).headers(responseHeaders).build();
+    }
+
+    long length = exportFile.getLength();
+    if (!asStored) {
+      // the length of the decompressed file is unknown, so ranges are not supported
+      responseHeaders.setContentType(MediaType.APPLICATION_JSON);
+      return ResponseEntity.ok()
+          .headers(responseHeaders)
+          .body(
+              out -> {
+                try (InputStream in = new GZIPInputStream(releaseExport.open())) {
+                  in.transferTo(out);
+                }
+              });
+    }
+
+    responseHeaders.set(HttpHeaders.ACCEPT_RANGES, "bytes");
+    long start = 0;
+    long end = length - 1;
+    HttpStatus status = HttpStatus.OK;
+    HttpRange range = getSingleRange(requestHeaders, eTag);
+    if (range != null) {
+      try {
+        start = range.getRangeStart(length);
+        end = range.getRangeEnd(length);
+      } catch (IllegalArgumentException e) {
+        start = length;
+      }
+
+      if (start >= length || start > end) {
+        responseHeaders.set(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+        return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+            .headers(responseHeaders)
+            .build();
+      }
+      responseHeaders.set(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+      status = HttpStatus.PARTIAL_CONTENT;
+    }
+
+    if (exportFile.isGzipped()) {
+      responseHeaders.set(HttpHeaders.CONTENT_ENCODING, GzipUtils.GZIP_ENCODING);
+    }
+    responseHeaders.setContentType(MediaType.APPLICATION_JSON);
+    long offset = start;
+    long count = end - start + 1;
+    responseHeaders.setContentLength(count);
+    return ResponseEntity.status(status)
+        .headers(responseHeaders)
+        .body(out -> releaseExport.write(offset, count, out));
+  }
+
+  @Operation(
+      operationId = "getReleaseDiff",
+      summary = "Get the differences between two releases",
+      description =
+          "Structural differences between a release and an older release of the same vocabulary: "
+              + "concepts added, removed, deprecated, restored and renamed, label changes and "
+              + "hierarchy moves. They are computed from the exports of both releases.",
+      extensions =
+          @Extension(
+              name = "Order",
+              properties = @ExtensionProperty(name = "Order", value = "0340")))
+  @Parameters(
+      value = {
+        @Parameter(
+            name = "version",
+            description =
+                "The version of the newer release. To get the latest one you can specify 'latest'.",
+            schema = @Schema(implementation = String.class),
+            in = ParameterIn.PATH,
+            explode = Explode.FALSE),
+        @Parameter(
+            name = "from",
+            description = "The version of the older release to compare with.",
+            schema = @Schema(implementation = String.class),
+            in = ParameterIn.QUERY,
+            explode = Explode.FALSE)
+      })
+  @Docs.VocabularyNamePathParameter
+  @ApiResponse(responseCode = "200", description = "Release diff computed and returned")
+  @Docs.DefaultUnsuccessfulReadResponses
+  @GetMapping(
+      value =
+          "{name}/" + VOCABULARY_RELEASES_PATH + "/{version}/" + VOCABULARY_RELEASE_DIFF_PATH)
+  public ResponseEntity<ReleaseDiff> getReleaseDiff(
+      @PathVariable("name") String vocabularyName,
+      @PathVariable("version") String version,
+      @RequestParam("from") String fromVersion) {
+    VocabularyRelease toRelease = getRelease(vocabularyName, version);
+    VocabularyRelease fromRelease = getRelease(vocabularyName, fromVersion);
+    if (toRelease == null || fromRelease == null) {
       return ResponseEntity.notFound().build();
     }
-    ByteArrayResource resource = new ByteArrayResource(exportBytes);
-    return ResponseEntity.ok().header("Content-Disposition", "inline").body(resource);
+
+    // the versions are resolved before caching since "latest" changes with every release
+    return ResponseEntity.ok(
+        releaseDiffCache.getDiff(
+            vocabularyName,
+            fromRelease.getVersion(),
+            toRelease.getVersion(),
+            () ->
+                exportService.diffReleases(
+                    vocabularyName, fromRelease.getVersion(), toRelease.getVersion())));
   }
 
   @Hidden
   @DeleteMapping("{name}")
   public void deleteVocabulary(@PathVariable("name") String vocabularyName) {
-    vocabularyService.deleteVocabulary(getVocabularyByName(vocabularyName).getKey());
+    long vocabularyKey = getVocabularyByName(vocabularyName).getKey();
+    vocabularyService.deleteVocabulary(vocabularyKey);
+    releaseExportCache.invalidate(vocabularyKey);
+    releaseDiffCache.invalidate(vocabularyName);
+    latestReleaseCache.invalidate(vocabularyName);
   }
 
   @Operation(
@@ -626,4 +772,31 @@ public class VocabularyResource {
     }
     return vocabulary;
   }
+
+  /**
+   * Gets the range requested if there is only one. Requests with several ranges or an If-Range
+   * that doesn't match the ETag get the whole file, as the HTTP spec allows.
+   */
+  private static HttpRange getSingleRange(HttpHeaders requestHeaders, String eTag) {
+    String ifRange = requestHeaders.getFirst(HttpHeaders.IF_RANGE);
+    if (ifRange != null && !ifRange.equals(eTag)) {
+      return null;
+    }
+
+    try {
+      List<HttpRange> ranges = requestHeaders.getRange();
+      return ranges.size() == 1 ? ranges.get(0) : null;
+    } catch (IllegalArgumentException e) {
+      // invalid ranges are ignored
+      return null;
+    }
+  }
+
+  /** Weak comparison of the If-None-Match ETags, as the spec requires for the conditional GETs. */
+  private static boolean matchesETag(List<String> ifNoneMatch, String eTag) {
+    String opaqueTag = eTag.startsWith("W/") ? eTag.substring(2) : eTag;
+    return ifNoneMatch.stream()
+        .map(t -> t.startsWith("W/") ? t.substring(2) : t)
+        .anyMatch(t -> "*".equals(t) || t.equals(opaqueTag));
+  }
 }
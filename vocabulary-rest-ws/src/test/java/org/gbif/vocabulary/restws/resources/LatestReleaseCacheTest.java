@@ -0,0 +1,166 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.vocabulary.restws.resources;
+
+import org.gbif.vocabulary.model.LanguageRegion;
+import org.gbif.vocabulary.model.search.SuggestResult;
+import org.gbif.vocabulary.restws.config.SuggestCacheConfig;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** Tests the {@link LatestReleaseCache}. */
+public class LatestReleaseCacheTest {
+
+  private final AtomicInteger loads = new AtomicInteger();
+  private MeterRegistry meterRegistry;
+
+  @BeforeEach
+  public void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+    loads.set(0);
+  }
+
+  @Test
+  public void cacheSuggestionsTest() {
+    LatestReleaseCache cache = createCache(DataSize.ofMegabytes(1));
+
+    List<SuggestResult> suggestions =
+        cache.getSuggestions("v1", "a", LanguageRegion.ENGLISH, null, 10, loader("s1"));
+    assertEquals("s1", suggestions.get(0).getName());
+    assertEquals(
+        suggestions,
+        cache.getSuggestions("V1", "a", LanguageRegion.ENGLISH, null, 10, loader("s1")));
+    assertEquals(1, loads.get());
+
+    cache.getSuggestions("v1", "a", LanguageRegion.SPANISH, null, 10, loader("s2"));
+    cache.getSuggestions("v1", "a", LanguageRegion.ENGLISH, null, 5, loader("s3"));
+    cache.getSuggestions("v2", "a", LanguageRegion.ENGLISH, null, 10, loader("s4"));
+    assertEquals(4, loads.get());
+
+    assertEquals(1, requests("hit"));
+    assertEquals(4, requests("miss"));
+    assertEquals(4, entries());
+  }
+
+  @Test
+  public void invalidateTest() {
+    LatestReleaseCache cache = createCache(DataSize.ofMegabytes(1));
+    cache.getSuggestions("v1", "a", null, null, null, loader("s1"));
+    cache.getSuggestions("v2", "a", null, null, null, loader("s2"));
+
+    cache.invalidate("V1");
+    assertEquals(1, entries());
+
+    assertEquals(
+        "s3", cache.getSuggestions("v1", "a", null, null, null, loader("s3")).get(0).getName());
+    assertEquals(
+        "s2", cache.getSuggestions("v2", "a", null, null, null, loader("s4")).get(0).getName());
+    assertEquals(3, loads.get());
+  }
+
+  @Test
+  public void concurrentLoadTest() throws Exception {
+    LatestReleaseCache cache = createCache(DataSize.ofMegabytes(1));
+    CountDownLatch started = new CountDownLatch(4);
+    CountDownLatch loaded = new CountDownLatch(1);
+    Supplier<List<SuggestResult>> slowLoader =
+        () -> {
+          try {
+            loaded.await(10, TimeUnit.SECONDS);
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+          return loader("s1").get();
+        };
+
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<List<SuggestResult>>> results = new ArrayList<>();
+      for (int i = 0; i < 4; i++) {
+        results.add(
+            executor.submit(
+                () -> {
+                  started.countDown();
+                  return cache.getSuggestions("v1", "a", null, null, null, slowLoader);
+                }));
+      }
+      started.await(10, TimeUnit.SECONDS);
+      loaded.countDown();
+
+      for (Future<List<SuggestResult>> result : results) {
+        assertEquals("s1", result.get().get(0).getName());
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    assertEquals(1, loads.get());
+  }
+
+  @Test
+  public void maxSizeTest() {
+    LatestReleaseCache cache = createCache(DataSize.ofKilobytes(4));
+    for (int i = 0; i < 100; i++) {
+      cache.getSuggestions("v1", "q" + i, null, null, null, loader("suggestion" + i));
+    }
+
+    assertTrue(entries() < 100);
+    assertTrue(meterRegistry.get("vocabulary.suggest.cache.evictions").counter().count() > 0);
+  }
+
+  private LatestReleaseCache createCache(DataSize maxSize) {
+    SuggestCacheConfig config = new SuggestCacheConfig();
+    config.setMaxSize(maxSize);
+    return new LatestReleaseCache(config, meterRegistry);
+  }
+
+  private Supplier<List<SuggestResult>> loader(String name) {
+    return () -> {
+      loads.incrementAndGet();
+      SuggestResult suggestResult = new SuggestResult();
+      suggestResult.setName(name);
+      return Collections.singletonList(suggestResult);
+    };
+  }
+
+  private double requests(String result) {
+    return meterRegistry
+        .get("vocabulary.suggest.cache.requests")
+        .tag("result", result)
+        .counter()
+        .count();
+  }
+
+  private double entries() {
+    return meterRegistry.get("vocabulary.suggest.cache.entries").gauge().value();
+  }
+}
@@ -0,0 +1,112 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.vocabulary.restws.resources;
+
+import org.gbif.vocabulary.model.export.ReleaseDiff;
+import org.gbif.vocabulary.restws.config.DiffCacheConfig;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** Tests the {@link ReleaseDiffCache}. */
+public class ReleaseDiffCacheTest {
+
+  private final AtomicInteger loads = new AtomicInteger();
+  private MeterRegistry meterRegistry;
+
+  @BeforeEach
+  public void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+    loads.set(0);
+  }
+
+  @Test
+  public void cacheDiffsTest() {
+    ReleaseDiffCache cache = createCache(10);
+
+    ReleaseDiff diff = cache.getDiff("v1", "1.0", "2.0", loader("v1"));
+    assertEquals("v1", diff.getVocabularyName());
+    assertEquals(diff, cache.getDiff("V1", "1.0", "2.0", loader("v1")));
+    assertEquals(1, loads.get());
+
+    cache.getDiff("v1", "2.0", "1.0", loader("v1"));
+    cache.getDiff("v2", "1.0", "2.0", loader("v2"));
+    assertEquals(3, loads.get());
+
+    assertEquals(1, requests("hit"));
+    assertEquals(3, requests("miss"));
+    assertEquals(3, entries());
+  }
+
+  @Test
+  public void invalidateTest() {
+    ReleaseDiffCache cache = createCache(10);
+    cache.getDiff("v1", "1.0", "2.0", loader("v1"));
+    cache.getDiff("v2", "1.0", "2.0", loader("v2"));
+
+    cache.invalidate("V1");
+    assertEquals(1, entries());
+
+    cache.getDiff("v1", "1.0", "2.0", loader("v1"));
+    cache.getDiff("v2", "1.0", "2.0", loader("v2"));
+    assertEquals(3, loads.get());
+  }
+
+  @Test
+  public void maxEntriesTest() {
+    ReleaseDiffCache cache = createCache(5);
+    for (int i = 0; i < 100; i++) {
+      cache.getDiff("v1", "1." + i, "2.0", loader("v1"));
+    }
+
+    assertTrue(entries() <= 5);
+    assertTrue(meterRegistry.get("vocabulary.diff.cache.evictions").counter().count() > 0);
+  }
+
+  private ReleaseDiffCache createCache(long maxEntries) {
+    DiffCacheConfig config = new DiffCacheConfig();
+    config.setMaxEntries(maxEntries);
+    return new ReleaseDiffCache(config, meterRegistry);
+  }
+
+  private Supplier<ReleaseDiff> loader(String vocabularyName) {
+    return () -> {
+      loads.incrementAndGet();
+      ReleaseDiff diff = new ReleaseDiff();
+      diff.setVocabularyName(vocabularyName);
+      return diff;
+    };
+  }
+
+  private double requests(String result) {
+    return meterRegistry
+        .get("vocabulary.diff.cache.requests")
+        .tag("result", result)
+        .counter()
+        .count();
+  }
+
+  private double entries() {
+    return meterRegistry.get("vocabulary.diff.cache.entries").gauge().value();
+  }
+}
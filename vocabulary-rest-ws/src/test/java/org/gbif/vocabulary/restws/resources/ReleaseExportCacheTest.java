@@ -0,0 +1,199 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.vocabulary.restws.resources;
+
+import org.gbif.vocabulary.model.export.ExportFileInfo;
+import org.gbif.vocabulary.restws.config.ExportCacheConfig;
+import org.gbif.vocabulary.restws.resources.ReleaseExportCache.ReleaseExport;
+import org.gbif.vocabulary.service.ExportService;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/** Tests the {@link ReleaseExportCache}. */
+public class ReleaseExportCacheTest {
+
+  private static final long VOCAB_KEY = 1;
+  private static final byte[] EXPORT_1 = "{\"version\":\"1.0.0\"}".getBytes(StandardCharsets.UTF_8);
+  private static final byte[] EXPORT_2 = "{\"version\":\"2.0.0\"}".getBytes(StandardCharsets.UTF_8);
+  private static final byte[] EXPORT_3 = "{\"version\":\"3.0.0\"}".getBytes(StandardCharsets.UTF_8);
+
+  @TempDir Path directory;
+  private ExportService exportService;
+
+  @BeforeEach
+  public void setUp() {
+    exportService = mock(ExportService.class);
+    mockExport("1.0.0", EXPORT_1);
+    mockExport("2.0.0", EXPORT_2);
+    mockExport("3.0.0", EXPORT_3);
+  }
+
+  @Test
+  public void cacheTest() throws IOException {
+    ReleaseExportCache cache = createCache(1024);
+
+    ReleaseExport releaseExport = cache.get(VOCAB_KEY, "vocab", "1.0.0");
+    assertEquals(EXPORT_1.length, releaseExport.getInfo().getLength());
+    assertArrayEquals(EXPORT_1, write(releaseExport, 0, EXPORT_1.length));
+    assertArrayEquals(Arrays.copyOfRange(EXPORT_1, 2, 7), write(releaseExport, 2, 5));
+    try (InputStream in = releaseExport.open()) {
+      assertArrayEquals(EXPORT_1, in.readAllBytes());
+    }
+
+    // the next requests are served from the cache
+    assertArrayEquals(EXPORT_1, write(cache.get(VOCAB_KEY, "vocab", "1.0.0"), 0, EXPORT_1.length));
+    verify(exportService, times(1)).getExportFileInfo("vocab", "1.0.0");
+    verify(exportService, times(1))
+        .openExportFile(eq("vocab"), eq("1.0.0"), anyLong(), anyLong());
+    assertEquals(1, countCachedFiles());
+
+    assertNull(cache.get(VOCAB_KEY, "vocab", "0.1.0"));
+  }
+
+  @Test
+  public void evictionTest() throws IOException {
+    // only 2 exports fit in the cache
+    ReleaseExportCache cache = createCache(EXPORT_1.length * 2);
+
+    cache.get(VOCAB_KEY, "vocab", "1.0.0");
+    ReleaseExport releaseExport2 = cache.get(VOCAB_KEY, "vocab", "2.0.0");
+    // 1.0.0 is used again so 2.0.0 is the least recently used and it's evicted
+    cache.get(VOCAB_KEY, "vocab", "1.0.0");
+    cache.get(VOCAB_KEY, "vocab", "3.0.0");
+    assertEquals(2, countCachedFiles());
+
+    // the evicted export is read from the DB, once to cache it and now to serve it
+    assertArrayEquals(EXPORT_2, write(releaseExport2, 0, EXPORT_2.length));
+    verify(exportService, times(2))
+        .openExportFile(eq("vocab"), eq("2.0.0"), eq(0L), eq((long) EXPORT_2.length));
+    cache.get(VOCAB_KEY, "vocab", "2.0.0");
+    verify(exportService, times(2)).getExportFileInfo("vocab", "2.0.0");
+
+    cache.get(VOCAB_KEY, "vocab", "1.0.0");
+    verify(exportService, times(2)).getExportFileInfo("vocab", "1.0.0");
+  }
+
+  @Test
+  public void invalidateTest() throws IOException {
+    ReleaseExportCache cache = createCache(1024);
+    cache.preload(VOCAB_KEY, "vocab", "1.0.0");
+    assertEquals(1, countCachedFiles());
+
+    cache.invalidate(VOCAB_KEY);
+    assertEquals(0, countCachedFiles());
+    cache.get(VOCAB_KEY, "vocab", "1.0.0");
+    verify(exportService, times(2)).getExportFileInfo("vocab", "1.0.0");
+  }
+
+  @Test
+  public void recreatedVocabularyTest() throws IOException {
+    ReleaseExportCache cache = createCache(1024);
+    cache.get(VOCAB_KEY, "vocab", "1.0.0");
+
+    // a vocabulary with the same name but another key doesn't get the cached export
+    cache.get(VOCAB_KEY + 1, "vocab", "1.0.0");
+    verify(exportService, times(2)).getExportFileInfo("vocab", "1.0.0");
+
+    // both use the same file, so it's kept until none of them is cached
+    cache.invalidate(VOCAB_KEY);
+    assertEquals(1, countCachedFiles());
+    cache.invalidate(VOCAB_KEY + 1);
+    assertEquals(0, countCachedFiles());
+  }
+
+  @Test
+  public void disabledCacheTest() throws IOException {
+    ExportCacheConfig config = new ExportCacheConfig();
+    ReleaseExportCache cache = new ReleaseExportCache(exportService, config);
+
+    assertArrayEquals(EXPORT_1, write(cache.get(VOCAB_KEY, "vocab", "1.0.0"), 0, EXPORT_1.length));
+    assertArrayEquals(EXPORT_1, write(cache.get(VOCAB_KEY, "vocab", "1.0.0"), 0, EXPORT_1.length));
+    verify(exportService, times(2))
+        .openExportFile(eq("vocab"), eq("1.0.0"), anyLong(), anyLong());
+  }
+
+  @Test
+  public void clearDirectoryTest() throws IOException {
+    Files.write(directory.resolve("old.export"), EXPORT_1);
+    Files.write(directory.resolve("other.txt"), EXPORT_1);
+
+    createCache(1024);
+    assertFalse(Files.exists(directory.resolve("old.export")));
+    assertEquals(1, countFiles());
+  }
+
+  private ReleaseExportCache createCache(long maxSize) throws IOException {
+    ExportCacheConfig config = new ExportCacheConfig();
+    config.setDirectory(directory.toString());
+    config.setMaxSize(DataSize.ofBytes(maxSize));
+    return new ReleaseExportCache(exportService, config);
+  }
+
+  private void mockExport(String version, byte[] export) {
+    ExportFileInfo exportFileInfo = new ExportFileInfo();
+    exportFileInfo.setVersion(version);
+    exportFileInfo.setLength(export.length);
+    when(exportService.getExportFileInfo("vocab", version)).thenReturn(exportFileInfo);
+    when(exportService.openExportFile(eq("vocab"), eq(version), anyLong(), anyLong()))
+        .thenAnswer(
+            invocation -> {
+              long offset = invocation.getArgument(2);
+              long length = invocation.getArgument(3);
+              return new ByteArrayInputStream(export, (int) offset, (int) length);
+            });
+  }
+
+  private static byte[] write(ReleaseExport releaseExport, long offset, long length)
+      throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    releaseExport.write(offset, length, out);
+    return out.toByteArray();
+  }
+
+  private long countCachedFiles() throws IOException {
+    try (Stream<Path> files = Files.list(directory)) {
+      return files.filter(f -> f.toString().endsWith(".export")).count();
+    }
+  }
+
+  private long countFiles() throws IOException {
+    try (Stream<Path> files = Files.list(directory)) {
+      return files.count();
+    }
+  }
+}
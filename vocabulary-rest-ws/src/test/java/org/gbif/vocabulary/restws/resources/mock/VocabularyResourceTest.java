@@ -21,47 +21,64 @@ import org.gbif.vocabulary.api.VocabularyReleaseParams;
 import org.gbif.vocabulary.model.UserRoles;
 import org.gbif.vocabulary.model.Vocabulary;
 import org.gbif.vocabulary.model.VocabularyRelease;
+import org.gbif.vocabulary.model.export.ExportFileInfo;
+import org.gbif.vocabulary.model.export.ReleaseDiff;
 import org.gbif.vocabulary.model.search.SuggestResult;
 import org.gbif.vocabulary.model.search.VocabularySearchParams;
 import org.gbif.vocabulary.restws.resources.VocabularyResource;
 import org.gbif.vocabulary.service.ExportService;
 import org.gbif.vocabulary.service.VocabularyService;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.UUID;
+import java.util.zip.GZIPOutputStream;
 
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.BeanUtils;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.google.common.collect.ImmutableList;
 
 import static org.gbif.vocabulary.model.utils.PathUtils.VOCABULARIES_PATH;
+import static org.gbif.vocabulary.model.utils.PathUtils.VOCABULARY_EXPORT_PATH;
 import static org.gbif.vocabulary.model.utils.PathUtils.VOCABULARY_RELEASES_PATH;
+import static org.gbif.vocabulary.model.utils.PathUtils.VOCABULARY_RELEASE_DIFF_PATH;
 import static org.hamcrest.Matchers.endsWith;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 /** Tests the {@link VocabularyResource} using mocks for the server and service layers. */
@@ -293,6 +310,180 @@ public class VocabularyResourceTest extends BaseResourceTest<Vocabulary> {
     assertTrue(vr1.lenientEquals(release));
   }
 
+  @Test
+  public void getReleaseDiffTest() throws Exception {
+    Vocabulary vocabulary = createEntity();
+    vocabulary.setKey(TEST_KEY);
+
+    VocabularyRelease vr1 = new VocabularyRelease();
+    vr1.setVocabularyKey(vocabulary.getKey());
+    vr1.setVersion("1.0.0");
+    VocabularyRelease vr2 = new VocabularyRelease();
+    vr2.setVocabularyKey(vocabulary.getKey());
+    vr2.setVersion("2.0.0");
+    when(exportService.listReleases(eq(vocabulary.getName()), eq("1.0.0"), any()))
+        .thenReturn(
+            new PagingResponse<>(new PagingRequest(0, 1), 1L, Collections.singletonList(vr1)));
+    when(exportService.listReleases(eq(vocabulary.getName()), eq("latest"), any()))
+        .thenReturn(
+            new PagingResponse<>(new PagingRequest(0, 1), 1L, Collections.singletonList(vr2)));
+    when(exportService.listReleases(eq(vocabulary.getName()), eq("0.0.1"), any()))
+        .thenReturn(new PagingResponse<>(new PagingRequest(0, 1), 0L, Collections.emptyList()));
+
+    ReleaseDiff diff = new ReleaseDiff();
+    diff.setVocabularyName(vocabulary.getName());
+    diff.setFromVersion("1.0.0");
+    diff.setToVersion("2.0.0");
+    diff.getAddedConcepts().add("NewConcept");
+    when(exportService.diffReleases(vocabulary.getName(), "1.0.0", "2.0.0")).thenReturn(diff);
+
+    String url =
+        getBasePath()
+            + "/"
+            + vocabulary.getName()
+            + "/"
+            + VOCABULARY_RELEASES_PATH
+            + "/latest/"
+            + VOCABULARY_RELEASE_DIFF_PATH;
+
+    // the diff is computed only once for the same releases
+    for (int i = 0; i < 2; i++) {
+      mockMvc
+          .perform(get(url).param("from", "1.0.0"))
+          .andExpect(status().isOk())
+          .andExpect(jsonPath("toVersion", is("2.0.0")))
+          .andExpect(jsonPath("addedConcepts[0]", is("NewConcept")));
+    }
+    verify(exportService, times(1)).diffReleases(vocabulary.getName(), "1.0.0", "2.0.0");
+
+    mockMvc.perform(get(url).param("from", "0.0.1")).andExpect(status().isNotFound());
+  }
+
+  @Test
+  public void getReleasedExportTest() throws Exception {
+    byte[] export = "{\"concepts\":[]}".getBytes(StandardCharsets.UTF_8);
+    ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+    try (GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+      out.write(export);
+    }
+    byte[] compressedExport = compressed.toByteArray();
+    mockReleaseExport("1.0.0", compressedExport, true);
+    String exportPath =
+        getBasePath() + "/vocab/" + VOCABULARY_RELEASES_PATH + "/1.0.0/" + VOCABULARY_EXPORT_PATH;
+
+    // clients that accept gzip get the export as it's stored
+    MvcResult mvcResult =
+        performStreamed(get(exportPath).header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate"))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+            .andExpect(header().string(HttpHeaders.ETAG, "\"1.0.0\""))
+            .andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"))
+            .andReturn();
+    assertArrayEquals(compressedExport, mvcResult.getResponse().getContentAsByteArray());
+
+    // the rest of clients get it decompressed
+    mvcResult =
+        performStreamed(get(exportPath))
+            .andExpect(status().isOk())
+            .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+            .andExpect(header().string(HttpHeaders.ETAG, "W/\"1.0.0\""))
+            .andReturn();
+    assertArrayEquals(export, mvcResult.getResponse().getContentAsByteArray());
+
+    // conditional requests
+    mockMvc
+        .perform(
+            get(exportPath)
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                .header(HttpHeaders.IF_NONE_MATCH, "\"1.0.0\""))
+        .andExpect(status().isNotModified());
+    mockMvc
+        .perform(get(exportPath).header(HttpHeaders.IF_NONE_MATCH, "\"1.0.0\""))
+        .andExpect(status().isNotModified());
+
+    // range requests
+    mvcResult =
+        performStreamed(
+                get(exportPath)
+                    .header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                    .header(HttpHeaders.RANGE, "bytes=0-9"))
+            .andExpect(status().isPartialContent())
+            .andExpect(
+                header()
+                    .string(HttpHeaders.CONTENT_RANGE, "bytes 0-9/" + compressedExport.length))
+            .andReturn();
+    assertArrayEquals(
+        Arrays.copyOfRange(compressedExport, 0, 10),
+        mvcResult.getResponse().getContentAsByteArray());
+
+    mvcResult =
+        performStreamed(
+                get(exportPath)
+                    .header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                    .header(HttpHeaders.RANGE, "bytes=-5"))
+            .andExpect(status().isPartialContent())
+            .andReturn();
+    assertArrayEquals(
+        Arrays.copyOfRange(compressedExport, compressedExport.length - 5, compressedExport.length),
+        mvcResult.getResponse().getContentAsByteArray());
+
+    mockMvc
+        .perform(
+            get(exportPath)
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                .header(HttpHeaders.RANGE, "bytes=" + compressedExport.length + "-"))
+        .andExpect(status().isRequestedRangeNotSatisfiable())
+        .andExpect(
+            header().string(HttpHeaders.CONTENT_RANGE, "bytes */" + compressedExport.length));
+
+    // the whole export is returned if the If-Range doesn't match
+    mvcResult =
+        performStreamed(
+                get(exportPath)
+                    .header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                    .header(HttpHeaders.RANGE, "bytes=0-9")
+                    .header(HttpHeaders.IF_RANGE, "\"0.9.0\""))
+            .andExpect(status().isOk())
+            .andReturn();
+    assertArrayEquals(compressedExport, mvcResult.getResponse().getContentAsByteArray());
+
+    // exports stored uncompressed
+    mockReleaseExport("0.1.0", export, false);
+    mvcResult =
+        performStreamed(
+                get(exportPath.replace("1.0.0", "0.1.0"))
+                    .header(HttpHeaders.ACCEPT_ENCODING, "gzip"))
+            .andExpect(status().isOk())
+            .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+            .andReturn();
+    assertArrayEquals(export, mvcResult.getResponse().getContentAsByteArray());
+
+    mockMvc.perform(get(exportPath.replace("1.0.0", "2.0.0"))).andExpect(status().isNotFound());
+  }
+
+  private void mockReleaseExport(String version, byte[] exportFile, boolean gzipped) {
+    ExportFileInfo exportFileInfo = new ExportFileInfo();
+    exportFileInfo.setVersion(version);
+    exportFileInfo.setLength(exportFile.length);
+    exportFileInfo.setGzipped(gzipped);
+    when(exportService.getExportFileInfo("vocab", version)).thenReturn(exportFileInfo);
+    when(exportService.openExportFile(eq("vocab"), eq(version), anyLong(), anyLong()))
+        .thenAnswer(
+            invocation -> {
+              long offset = invocation.getArgument(2);
+              long length = invocation.getArgument(3);
+              return new ByteArrayInputStream(exportFile, (int) offset, (int) length);
+            });
+  }
+
+  /** The streamed responses are written asynchronously. */
+  private ResultActions performStreamed(MockHttpServletRequestBuilder requestBuilder)
+      throws Exception {
+    MvcResult mvcResult =
+        mockMvc.perform(requestBuilder).andExpect(request().asyncStarted()).andReturn();
+    return mockMvc.perform(asyncDispatch(mvcResult));
+  }
+
   @Override
   String getBasePath() {
     return "/" + VOCABULARIES_PATH;